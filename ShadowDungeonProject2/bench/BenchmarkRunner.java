@@ -0,0 +1,77 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Minimal benchmark harness: runs an operation a number of times after a warm-up and reports
+ * per-operation time percentiles, bytes allocated per operation and garbage collector activity.
+ */
+public class BenchmarkRunner {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final int warmupIterations;
+    private final int iterations;
+
+    /**
+     * Creates a runner.
+     *
+     * @param warmupIterations Number of unmeasured runs before measuring.
+     * @param iterations       Number of measured runs.
+     */
+    public BenchmarkRunner(int warmupIterations, int iterations) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Measures an operation and prints one result line.
+     *
+     * @param name      Name of the benchmark.
+     * @param parameter Description of the benchmark parameters.
+     * @param setup     Unmeasured preparation run before every iteration.
+     * @param operation The operation being measured.
+     */
+    public void run(String name, String parameter, Runnable setup, Runnable operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            setup.run();
+            operation.run();
+        }
+
+        long[] times = new long[iterations];
+        long allocated = 0;
+        long gcCount = -totalGcCount();
+        long gcMillis = -totalGcMillis();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < iterations; i++) {
+            setup.run();
+            long bytesBefore = THREADS.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            operation.run();
+            times[i] = System.nanoTime() - start;
+            allocated += THREADS.getThreadAllocatedBytes(thread) - bytesBefore;
+        }
+        gcCount += totalGcCount();
+        gcMillis += totalGcMillis();
+
+        Arrays.sort(times);
+        System.out.printf("%-40s %-24s p50 %10.1f us  p99 %10.1f us  alloc %10d B/op  gc %d (%d ms)%n",
+                name, parameter, times[iterations / 2] / 1e3, times[(int) (iterations * 0.99)] / 1e3,
+                allocated / iterations, gcCount, gcMillis);
+    }
+
+    private static long totalGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long totalGcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
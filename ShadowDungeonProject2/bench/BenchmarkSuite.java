@@ -0,0 +1,316 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Runs the collision, combat and entity update benchmarks headless against synthetic rooms
+ * scaled from 10 to 100,000 entities.
+ *
+ * Usage: {@code BenchmarkSuite [name filter] [max entities]}, run from the project directory
+ * so the game resources can be found, e.g. {@code mvn -P benchmark compile exec:java}.
+ */
+public class BenchmarkSuite {
+    private static final int[] ROOM_SIZES = {10, 100, 1000, 10000, 100000};
+    private static final int PROJECTILES = 2000;
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int ITERATIONS = 50;
+    private static final long SEED = 42;
+    private static final int SNAPSHOT_WARMUP_ITERATIONS = 2000;
+    private static final int SNAPSHOT_ITERATIONS = 1000;
+    private static final int CHECK_FRAMES = 600;
+    private static final int LEVEL_ENTITIES = 100000;
+    private static final int DEFERRED_TASKS = 10000;
+    private static final long DEFERRED_TASK_NANOS = 20000;
+    private static final double SCHEDULER_BUDGET_MILLIS = 4;
+    private static final int SCHEDULER_ENTITIES = 1000;
+    private static final int WARMUP_FRAMES = 200;
+
+    /**
+     * Entry point of the benchmark suite.
+     *
+     * @param args Optional benchmark name filter and largest room size.
+     */
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        int maxEntities = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+        BenchmarkRunner runner = new BenchmarkRunner(WARMUP_ITERATIONS, ITERATIONS);
+        SyntheticRoom.loadGame();
+        runSnapshotBenchmarks(new BenchmarkRunner(SNAPSHOT_WARMUP_ITERATIONS, SNAPSHOT_ITERATIONS), filter);
+        if (LEVEL_ENTITIES <= maxEntities) runLoadBenchmarks(runner, filter);
+        if ("FrameScheduler.runDeferred".contains(filter)) {
+            reportSchedulerBudget(Math.min(SCHEDULER_ENTITIES, maxEntities));
+        }
+
+        for (int entities : ROOM_SIZES) {
+            if (entities > maxEntities) break;
+            String parameter = "entities=" + entities;
+            SyntheticRoom room = new SyntheticRoom(entities, SEED);
+            EntityManager entityManager = room.getEntityManager();
+            List<Enemy> enemies = entityManager.getAllEnemies();
+
+            if ("CombatManager.processCombat".contains(filter)) {
+                // combat destroys enemies and crates, so every iteration starts from a fresh room
+                SyntheticRoom[] combatRoom = new SyntheticRoom[1];
+                runner.run("CombatManager.processCombat", parameter + " shots=" + PROJECTILES,
+                        () -> {
+                            combatRoom[0] = new SyntheticRoom(entities, SEED);
+                            combatRoom[0].fireBullets(PROJECTILES);
+                            combatRoom[0].fireFireballs(PROJECTILES);
+                        },
+                        () -> combatRoom[0].processCombat());
+            }
+            if ("EntityManager.updateAndShootEnemies".contains(filter)) {
+                runner.run("EntityManager.updateAndShootEnemies", parameter,
+                        () -> room.fireFireballs(0),
+                        () -> entityManager.updateAndShootEnemies(room.getRobot()));
+            }
+            if ("EntityManager.updateAndShootEnemies (parallel)".contains(filter)) {
+                checkParallelMatchesSerial(entities);
+                entityManager.setParallelEnemyUpdate(true);
+                entityManager.setParallelEnemyThreshold(1);
+                runner.run("EntityManager.updateAndShootEnemies (parallel)", parameter,
+                        () -> room.fireFireballs(0),
+                        () -> entityManager.updateAndShootEnemies(room.getRobot()));
+                entityManager.setParallelEnemyUpdate(false);
+            }
+            if ("EntityManager.updateAndDrawEnvironment".contains(filter)) {
+                ScriptedInput idle = new ScriptedInput();
+                runner.run("EntityManager.updateAndDrawEnvironment", parameter,
+                        () -> room.getRobot().getStats().setHealth(Double.MAX_VALUE),
+                        () -> entityManager.updateAndDrawEnvironment(idle, room.getRobot(), SyntheticRoom.ROOM_NAME));
+            }
+            if ("EntityManager.noMoreEnemies".contains(filter)) {
+                // every enemy but the last is dead, which is when checking the enemies one by one was slowest
+                runner.run("EntityManager.noMoreEnemies", parameter + " living=1",
+                        () -> {
+                            for (int i = 0; i < enemies.size() - 1; i++) enemies.get(i).takeDamage(Double.MAX_VALUE);
+                        },
+                        entityManager::noMoreEnemies);
+            }
+            if ("Bullet.updateAndCheckCollisions".contains(filter)) {
+                ProjectilePool bullets = room.getRobot().getBullets();
+                runner.run("Bullet.updateAndCheckCollisions", parameter + " shots=" + PROJECTILES,
+                        () -> room.fireBullets(PROJECTILES),
+                        () -> {
+                            for (int i = 0; i < bullets.size(); i++) {
+                                if (bullets.isActive(i)) {
+                                    bullets.getType().updateAndCheckCollisions(bullets, i, room.getRobot(), enemies,
+                                            entityManager.getCollisionLayers(),
+                                            ShadowDungeon.screenWidth, ShadowDungeon.screenHeight);
+                                }
+                            }
+                        });
+            }
+            room.getEntityManager().dispose();
+        }
+    }
+
+    /**
+     * Times loading a level file holding the game's properties plus a generated room of
+     * {@value #LEVEL_ENTITIES} entities, from the file and from properties already in memory.
+     *
+     * @param runner The benchmark runner.
+     * @param filter The benchmark name filter.
+     */
+    private static void runLoadBenchmarks(BenchmarkRunner runner, String filter) {
+        Properties level = new Properties();
+        level.putAll(ShadowDungeon.getGameProps());
+        level.putAll(SyntheticRoom.levelProperties(LEVEL_ENTITIES, new Random(SEED)));
+        String parameter = "entities=" + LEVEL_ENTITIES;
+        if ("RoomTemplate.load".contains(filter)) {
+            try {
+                File file = File.createTempFile("bench", ".properties");
+                file.deleteOnExit();
+                try (OutputStream out = new FileOutputStream(file)) {
+                    level.store(out, null);
+                }
+                runner.run("RoomTemplate.load", parameter + " bytes=" + file.length(), () -> { },
+                        () -> loadTemplate(IOUtils.readPropertiesFile(file.getPath())));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                System.exit(-1);
+            }
+        }
+        if ("RoomTemplate.parse".contains(filter)) {
+            runner.run("RoomTemplate.parse", parameter, () -> { }, () -> loadTemplate(level));
+        }
+    }
+
+    private static RoomTemplate loadTemplate(Properties level) {
+        HashMap<String, HashMap<String, String>> rooms = IOUtils.indexRoomProperties(level);
+        return RoomTemplate.parse(SyntheticRoom.ROOM_NAME, rooms.get(SyntheticRoom.ROOM_NAME));
+    }
+
+    /**
+     * Times restarting the real game by rebuilding every room from its template against restoring
+     * the snapshot taken at start-up, and saving and loading a snapshot file.
+     *
+     * @param runner The benchmark runner.
+     * @param filter The benchmark name filter.
+     */
+    private static void runSnapshotBenchmarks(BenchmarkRunner runner, String filter) {
+        GameSession session = SyntheticRoom.getSession();
+        if ("GameSession.reset".contains(filter)) {
+            runner.run("GameSession.reset", "templates", () -> { }, session::reset);
+        }
+        if ("GameSession.restart".contains(filter)) {
+            runner.run("GameSession.restart", "snapshot", () -> { }, session::restart);
+        }
+        GameSnapshot snapshot = GameSnapshot.capture(session);
+        if ("GameSnapshot.recapture".contains(filter)) {
+            runner.run("GameSnapshot.recapture", "bytes=" + snapshot.size(), () -> { },
+                    () -> snapshot.recapture(session));
+        }
+        if ("GameSnapshot.readFrom".contains(filter)) {
+            try {
+                File file = File.createTempFile("bench", ".sdsv");
+                file.deleteOnExit();
+                snapshot.writeTo(file.getPath());
+                runner.run("GameSnapshot.readFrom+restore", "bytes=" + snapshot.size(), () -> { },
+                        () -> GameSnapshot.readFrom(file.getPath()).restore(session));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                System.exit(-1);
+            }
+        }
+        session.reset();
+    }
+
+    /**
+     * Runs the same room serially and in parallel (whatever its size) while the robot walks through the enemies,
+     * and stops the suite if the two runs end in a different state. Part way through, every third enemy is killed
+     * and then the room's enemies are activated again, as when the player re-enters an unfinished room, so dead
+     * enemies that stay visible are checked too.
+     *
+     * @param entities The size of the room to check.
+     */
+    private static void checkParallelMatchesSerial(int entities) {
+        long serial = runEnemyFrames(entities, false);
+        long parallel = runEnemyFrames(entities, true);
+        System.out.printf("parallel enemy update matches serial at %d entities: %b%n", entities, serial == parallel);
+        if (serial != parallel) {
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Queues {@value #DEFERRED_TASKS} deferred tasks of {@value #DEFERRED_TASK_NANOS} ns each, far more
+     * than fit in one frame, and runs frames of a room's enemy updates with the scheduler until the
+     * queue is empty, reporting how far past the end of its budget each frame ran. That every frame
+     * stops within the budget plus one task is checked exactly by {@code FrameSchedulerTest}; this
+     * shows the same on real frames, where a thread descheduled by the operating system is late
+     * whatever the scheduler does, so the report says whether the median frame kept to it.
+     *
+     * @param entities The size of the room updated each frame.
+     */
+    private static void reportSchedulerBudget(int entities) {
+        SyntheticRoom room = new SyntheticRoom(entities, SEED);
+        EntityManager entityManager = room.getEntityManager();
+        Robot robot = room.getRobot();
+        robot.getStats().setHealth(1e9);
+        FrameScheduler scheduler = new FrameScheduler();
+        scheduler.setBudget(SCHEDULER_BUDGET_MILLIS);
+        long budgetNanos = (long) (SCHEDULER_BUDGET_MILLIS * 1e6);
+        // compile the frame and the deferred tasks first, as the compiler shares the CPU with the frames
+        for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            scheduler.defer(BenchmarkSuite::busyWait);
+            scheduler.beginFrame();
+            updateEnemies(entityManager, robot, frame);
+            scheduler.runDeferred();
+        }
+        for (int i = 0; i < DEFERRED_TASKS; i++) {
+            scheduler.defer(BenchmarkSuite::busyWait);
+        }
+
+        long[] frameTimes = new long[DEFERRED_TASKS];
+        long[] overruns = new long[DEFERRED_TASKS];
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int frames = 0;
+        while (scheduler.getPendingCount() > 0 && frames < frameTimes.length) {
+            long cpuStart = threads.getCurrentThreadCpuTime();
+            long start = System.nanoTime();
+            scheduler.beginFrame();
+            updateEnemies(entityManager, robot, frames);
+            long updated = System.nanoTime() - start;
+            scheduler.runDeferred();
+            long frameTime = System.nanoTime() - start;
+            // time the thread spent switched out (e.g. a busy machine throttling the process) is not the scheduler's
+            long switchedOut = Math.max(0, frameTime - (threads.getCurrentThreadCpuTime() - cpuStart));
+            frameTimes[frames] = frameTime;
+            overruns[frames] = frameTime - switchedOut - Math.max(budgetNanos, updated);
+            frames++;
+        }
+        boolean drained = scheduler.getPendingCount() == 0;
+        entityManager.dispose();
+
+        Arrays.sort(frameTimes, 0, frames);
+        Arrays.sort(overruns, 0, frames);
+        double p50 = frameTimes[frames / 2] / 1e6;
+        double max = frameTimes[frames - 1] / 1e6;
+        double p50Overrun = overruns[frames / 2] / 1e6;
+        double p95Overrun = overruns[Math.min(frames - 1, (int) (frames * 0.95))] / 1e6;
+        boolean underBudget = p50Overrun <= DEFERRED_TASK_NANOS / 1e6;
+        System.out.printf("%d deferred tasks (%.0f ms of work) over %d frames at %d entities, budget %.1f ms: "
+                        + "frame p50 %.3f ms, max %.3f ms, overrun p50 %.3f ms, p95 %.3f ms, under budget: %b%n",
+                DEFERRED_TASKS, DEFERRED_TASKS * DEFERRED_TASK_NANOS / 1e6, frames, entities,
+                SCHEDULER_BUDGET_MILLIS, p50, max, p50Overrun, p95Overrun, drained && underBudget);
+    }
+
+    private static void updateEnemies(EntityManager entityManager, Robot robot, int frame) {
+        robot.move(frame * 7 % ShadowDungeon.screenWidth, frame * 3 % ShadowDungeon.screenHeight);
+        entityManager.updateAndShootEnemies(robot);
+        entityManager.getFireballs().moveAll();
+        RenderQueue.flush();
+    }
+
+    private static void busyWait() {
+        long end = System.nanoTime() + DEFERRED_TASK_NANOS;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static long runEnemyFrames(int entities, boolean parallel) {
+        SyntheticRoom room = new SyntheticRoom(entities, SEED);
+        EntityManager entityManager = room.getEntityManager();
+        entityManager.setParallelEnemyUpdate(parallel);
+        entityManager.setParallelEnemyThreshold(1);
+        Robot robot = room.getRobot();
+        // high enough never to die, low enough that every hit changes it
+        robot.getStats().setHealth(1e9);
+        List<Enemy> enemies = entityManager.getAllEnemies();
+        for (int frame = 0; frame < CHECK_FRAMES; frame++) {
+            if (frame == CHECK_FRAMES / 3) {
+                for (int i = 0; i < enemies.size(); i += 3) enemies.get(i).takeDamage(Double.MAX_VALUE);
+            }
+            if (frame == CHECK_FRAMES / 2) {
+                entityManager.activateEnemies();
+            }
+            robot.move(frame * 7 % ShadowDungeon.screenWidth, frame * 3 % ShadowDungeon.screenHeight);
+            entityManager.updateAndShootEnemies(robot);
+            entityManager.getFireballs().moveAll();
+        }
+        long hash = Double.doubleToLongBits(robot.getStats().getHealth());
+        for (Enemy enemy : enemies) {
+            hash = hash * 31 + Double.doubleToLongBits(enemy.getPosition().x);
+            hash = hash * 31 + Double.doubleToLongBits(enemy.getPosition().y);
+            hash = hash * 31 + (enemy.isActive() ? 1 : 0);
+            hash = hash * 31 + (enemy.isDead() ? 1 : 0);
+        }
+        ProjectilePool fireballs = entityManager.getFireballs();
+        for (int i = 0; i < fireballs.size(); i++) {
+            hash = hash * 31 + Double.doubleToLongBits(fireballs.getX(i));
+            hash = hash * 31 + Double.doubleToLongBits(fireballs.getY(i));
+        }
+        entityManager.dispose();
+        return hash;
+    }
+}
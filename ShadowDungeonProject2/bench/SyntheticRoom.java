@@ -0,0 +1,146 @@
+import bagel.util.Point;
+
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * A generated battle room with a chosen number of entities, used by the benchmarks.
+ * Entities are spread randomly over the screen with a fixed seed so every run sees the same room.
+ */
+public class SyntheticRoom {
+    public static final String ROOM_NAME = "bench";
+    private static GameSession session;
+    private final EntityManager entityManager;
+    private final CombatManager combatManager = new CombatManager();
+    private final Robot robot;
+    private final Random random;
+
+    /**
+     * Builds a room holding roughly the given number of entities.
+     * Walls and rivers make up 30% each, tables, baskets, bullet kin and ashen bullet kin 10% each.
+     *
+     * @param entities Total number of entities in the room.
+     * @param seed     Seed for entity placement.
+     */
+    public SyntheticRoom(int entities, long seed) {
+        loadGame();
+        random = new Random(seed);
+        Properties props = levelProperties(entities, random);
+        entityManager = new EntityManager(session);
+        entityManager.initEntities(RoomTemplate.parse(props, ROOM_NAME), new BattleRoom(session, ROOM_NAME));
+        entityManager.activateEnemies();
+        robot = new Robot(session, new Point(ShadowDungeon.screenWidth / 2, ShadowDungeon.screenHeight / 2));
+        session.setCurrCharacter(robot);
+    }
+
+    /**
+     * Loads the game configuration in headless mode and starts the session the synthetic rooms
+     * belong to, once per JVM.
+     */
+    public static void loadGame() {
+        if (session != null) return;
+        session = HeadlessSimulation.loadSession(IOUtils.readPropertiesFile("res/app.properties"),
+                IOUtils.readPropertiesFile("res/message.properties"));
+    }
+
+    /**
+     * Gets the session the synthetic rooms belong to, which also plays the real game's rooms.
+     *
+     * @return The game session.
+     */
+    public static GameSession getSession() { return session; }
+
+    /**
+     * Generates the properties of a room holding roughly the given number of entities,
+     * in the same format as the rooms in res/app.properties.
+     *
+     * @param entities Total number of entities in the room.
+     * @param random   Source of entity positions.
+     * @return The room's properties.
+     */
+    public static Properties levelProperties(int entities, Random random) {
+        Properties props = new Properties();
+        props.setProperty("wall." + ROOM_NAME, randomCoords(random, entities * 3 / 10));
+        props.setProperty("river." + ROOM_NAME, randomCoords(random, entities * 3 / 10));
+        props.setProperty("table." + ROOM_NAME, randomCoords(random, entities / 10));
+        props.setProperty("basket." + ROOM_NAME, randomCoords(random, entities / 10));
+        props.setProperty("bulletKin." + ROOM_NAME, randomCoords(random, entities / 10));
+        props.setProperty("ashenBulletKin." + ROOM_NAME, randomCoords(random, entities / 10));
+        props.setProperty("keyBulletKin." + ROOM_NAME, "576,64;768,64;768,484;288,484;288,64");
+        props.setProperty("primarydoor." + ROOM_NAME, "512,720,prep");
+        props.setProperty("secondarydoor." + ROOM_NAME, "32,384,B");
+        return props;
+    }
+
+    private static String randomCoords(Random random, int count) {
+        if (count == 0) return "0";
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) builder.append(';');
+            builder.append(random.nextInt((int) ShadowDungeon.screenWidth)).append(',')
+                    .append(random.nextInt((int) ShadowDungeon.screenHeight));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Replaces the robot's bullets with the given number of new bullets flying in random directions,
+     * and restores the robot's health so it cannot die during a benchmark.
+     *
+     * @param count Number of bullets to fire.
+     */
+    public void fireBullets(int count) {
+        ProjectilePool bullets = robot.getBullets();
+        bullets.clear();
+        for (int i = 0; i < count; i++) {
+            Point start = randomPoint();
+            bullets.spawn(start, randomPoint(), robot.bulletSpeed, robot.weaponDamage);
+        }
+        session.getStats().setHealth(Double.MAX_VALUE);
+    }
+
+    /**
+     * Replaces the room's fireballs with the given number of new fireballs flying in random directions.
+     *
+     * @param count Number of fireballs to fire.
+     */
+    public void fireFireballs(int count) {
+        ProjectilePool fireballs = entityManager.getFireballs();
+        fireballs.clear();
+        for (int i = 0; i < count; i++) {
+            fireballs.spawn(randomPoint(), randomPoint());
+        }
+        session.getStats().setHealth(Double.MAX_VALUE);
+    }
+
+    private Point randomPoint() {
+        return new Point(random.nextDouble() * ShadowDungeon.screenWidth, random.nextDouble() * ShadowDungeon.screenHeight);
+    }
+
+    /**
+     * Runs one frame of combat for the room.
+     */
+    public void processCombat() {
+        combatManager.processCombat(
+                robot,
+                entityManager.getFireballs(),
+                robot.getBullets(),
+                entityManager.getAllEnemies(),
+                entityManager.getCollisionLayers()
+        );
+    }
+
+    /**
+     * Gets the room's entity manager.
+     *
+     * @return The entity manager.
+     */
+    public EntityManager getEntityManager() { return entityManager; }
+
+    /**
+     * Gets the robot controlled in the room.
+     *
+     * @return The robot.
+     */
+    public Robot getRobot() { return robot; }
+}
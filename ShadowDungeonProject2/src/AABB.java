@@ -0,0 +1,106 @@
+/**
+ * An axis-aligned bounding box stored as primitive edges.
+ * Entities keep one box each and update it only when they move or change image,
+ * so collision tests compare numbers instead of building new rectangles every frame.
+ */
+public class AABB {
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+
+    /**
+     * Moves the box so it is centred on the given position with the size of the given sprite.
+     *
+     * @param x      The x-coordinate of the centre.
+     * @param y      The y-coordinate of the centre.
+     * @param sprite The sprite giving the width and height of the box.
+     */
+    public void setCentred(double x, double y, Sprite sprite) {
+        double halfWidth = sprite.getWidth() / 2;
+        double halfHeight = sprite.getHeight() / 2;
+        minX = x - halfWidth;
+        minY = y - halfHeight;
+        maxX = x + halfWidth;
+        maxY = y + halfHeight;
+    }
+
+    /**
+     * Copies the edges of another box into this one.
+     *
+     * @param other The box to copy.
+     */
+    public void set(AABB other) {
+        minX = other.minX;
+        minY = other.minY;
+        maxX = other.maxX;
+        maxY = other.maxY;
+    }
+
+    /**
+     * Checks whether this box has exactly the same edges as another box.
+     *
+     * @param other The other box.
+     * @return True if every edge is equal.
+     */
+    public boolean sameAs(AABB other) {
+        return minX == other.minX && minY == other.minY && maxX == other.maxX && maxY == other.maxY;
+    }
+
+    /**
+     * Checks whether this box overlaps another box.
+     *
+     * @param other The other box.
+     * @return True if the boxes overlap.
+     */
+    public boolean intersects(AABB other) {
+        return intersects(minX, minY, maxX, maxY, other.minX, other.minY, other.maxX, other.maxY);
+    }
+
+    /**
+     * Checks whether two boxes given by their edges overlap.
+     * Boxes that only touch along an edge do not overlap, the same as {@code Rectangle.intersects}.
+     *
+     * @param minX1 Left edge of the first box.
+     * @param minY1 Top edge of the first box.
+     * @param maxX1 Right edge of the first box.
+     * @param maxY1 Bottom edge of the first box.
+     * @param minX2 Left edge of the second box.
+     * @param minY2 Top edge of the second box.
+     * @param maxX2 Right edge of the second box.
+     * @param maxY2 Bottom edge of the second box.
+     * @return True if the boxes overlap.
+     */
+    public static boolean intersects(double minX1, double minY1, double maxX1, double maxY1,
+                                     double minX2, double minY2, double maxX2, double maxY2) {
+        return minX1 < maxX2 && maxX1 > minX2 && minY1 < maxY2 && maxY1 > minY2;
+    }
+
+    /**
+     * Gets the left edge.
+     *
+     * @return The smallest x-coordinate in the box.
+     */
+    public double getMinX() { return minX; }
+
+    /**
+     * Gets the top edge.
+     *
+     * @return The smallest y-coordinate in the box.
+     */
+    public double getMinY() { return minY; }
+
+    /**
+     * Gets the right edge.
+     *
+     * @return The largest x-coordinate in the box.
+     */
+    public double getMaxX() { return maxX; }
+
+    /**
+     * Gets the bottom edge.
+     *
+     * @return The largest y-coordinate in the box.
+     */
+    public double getMaxY() { return maxY; }
+}
@@ -12,14 +12,15 @@ public class AshenEnemy extends Enemy{
      * The enemy's properties (health, coin drop, damage per frame, and shooting frequency)
      * are read from the ShadowDungeon game properties.
      *
+     * @param world    the world of the enemy's room, which holds its state
      * @param position the starting position of the AshenEnemy
      */
-    public AshenEnemy(Point position) {
-        super("res/ashen_bullet_kin.png",
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("ashenBulletKinHealth")),
-                position, Double.parseDouble(ShadowDungeon.getGameProps().getProperty("ashenBulletKinCoin")),
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("riverDamagePerFrame")),
-                Integer.parseInt(ShadowDungeon.getGameProps().getProperty("ashenBulletKinShootFrequency")));
+    public AshenEnemy(EntityWorld world, Point position) {
+        super(world, "res/ashen_bullet_kin.png",
+                ShadowDungeon.getConfig().getAshenBulletKinHealth(),
+                position, ShadowDungeon.getConfig().getAshenBulletKinCoin(),
+                ShadowDungeon.getConfig().getRiverDamagePerFrame(),
+                ShadowDungeon.getConfig().getAshenBulletKinShootFrequency());
     }
 
 }
@@ -0,0 +1,35 @@
+import bagel.Input;
+import bagel.Keys;
+import bagel.MouseButtons;
+
+/**
+ * Game input backed by the live bagel window input.
+ */
+public class BagelInput implements GameInput {
+    private Input input;
+
+    /**
+     * Sets the bagel input for the current frame.
+     *
+     * @param input the input passed to the game by bagel
+     */
+    public void setInput(Input input) { this.input = input; }
+
+    @Override
+    public boolean isDown(Keys key) { return input.isDown(key); }
+
+    @Override
+    public boolean wasPressed(Keys key) { return input.wasPressed(key); }
+
+    @Override
+    public boolean isDown(MouseButtons button) { return input.isDown(button); }
+
+    @Override
+    public boolean wasPressed(MouseButtons button) { return input.wasPressed(button); }
+
+    @Override
+    public double getMouseX() { return input.getMouseX(); }
+
+    @Override
+    public double getMouseY() { return input.getMouseY(); }
+}
@@ -8,12 +8,13 @@ public class Basket extends GameObject implements Earnable{
 
     /**
      * Creates a Basket at the specified position.
+     * @param world the world of the room the Basket is in
      * @param point the position of the Basket in the game world
      */
 
-    public Basket(Point point) {
-        super(point, "res/basket.png");
-        this.coins = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("basketCoin"));
+    public Basket(EntityWorld world, Point point) {
+        super(world, point, "res/basket.png", CollisionMask.BASKET, 0);
+        this.coins = ShadowDungeon.getConfig().getBasketCoin();
     }
 
     /**
@@ -32,7 +33,7 @@ public class Basket extends GameObject implements Earnable{
      */
     @Override
     public void onEarn(Character character) {
-        Character.earnCoins(coins);
+        character.getStats().earnCoins(coins);
         this.destroy();
     }
 }
@@ -1,40 +1,49 @@
-import bagel.Input;
 import bagel.Keys;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Properties;
+
+import java.nio.ByteBuffer;
 
 /**
  * Represents a battle room in the game where combat and interactions occur.
  */
-public class BattleRoom {
+public class BattleRoom extends Room {
     private Character currCharacter;
     private final Store store;
     private final EntityManager entityManager;
     private final CombatManager combatManager;
     private boolean stopCurrentUpdateCall = false;
     private boolean isComplete = false;
-    private final String roomName;
 
     /**
      *Constructs a BattleRoom
      *Initializes the store, entity manager, and combat manager for the room.
+     * @param session The game session the room belongs to.
      * @param roomName
      */
-    public BattleRoom(String roomName) {
-        store = new Store();
-        this.entityManager = new EntityManager();
+    public BattleRoom(GameSession session, String roomName) {
+        super(session, roomName);
+        store = new Store(session);
+        this.entityManager = new EntityManager(session);
         this.combatManager = new CombatManager();
-        this.roomName = roomName;
     }
 
     /**
-     *Initializes all entities in the room using the provided game properties.
+     *Initializes all entities in the room from the room's template.
      *
-     * @param gameProperties
+     * @param template The room's layout, parsed once from the game properties.
      */
-    public void initEntities(Properties gameProperties) {
-        entityManager.initEntities(gameProperties, roomName, this);
+    @Override
+    public void initEntities(RoomTemplate template) {
+        entityManager.initEntities(template, this);
+    }
+
+    /**
+     * Checks whether the room draws its own background as part of its baked static layer.
+     *
+     * @return True if the room draws the background itself.
+     */
+    @Override
+    public boolean hasBakedBackground() {
+        return entityManager.hasBakedBackground();
     }
 
     /**
@@ -44,7 +53,8 @@ public class BattleRoom {
      * @param input The current input state from the player.
      */
 
-    public void update(Input input) {
+    @Override
+    public void update(GameInput input) {
         if (input.wasPressed(Keys.SPACE)) {store.setActive(!store.getActive());}
         if (store.getActive()) {
             drawWorld();//pause everything
@@ -61,33 +71,99 @@ public class BattleRoom {
         if (currCharacter != null) currCharacter.draw();
     }
 
-    private void updateWorld(Input input) {
+    private void updateWorld(GameInput input) {
+        FrameProfiler.begin(FrameProfiler.DOORS);
         entityManager.updatePrimaryDoor(currCharacter);
-        if (stopUpdatingEarlyIfNeeded()) return;
-        entityManager.updateSecondaryDoor(currCharacter);
-        if (stopUpdatingEarlyIfNeeded()) return;
-        entityManager.updateAndDrawEnvironment(input, currCharacter,roomName);
-        ArrayList<Fireball> newFireballs = entityManager.updateAndShootEnemies(currCharacter);
-        entityManager.getFireballs().addAll(newFireballs);
+        boolean leftRoom = stopUpdatingEarlyIfNeeded();
+        if (!leftRoom) {
+            entityManager.updateSecondaryDoor(currCharacter);
+            leftRoom = stopUpdatingEarlyIfNeeded();
+        }
+        FrameProfiler.end(FrameProfiler.DOORS);
+        if (leftRoom) return;
+        if (FrameProfiler.isEnabled()) {
+            FrameProfiler.setCounts(entityManager.getEntityCount(), entityManager.getFireballs().getActiveCount()
+                    + (currCharacter.getBullets() == null ? 0 : currCharacter.getBullets().getActiveCount()));
+        }
+        FrameProfiler.begin(FrameProfiler.ENVIRONMENT);
+        entityManager.updateAndDrawEnvironment(input, currCharacter,getName());
+        FrameProfiler.end(FrameProfiler.ENVIRONMENT);
+        FrameProfiler.begin(FrameProfiler.ENEMY_AI);
+        entityManager.updateAndShootEnemies(currCharacter);
+        FrameProfiler.end(FrameProfiler.ENEMY_AI);
+        FrameProfiler.begin(FrameProfiler.COMBAT);
         combatManager.processCombat(
                 currCharacter,
                 entityManager.getFireballs(),
                 currCharacter.getBullets(),
-                entityManager.getKeyBulletKin(),
-                entityManager.getBulletKins(),
-                entityManager.getAshenEnemies(),
-                (List<GameObject>) (List<?>) entityManager.getCollidableEnvironment()
+                entityManager.getLivingEnemies(),
+                entityManager.getCollisionLayers()
         );
+        FrameProfiler.end(FrameProfiler.COMBAT);
+        entityManager.scheduleCleanup();
+        FrameProfiler.begin(FrameProfiler.CHARACTER);
         if (currCharacter != null) { currCharacter.update(input); currCharacter.draw(); }
+        FrameProfiler.end(FrameProfiler.CHARACTER);
         if (entityManager.noMoreEnemies() && !isComplete()) {
             setComplete(true);
             unlockAllDoors();
         }
     }
 
+    /**
+     * Mixes the state of the room and its entities into a hash.
+     *
+     * @param hash The hash so far.
+     * @return The new hash.
+     */
+    @Override
+    public long hashState(long hash) {
+        hash = StateHash.mix(hash, isComplete);
+        hash = StateHash.mix(hash, store.getActive());
+        return entityManager.hashState(hash);
+    }
+
+    /**
+     * Writes the state of the room and its entities to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    @Override
+    void writeState(ByteBuffer out) {
+        out.put((byte) getSession().getCharacterId(currCharacter));
+        GameSnapshot.putBoolean(out, stopCurrentUpdateCall);
+        GameSnapshot.putBoolean(out, isComplete);
+        store.writeState(out);
+        entityManager.writeState(out);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param in The buffer to read from.
+     */
+    @Override
+    void readState(ByteBuffer in) {
+        currCharacter = getSession().getCharacterById(in.get());
+        stopCurrentUpdateCall = GameSnapshot.getBoolean(in);
+        isComplete = GameSnapshot.getBoolean(in);
+        store.readState(in);
+        entityManager.readState(in);
+    }
+
+    /**
+     * Releases the sprites used by the room.
+     */
+    @Override
+    public void dispose() {
+        store.dispose();
+        entityManager.dispose();
+    }
+
     /**
      * Stops the current update call and resets the room state.
      */
+    @Override
     public void stopCurrentUpdateCall() {
         stopCurrentUpdateCall = true;
         entityManager.resetRoomState();
@@ -101,7 +177,6 @@ public class BattleRoom {
     public void setCurrCharacter(Character currCharacter) {
         this.currCharacter = currCharacter;
         store.character = currCharacter;
-        store.setBullet(currCharacter.createBulletTemplate());
 
     }
 
@@ -115,6 +190,26 @@ public class BattleRoom {
         return entityManager.findDoorByDestination(roomName);
     }
 
+    /**
+     * Moves a character into the room through the door leading back to the room it came from.
+     * If the room has not been completed yet, the door locks again behind the character.
+     *
+     * @param fromRoomName The room the character is leaving.
+     * @param character    The character entering.
+     */
+    @Override
+    public void enter(String fromRoomName, Character character) {
+        Door nextDoor = findDoorByDestination(fromRoomName);
+        // prepare the door to be able to activate the Battle Room
+        if (!isComplete()) {
+            nextDoor.setShouldLockAgain();
+        }
+        // move the player to the center of the next room's door
+        nextDoor.unlock(true);
+        character.move(nextDoor.getPosition().x, nextDoor.getPosition().y);
+        setCurrCharacter(character);
+    }
+
     private void unlockAllDoors() {
         entityManager.unlockAllDoors();
     }
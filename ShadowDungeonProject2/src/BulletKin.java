@@ -1,5 +1,4 @@
 import bagel.util.Point;
-import java.util.ArrayList;
 
 /**
  * Represents an BulletKin in the game, which is a type of Enemy.
@@ -15,14 +14,18 @@ public class BulletKin extends Enemy {
      * The enemy's properties (health, coin drop, damage per frame, and shooting frequency)
      * are read from the ShadowDungeon game properties.
      *
+     * A dead BulletKin stays out of the room even when the room wakes its enemies again.
+     *
+     * @param world    the world of the enemy's room, which holds its state
      * @param position the starting position of the AshenEnemy
      */
-    public BulletKin(Point position) {
-        super("res/bullet_kin.png",
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("bulletKinHealth")),
-                position,Double.parseDouble(ShadowDungeon.getGameProps().getProperty("bulletKinCoin")),
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("riverDamagePerFrame")),
-                Integer.parseInt(ShadowDungeon.getGameProps().getProperty("bulletKinShootFrequency")));
+    public BulletKin(EntityWorld world, Point position) {
+        super(world, "res/bullet_kin.png",
+                ShadowDungeon.getConfig().getBulletKinHealth(),
+                position,ShadowDungeon.getConfig().getBulletKinCoin(),
+                ShadowDungeon.getConfig().getRiverDamagePerFrame(),
+                ShadowDungeon.getConfig().getBulletKinShootFrequency());
+        world.set(getEntity(), EntityWorld.HIDDEN_WHEN_DEAD, true);
     }
 
 
@@ -1,13 +1,13 @@
-import bagel.Image;
 import bagel.util.Point;
 import bagel.util.Rectangle;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.Set;
 
 /**
  * The Character class represents a general character in the game.
- * It stores position, health, speed, weapon stats, and shared attributes like coins and keys.
+ * It stores position and weapon stats, and reads the attributes shared by every character of
+ * its game session, like health, coins and keys, from the session's {@link PlayerStats}.
  *
  * This class is abstract and should be extended by specific character types (e.g., Player, Enemy).
  */
@@ -15,42 +15,28 @@ public abstract class Character {
     private Point position;
     private Point prevPosition;
     private Point previewPosition;
-    private Image currImage;
-    private static double coins = 0;
-    private static double health;
-    private static double speed;
-    private static double weapon = 0;
-    private static int key = 0;
-    public double bulletSpeed = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("bulletSpeed"));
-    public double weaponDamage = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("weaponStandardDamage"));
+    private Sprite currImage;
+    private final AABB bounds = new AABB();
+    private final GameSession session;
+    private final PlayerStats stats;
+    public double bulletSpeed = ShadowDungeon.getConfig().getBulletSpeed();
+    public double weaponDamage = ShadowDungeon.getConfig().getWeaponStandardDamage();
     private Set<String> collectedKeys = new HashSet<>();
 
     /**
-     * Creates a Character with the given position, image, health, and speed.
+     * Creates a Character with the given position and image.
      *
+     * @param session the game session the character belongs to
      * @param position the starting position of the character
      * @param image the image representing the character
-     * @param health the initial health of the character
-     * @param speed the movement speed of the character
      */
-    public Character(Point position, Image image, double health, double speed) {
+    public Character(GameSession session, Point position, Sprite image) {
+        this.session = session;
+        this.stats = session.getStats();
         this.position = position;
         this.prevPosition = position;
         this.currImage = image;
-        Character.health = health;
-        Character.speed = speed;
-    }
-
-    /**
-     * Resets all shared character stats such as coins, keys, weapon, and health.
-     *
-     * @param startingHealth the health value to reset to
-     */
-    public static void resetSharedStats(double startingHealth) {
-        coins = 0;
-        key = 0;
-        weapon = 0;
-        health = startingHealth;
+        bounds.setCentred(position.x, position.y, image);
     }
 
     /**
@@ -61,7 +47,7 @@ public abstract class Character {
     public void pickUpKey(Key key) {
         if (key.getActive()) {
             key.setActive(false);
-            setKey(getKey() + 1);
+            stats.setKey(stats.getKey() + 1);
         }
     }
 
@@ -73,7 +59,7 @@ public abstract class Character {
      */
     public void move(double x, double y) {
         this.prevPosition = this.position;
-        this.position = new Point(x, y);
+        setPosition(new Point(x, y));
     }
 
     /**
@@ -83,23 +69,15 @@ public abstract class Character {
      * @param dmg the amount of damage taken
      */
     public void takeDamage(double dmg) {
-        setHealth(health - dmg);
-        if (health <= 0) {
-            setHealth(0);
+        stats.setHealth(stats.getHealth() - dmg);
+        session.getEvents().publish(EventBus.CHARACTER_DAMAGED, this, dmg);
+        if (stats.getHealth() <= 0) {
+            stats.setHealth(0);
             System.out.println("Character died!");
-            ShadowDungeon.changeToGameOverRoom();
+            session.changeToGameOverRoom();
         }
     }
 
-    /**
-     * Creates a bullet based on the character's current position and weapon stats.
-     *
-     * @return a Bullet object representing the shot fired by the character
-     */
-    public Bullet createBulletTemplate() {
-        return new Bullet(this.position, weaponDamage, bulletSpeed, this.position.x, this.position.y);
-    }
-
     /**
      * Returns the number of bonus coins earned by the character.
      *
@@ -118,6 +96,15 @@ public abstract class Character {
         return currImage.getBoundingBoxAt(position);
     }
 
+    /**
+     * Returns the cached bounding box of the character, which is updated when it moves or changes image.
+     *
+     * @return the bounding box around the character
+     */
+    public AABB getBounds() {
+        return bounds;
+    }
+
     /**
      * Records that the character has collected a key in a specific room.
      *
@@ -147,7 +134,10 @@ public abstract class Character {
      * Sets position
      * @param p the new position of the character
      */
-    public void setPosition(Point p) { this.position = p; }
+    public void setPosition(Point p) {
+        this.position = p;
+        bounds.setCentred(p.x, p.y, currImage);
+    }
 
     /**
      * Returns previous position
@@ -165,70 +155,28 @@ public abstract class Character {
      * Gets the current image
      * @return the current image representing the character
      */
-    public Image getCurrImage() { return currImage; }
+    public Sprite getCurrImage() { return currImage; }
 
     /**
      * Sets current image
      * @param img the new image to represent the character
      */
-    public void setCurrImage(Image img) { this.currImage = img; }
-
-    /**
-     * Gets the health of the character
-     * @return the current health of the character
-     */
-    public static double getHealth() { return health;}
-
-    /**
-     * Sets health
-     * @param h the new health value
-     */
-    public static void setHealth(double h) { health = h; }
-
-    /**
-     * Gets the speed
-     * @return the character's movement speed
-     */
-    public static double getSpeed() { return speed; }
-
-    /**
-     * Sets speed
-     * @param s the new movement speed
-     */
-    public static void setSpeed(double s) { speed = s; }
-
-    /**
-     * Gets coins
-     * @return the total coins collected by the character
-     */
-    public static double getCoins() { return coins; }
-
-    /**
-     * Sets coins
-     * @param amount the amount of coins to add
-     */
-    public static void earnCoins(double amount) { coins += amount; }
-
-    /**
-     * Gets weapon
-     * @return the weapon level or damage multiplier
-     */
-    public static double getWeapon() { return weapon; }
+    public void setCurrImage(Sprite img) {
+        this.currImage = img;
+        bounds.setCentred(position.x, position.y, img);
+    }
 
     /**
-     * Sets weapon
-     * @param weapon the new weapon value
+     * Gets the game session the character belongs to
+     * @return the session
      */
-    public static void setWeapon(int weapon) { Character.weapon = weapon; }
+    public GameSession getSession() { return session; }
 
     /**
-     * Gets Key
-     * @return the total number of keys collected
+     * Gets the stats shared by every character of the session
+     * @return the player stats
      */
-    public static int getKey() { return key; }
-
-    /** @param k the new number of keys */
-    public static void setKey(int k) { key = k; }
+    public PlayerStats getStats() { return stats; }
 
     /** Sets Weapon Damage
      * @param weapon the new weapon damage
@@ -245,14 +193,44 @@ public abstract class Character {
      * Updates the character's state based on input.
      * @param input the player input or game state
      */
-    public abstract void update(bagel.Input input);
+    public abstract void update(GameInput input);
 
     /** Draws the character to the screen. */
     public abstract void draw();
 
     /**
-     * Returns a list of bullets fired by the character.
-     * @return an ArrayList of Bullet objects
+     * Returns the bullets fired by the character.
+     * @return the pool of bullets fired by the character
      */
-    public abstract ArrayList<Bullet> getBullets();
+    public abstract ProjectilePool getBullets();
+
+    /**
+     * Writes the state of this character that can change during play to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        GameSnapshot.putPoint(out, position);
+        GameSnapshot.putPoint(out, prevPosition);
+        out.putDouble(bulletSpeed);
+        out.putDouble(weaponDamage);
+        out.putShort((short) collectedKeys.size());
+        for (String roomName : collectedKeys) GameSnapshot.putString(out, roomName);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)}. Subclasses restore the image,
+     * which also moves the bounding box to the restored position.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in) {
+        position = GameSnapshot.getPoint(in);
+        prevPosition = GameSnapshot.getPoint(in);
+        bulletSpeed = in.getDouble();
+        weaponDamage = in.getDouble();
+        collectedKeys.clear();
+        int keyCount = in.getShort();
+        for (int i = 0; i < keyCount; i++) collectedKeys.add(GameSnapshot.getString(in));
+    }
 }
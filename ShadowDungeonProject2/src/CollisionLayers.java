@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The collision layers of a room, built once when the room is loaded and kept up to date as
+ * tables and baskets are destroyed and doors lock or unlock, so collision checks never need to
+ * rebuild or filter lists of environment objects.
+ *
+ * Walls, tables and baskets block both projectiles and characters, so they share one grid of solids.
+ * Rivers are not in any layer because bullets and fireballs fly over them.
+ */
+public class CollisionLayers {
+    private final SpatialGrid solids;
+    private final ArrayList<GameObject> destructibles = new ArrayList<>();
+    private final ArrayList<GameObject> lockedDoors = new ArrayList<>();
+    private final List<GameObject> lockedDoorsView = Collections.unmodifiableList(lockedDoors);
+
+    /**
+     * Creates empty collision layers covering the given area.
+     *
+     * @param width    The width of the room.
+     * @param height   The height of the room.
+     * @param cellSize The cell size of the grid of solids.
+     */
+    public CollisionLayers(double width, double height, double cellSize) {
+        solids = new SpatialGrid(width, height, cellSize);
+    }
+
+    /**
+     * Adds objects that block projectiles and characters and are never destroyed, such as walls.
+     *
+     * @param objects The objects to add.
+     */
+    public void addSolids(List<? extends GameObject> objects) {
+        for (GameObject obj : objects) {
+            solids.insert(obj);
+        }
+    }
+
+    /**
+     * Adds solid objects that can be destroyed, such as tables and baskets.
+     * They are removed from every layer as soon as they are destroyed.
+     *
+     * @param objects The objects to add.
+     */
+    public void addDestructibles(List<? extends GameObject> objects) {
+        for (GameObject obj : objects) {
+            if (obj.isDestroyed()) continue;
+            solids.insert(obj);
+            destructibles.add(obj);
+            obj.setCollisionLayers(this);
+        }
+    }
+
+    /**
+     * Adds a door, which blocks projectiles while it is locked.
+     *
+     * @param door The door to add.
+     */
+    public void addDoor(Door door) {
+        door.setCollisionLayers(this);
+        onDoorLockChanged(door);
+    }
+
+    /**
+     * Empties every layer so it can be built again, e.g. after restoring a snapshot.
+     */
+    public void clear() {
+        solids.clear();
+        destructibles.clear();
+        lockedDoors.clear();
+    }
+
+    /**
+     * Removes a destroyed object from the layers.
+     *
+     * @param obj The destroyed object.
+     */
+    void onDestroyed(GameObject obj) {
+        if (destructibles.remove(obj)) {
+            solids.remove(obj);
+        }
+    }
+
+    /**
+     * Adds or removes a door from the locked doors after it has been locked or unlocked.
+     *
+     * @param door The door whose state changed.
+     */
+    void onDoorLockChanged(Door door) {
+        boolean listed = lockedDoors.contains(door);
+        if (!door.isUnlocked() && !listed) {
+            lockedDoors.add(door);
+        } else if (door.isUnlocked() && listed) {
+            lockedDoors.remove(door);
+        }
+    }
+
+    /**
+     * Gets the grid of objects that block projectiles and characters.
+     *
+     * @return The grid of solids.
+     */
+    public SpatialGrid getSolids() { return solids; }
+
+    /**
+     * Gets the solid objects that have not been destroyed yet.
+     *
+     * @return The destructible objects.
+     */
+    public List<GameObject> getDestructibles() { return destructibles; }
+
+    /**
+     * Gets the doors that are currently locked. The list is updated in place as doors lock and unlock.
+     *
+     * @return The locked doors.
+     */
+    public List<GameObject> getLockedDoors() { return lockedDoorsView; }
+}
@@ -0,0 +1,31 @@
+/**
+ * Collision layer bits. Every game object and enemy belongs to one layer, and every projectile type
+ * has a mask of the layers it reacts to, so checking whether a pair can collide is a single AND.
+ */
+public final class CollisionMask {
+    public static final int NONE = 0;
+    public static final int WALL = 1;
+    public static final int RIVER = 1 << 1;
+    public static final int TABLE = 1 << 2;
+    public static final int BASKET = 1 << 3;
+    public static final int DOOR = 1 << 4;
+    public static final int TREASURE_BOX = 1 << 5;
+    public static final int ENEMY = 1 << 6;
+    public static final int KEY_ENEMY = 1 << 7;
+    public static final int PLAYER = 1 << 8;
+    /** Number of layers, i.e. the size of a table indexed by {@link #indexOf(int)}. */
+    public static final int LAYER_COUNT = 9;
+
+    private CollisionMask() {
+    }
+
+    /**
+     * Converts a single layer bit to a table index.
+     *
+     * @param layer A single layer bit.
+     * @return The index of the layer, from 0 to LAYER_COUNT - 1.
+     */
+    public static int indexOf(int layer) {
+        return Integer.numberOfTrailingZeros(layer);
+    }
+}
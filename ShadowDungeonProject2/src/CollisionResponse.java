@@ -0,0 +1,17 @@
+/**
+ * Response bits describing what happens when a projectile hits something.
+ * Projectile types keep one combination of these per collision layer.
+ */
+public final class CollisionResponse {
+    /** The projectile is removed. */
+    public static final int BLOCK = 1;
+    /** The object that was hit is destroyed. */
+    public static final int DESTROY = 1 << 1;
+    /** The player earns the coins of the object, or of the enemy if the hit killed it. */
+    public static final int REWARD = 1 << 2;
+    /** The enemy or character that was hit takes the projectile's damage. */
+    public static final int DAMAGE = 1 << 3;
+
+    private CollisionResponse() {
+    }
+}
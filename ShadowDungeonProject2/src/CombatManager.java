@@ -1,4 +1,3 @@
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -14,36 +13,20 @@ public class CombatManager {
      * and removing any inactive projectiles after processing.
      *
      * @param player            the player character object involved in combat
-     * @param enemyProjectiles  a list of enemy fireballs
-     * @param playerProjectiles a list of projectiles fired by the player
-     * @param keyBulletKin      a list of KeyBulletKin enemies
-     * @param bulletKins        a list of BulletKin enemies
-     * @param ashenEnemies      a list of AshenEnemy enemies
-     * @param environment       a list of environmental objects
+     * @param enemyProjectiles  the pool of enemy fireballs
+     * @param playerProjectiles the pool of projectiles fired by the player
+     * @param enemies           every enemy in the room
+     * @param layers            the collision layers of the room
      */
     public void processCombat(
             Character player,
-            List<Fireball> enemyProjectiles,
-            List<Bullet> playerProjectiles,
-            List<KeyBulletKin> keyBulletKin,
-            List<BulletKin> bulletKins,
-            List<AshenEnemy> ashenEnemies,
-            List<GameObject> environment
+            ProjectilePool enemyProjectiles,
+            ProjectilePool playerProjectiles,
+            List<Enemy> enemies,
+            CollisionLayers layers
     )
     {
-        List<Enemy> allEnemies = new ArrayList<>();
-        allEnemies.addAll(keyBulletKin);
-        allEnemies.addAll(bulletKins);
-        allEnemies.addAll(ashenEnemies);
-
-        for (Fireball fireball : enemyProjectiles) {
-            fireball.updateAndCheckCollisions(player, allEnemies, environment, ShadowDungeon.screenWidth, ShadowDungeon.screenHeight);
-        }
-        enemyProjectiles.removeIf(p -> !p.isActive());
-
-        for (Bullet bullet : playerProjectiles) {
-            bullet.updateAndCheckCollisions(player, allEnemies, environment, ShadowDungeon.screenWidth, ShadowDungeon.screenHeight);
-        }
-        playerProjectiles.removeIf(p -> !p.isActive());
+        enemyProjectiles.updateAndCheckCollisions(player, enemies, layers, ShadowDungeon.screenWidth, ShadowDungeon.screenHeight);
+        playerProjectiles.updateAndCheckCollisions(player, enemies, layers, ShadowDungeon.screenWidth, ShadowDungeon.screenHeight);
     }
 }
\ No newline at end of file
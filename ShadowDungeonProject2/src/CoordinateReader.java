@@ -0,0 +1,104 @@
+import bagel.util.Point;
+
+/**
+ * Reads a list of coordinates such as {@code 100,200;300,400,extra} one entry at a time,
+ * without splitting the whole list into strings first.
+ *
+ * Whole-number coordinates, which is what the level files use, are parsed straight from the
+ * characters; anything else falls back to {@link Double#parseDouble(String)}, so the result is
+ * always the same as parsing each field on its own.
+ */
+public class CoordinateReader {
+    /** Longest run of digits that is always exact as a long and as a double. */
+    private static final int MAX_FAST_DIGITS = 15;
+    private final String value;
+    private int position = 0;
+    private double x;
+    private double y;
+    private String extra;
+
+    /**
+     * Starts reading a coordinate list.
+     *
+     * @param value The list, with entries separated by semicolons and fields by commas.
+     */
+    public CoordinateReader(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Moves on to the next entry of the list.
+     *
+     * @return True if an entry was read, false at the end of the list.
+     * @throws NumberFormatException if the entry does not start with two numbers.
+     */
+    public boolean next() {
+        int length = value.length();
+        if (position >= length) return false;
+        int end = value.indexOf(';', position);
+        if (end < 0) end = length;
+
+        int firstComma = value.indexOf(',', position);
+        if (firstComma < 0 || firstComma > end) {
+            throw new NumberFormatException("Expected x,y but found " + value.substring(position, end));
+        }
+        int secondComma = value.indexOf(',', firstComma + 1);
+        if (secondComma > end) secondComma = -1;
+
+        x = parseNumber(position, firstComma);
+        y = parseNumber(firstComma + 1, secondComma < 0 ? end : secondComma);
+        if (secondComma < 0) {
+            extra = null;
+        } else {
+            int extraEnd = value.indexOf(',', secondComma + 1);
+            extra = value.substring(secondComma + 1, extraEnd < 0 || extraEnd > end ? end : extraEnd);
+        }
+        position = end + 1;
+        return true;
+    }
+
+    /**
+     * Gets the x coordinate of the current entry.
+     *
+     * @return The x coordinate.
+     */
+    public double getX() { return x; }
+
+    /**
+     * Gets the y coordinate of the current entry.
+     *
+     * @return The y coordinate.
+     */
+    public double getY() { return y; }
+
+    /**
+     * Gets the current entry as a point.
+     *
+     * @return A new point at the entry's coordinates.
+     */
+    public Point getPoint() { return new Point(x, y); }
+
+    /**
+     * Gets the field after the coordinates of the current entry.
+     *
+     * @return The third field, or null if the entry has only two.
+     */
+    public String getExtra() { return extra; }
+
+    private double parseNumber(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > MAX_FAST_DIGITS) return Double.parseDouble(value.substring(start, end));
+        long number = 0;
+        for (; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return Double.parseDouble(value.substring(start, end));
+            number = number * 10 + (c - '0');
+        }
+        return negative ? -(double) number : number;
+    }
+}
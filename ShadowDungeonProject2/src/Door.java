@@ -1,6 +1,7 @@
-import bagel.Image;
 import bagel.util.Point;
 
+import java.nio.ByteBuffer;
+
 /**
  * Door which can be locked or unlocked, allows the player to move to the room it's connected to
  */
@@ -8,22 +9,27 @@ public class Door extends GameObject {
     private final Point position;
     public final String toRoomName;
     public BattleRoom battleRoom; // only set if this door is inside a BattleRoom
+    private final GameSession session;
     private boolean unlocked = false;
     private boolean justEntered = false; // when the player only just entered this door's room
     private boolean shouldLockAgain = false;
-    private static final Image LOCKED_DOOR_IMAGE = new Image("res/locked_door.png");
-    private static final Image UNLOCKED_DOOR_IMAGE = new Image("res/unlocked_door.png");
+    private EventBus events;
+    private static final Sprite LOCKED_DOOR_IMAGE = SpriteRegistry.acquire("res/locked_door.png");
+    private static final Sprite UNLOCKED_DOOR_IMAGE = SpriteRegistry.acquire("res/unlocked_door.png");
 
     /**
      * Creates a door leading to another room.
      *
+     * @param session     The game session the door belongs to.
      * @param position    The position of the door.
      * @param toRoomName  The name of the room this door connects to.
      */
-    public Door(Point position, String toRoomName) {
-        super(position, "res/locked_door.png"); // GameObject constructor
+    public Door(GameSession session, Point position, String toRoomName) {
+        super(position, "res/locked_door.png", CollisionMask.DOOR); // GameObject constructor
         this.toRoomName = toRoomName;
         this.position = position;
+        this.session = session;
+        this.events = session.getEvents();
     }
 
     /**
@@ -34,9 +40,7 @@ public class Door extends GameObject {
      * @param battleRoom  The BattleRoom this door belongs to.
      */
     public Door(Point position, String toRoomName, BattleRoom battleRoom) {
-        super(position, "res/locked_door.png"); // GameObject constructor
-        this.toRoomName = toRoomName;
-        this.position = position;
+        this(battleRoom.getSession(), position, toRoomName);
         this.battleRoom = battleRoom;
     }
 
@@ -56,7 +60,7 @@ public class Door extends GameObject {
 
     private void onCollide(Character currCharacter) {
         if (unlocked && !justEntered) {
-            ShadowDungeon.changeRoom(toRoomName);
+            session.changeRoom(toRoomName);
         } else if (!unlocked) {
             currCharacter.move(currCharacter.getPrevPosition().x, currCharacter.getPrevPosition().y);
         }
@@ -73,18 +77,22 @@ public class Door extends GameObject {
     }
 
     /**
-     * Unlocks the door.
+     * Unlocks the door, publishing {@link EventBus#DOOR_UNLOCKED} only if it was locked.
      *
      * @param justEntered Whether the player just entered through this door.
      */
     public void unlock(boolean justEntered) {
+        boolean wasLocked = !unlocked;
         unlocked = true;
         this.justEntered = justEntered;
+        if (getCollisionLayers() != null) getCollisionLayers().onDoorLockChanged(this);
+        if (wasLocked) events.publish(EventBus.DOOR_UNLOCKED, this, 0);
     }
 
     /** Locks the door. */
     public void lock() {
         unlocked = false;
+        if (getCollisionLayers() != null) getCollisionLayers().onDoorLockChanged(this);
     }
 
     /**
@@ -96,6 +104,15 @@ public class Door extends GameObject {
         return unlocked;
     }
 
+    /**
+     * Sets the bus the door publishes its events on.
+     *
+     * @param events The event bus of the door's room.
+     */
+    public void setEventBus(EventBus events) {
+        this.events = events;
+    }
+
     /** Marks the door to lock again after use. */
     public void setShouldLockAgain() {
         this.shouldLockAgain = true;
@@ -104,8 +121,8 @@ public class Door extends GameObject {
     /** Draws the door on the screen. */
     @Override
     public void draw() {
-        Image img = unlocked ? UNLOCKED_DOOR_IMAGE : LOCKED_DOOR_IMAGE;
-        img.draw(position.x, position.y); // Bagel draws centered
+        Sprite img = unlocked ? UNLOCKED_DOOR_IMAGE : LOCKED_DOOR_IMAGE;
+        img.draw(position.x, position.y, RenderQueue.ENVIRONMENT); // Bagel draws centered
     }
 
     /**
@@ -116,4 +133,20 @@ public class Door extends GameObject {
     public Point getPosition() {
         return position;
     }
+
+    @Override
+    void writeState(ByteBuffer out) {
+        super.writeState(out);
+        GameSnapshot.putBoolean(out, unlocked);
+        GameSnapshot.putBoolean(out, justEntered);
+        GameSnapshot.putBoolean(out, shouldLockAgain);
+    }
+
+    @Override
+    void readState(ByteBuffer in) {
+        super.readState(in);
+        unlocked = GameSnapshot.getBoolean(in);
+        justEntered = GameSnapshot.getBoolean(in);
+        shouldLockAgain = GameSnapshot.getBoolean(in);
+    }
 }
@@ -1,13 +1,11 @@
-import bagel.Input;
 import bagel.Keys;
 
-import java.util.Map;
-import java.util.Properties;
+import java.nio.ByteBuffer;
 
 /**
  * Room where the game ends when the player either completes all rooms or dies
  */
-public class EndRoom {
+public class EndRoom extends Room {
     private Character currCharacter;
     private Door door;
     private RestartArea restartArea;
@@ -18,35 +16,30 @@ public class EndRoom {
 
     /**
      * Constructs the EndRoom and initializes the in-room store.
+     *
+     * @param session The game session the room belongs to.
+     * @param name    The name of the room.
      */
-    public EndRoom() {
-        this.store = new Store();
+    public EndRoom(GameSession session, String name) {
+        super(session, name);
+        this.store = new Store(session);
     }
 
     /**
      * Initializes entities (e.g., door, restart area) within the end room
-     * using the provided game configuration properties.
+     * from the room's template.
      *
-     * @param gameProperties The configuration containing room and entity data.
+     * @param template The room's layout, parsed once from the game properties.
      */
-    public void initEntities(Properties gameProperties) {
-        for (Map.Entry<Object, Object> entry: gameProperties.entrySet()) {
-            String roomSuffix = String.format(".%s", ShadowDungeon.END_ROOM_NAME);
-            if (entry.getKey().toString().contains(roomSuffix)) {
-                String objectType = entry.getKey().toString().substring(0, entry.getKey().toString().length() - roomSuffix.length());
-                String propertyValue = entry.getValue().toString();
-
-                switch (objectType) {
-                    case "door":
-                        String[] coordinates = propertyValue.split(",");
-                        door = new Door(IOUtils.parseCoords(propertyValue), coordinates[2]);
-                        break;
-                    case "restartarea":
-                        restartArea = new RestartArea(IOUtils.parseCoords(propertyValue));
-                        break;
-                    default:
-                }
-            }
+    @Override
+    public void initEntities(RoomTemplate template) {
+        RoomTemplate.Placement doorPlacement = template.getSingle("door");
+        if (doorPlacement != null) {
+            door = new Door(getSession(), doorPlacement.getPosition(), doorPlacement.getExtra());
+        }
+        RoomTemplate.Placement restartPlacement = template.getSingle("restartarea");
+        if (restartPlacement != null) {
+            restartArea = new RestartArea(getSession(), restartPlacement.getPosition());
         }
     }
     private void drawWorld() {
@@ -58,14 +51,12 @@ public class EndRoom {
         }
         if (currCharacter != null) {
             currCharacter.draw();
-            for (Bullet b : currCharacter.getBullets()) {
-                b.draw();
-            }
+            currCharacter.getBullets().draw();
         }
         UserInterface.drawEndMessage(!isGameOver);
     }
 
-    private void updateWorld(Input input) {
+    private void updateWorld(GameInput input) {
         if (isGameOver) {
             findDoor().lock();
         }
@@ -80,9 +71,8 @@ public class EndRoom {
         }
         if (currCharacter != null) {
             currCharacter.update(input);
-            for (Bullet b : currCharacter.getBullets()) {
-                b.update();
-            }
+            currCharacter.getBullets().moveAll();
+            currCharacter.getBullets().deactivateOutOfBounds((int) ShadowDungeon.screenWidth, (int) ShadowDungeon.screenHeight);
         }
     }
 
@@ -92,7 +82,8 @@ public class EndRoom {
      *
      * @param input The current input from the player.
      */
-    public void update(Input input) {
+    @Override
+    public void update(GameInput input) {
         if (input.wasPressed(Keys.SPACE)) {
             store.setActive(!store.getActive());
         }
@@ -107,6 +98,16 @@ public class EndRoom {
         drawWorld();
     }
 
+    /**
+     * Releases the sprites used by the room.
+     */
+    @Override
+    public void dispose() {
+        store.dispose();
+        if (door != null) door.dispose();
+        if (restartArea != null) restartArea.dispose();
+    }
+
     private boolean stopUpdatingEarlyIfNeeded() {
         if (stopCurrentUpdateCall) {
             currCharacter = null;
@@ -116,6 +117,36 @@ public class EndRoom {
         return false;
     }
 
+    /**
+     * Writes the state of the room to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    @Override
+    void writeState(ByteBuffer out) {
+        out.put((byte) getSession().getCharacterId(currCharacter));
+        GameSnapshot.putBoolean(out, isGameOver);
+        GameSnapshot.putBoolean(out, stopCurrentUpdateCall);
+        GameSnapshot.putBoolean(out, paused);
+        store.writeState(out);
+        if (door != null) door.writeState(out);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param in The buffer to read from.
+     */
+    @Override
+    void readState(ByteBuffer in) {
+        currCharacter = getSession().getCharacterById(in.get());
+        isGameOver = GameSnapshot.getBoolean(in);
+        stopCurrentUpdateCall = GameSnapshot.getBoolean(in);
+        paused = GameSnapshot.getBoolean(in);
+        store.readState(in);
+        if (door != null) door.readState(in);
+    }
+
     /**
      * Sets the current player character for this room and initializes the store with it.
      *
@@ -124,7 +155,6 @@ public class EndRoom {
     public void setCurrCharacter(Character currCharacter) {
         this.currCharacter = currCharacter;
         store.character = currCharacter;
-        store.setBullet(currCharacter.createBulletTemplate());
     }
 
     /**
@@ -139,6 +169,7 @@ public class EndRoom {
     /**
      * Flags the current update cycle to stop early.
      */
+    @Override
     public void stopCurrentUpdateCall() {
         stopCurrentUpdateCall = true;
     }
@@ -168,4 +199,19 @@ public class EndRoom {
     public Door findDoorByDestination() {
         return door;
     }
+
+    /**
+     * Moves a character into the room through its only door.
+     *
+     * @param fromRoomName The room the character is leaving.
+     * @param character    The character entering.
+     */
+    @Override
+    public void enter(String fromRoomName, Character character) {
+        Door nextDoor = findDoorByDestination();
+        // move the player to the center of the next room's door
+        nextDoor.unlock(true);
+        character.move(nextDoor.getPosition().x, nextDoor.getPosition().y);
+        setCurrCharacter(character);
+    }
 }
@@ -1,28 +1,30 @@
-import bagel.Image;
 import bagel.util.Point;
 import bagel.util.Rectangle;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 
 /**
  * Abstract base class for all enemies in the game.
  */
 public abstract class Enemy {
-    private Point position;
-    private final Image image;
-    private boolean active = false;
-    private boolean dead = false;
-    private double health;
-    private int shootFrequency;
-    private double damage;
-    private int currentTargetIndex = 0;
+    /** Set in a plan when the enemy took its turn this frame. */
+    public static final int PLAN_UPDATED = 1;
+    /** Set in a plan when the enemy overlapped the character's planned bounds. */
+    public static final int PLAN_COLLIDED = 2;
+    /** Set in a plan when the enemy fires a fireball this frame. */
+    public static final int PLAN_SHOOT = 4;
+    private final EntityWorld world;
+    private final int entity;
+    private final Sprite image;
+    private final int collisionLayer;
+    private final AABB bounds = new AABB();
     private double coin;
-    private double damagePerFrame;
-    private int shootCooldown;
+    private EventBus events;
 
     /**
-     * Creates a new Enemy.
+     * Creates a new Enemy that fires at the character, adding it to the room's world.
      *
+     * @param world            The world of the enemy's room, which holds its state.
      * @param imagePath        Path to the image representing the enemy.
      * @param health           The health of the enemy.
      * @param position         The starting position of the enemy.
@@ -30,61 +32,108 @@ public abstract class Enemy {
      * @param damagePerFrame   Damage dealt per frame when colliding with character.
      * @param shootFrequency   Number of frames between each fireball shot.
      */
-    public Enemy(String imagePath, double health, Point position, double coin, double damagePerFrame, int shootFrequency) {
-        this.image = new Image(imagePath);
-        this.health = health;
-        this.shootFrequency = shootFrequency;
-        this.position=position;
+    public Enemy(EntityWorld world, String imagePath, double health, Point position, double coin,
+                 double damagePerFrame, int shootFrequency) {
+        this(world, imagePath, health, position, coin, CollisionMask.ENEMY, 0);
+        world.addShooter(entity, damagePerFrame, shootFrequency);
+    }
+
+    /**
+     * Creates a new Enemy in the given collision layer, adding it to the room's world.
+     * The subclass adds the components that decide how it moves and attacks.
+     *
+     * @param world            The world of the enemy's room, which holds its state.
+     * @param imagePath        Path to the image representing the enemy.
+     * @param health           The health of the enemy.
+     * @param position         The starting position of the enemy.
+     * @param coin             The coin value dropped upon death.
+     * @param collisionLayer   The {@link CollisionMask} layer the enemy belongs to.
+     * @param flags            The {@link EntityWorld} flags the enemy starts with.
+     */
+    protected Enemy(EntityWorld world, String imagePath, double health, Point position, double coin,
+                    int collisionLayer, int flags) {
+        this.world = world;
+        this.collisionLayer = collisionLayer;
+        this.image = SpriteRegistry.acquire(imagePath);
+        this.entity = world.create(flags, position, image, RenderQueue.ENEMIES);
+        world.addHealth(entity, health);
         this.coin=coin;
-        this.damagePerFrame=damagePerFrame;
-        this.shootFrequency = shootFrequency;
-        this.shootCooldown = shootFrequency;
     }
 
     /**
-     * Updates the enemy's interaction with the character (collision damage only).
+     * Works out this frame's turn without touching anything shared with other enemies, so plans can be
+     * made on several threads at once. Only the enemy's own slots in the world (cooldown, position) change here;
+     * damage and fireballs are left to {@link #applyPlan(int, Character, ProjectilePool, AABB)}.
+     * Together the two calls do exactly what {@link EntityWorld#updateEnemies} does for the enemy,
+     * including a dead enemy that was activated again and still hurts on contact without shooting.
      *
-     * @param currCharacter The character currently in the game.
+     * @param characterBounds The character's bounds at the start of the frame.
+     * @return The plan as a combination of the PLAN_ flags.
      */
-    public void update(Character currCharacter) {
-        if (hasCollidedWith(currCharacter)) {
-            currCharacter.takeDamage(getDamagePerFrame());
+    public int plan(AABB characterBounds) {
+        if (!isActive()) return 0;
+        if (isDead()) {
+            if (world.is(entity, EntityWorld.HIDDEN_WHEN_DEAD)) return 0;
+            return world.intersects(entity, characterBounds) ? PLAN_UPDATED | PLAN_COLLIDED : PLAN_UPDATED;
         }
+        int plan = PLAN_UPDATED;
+        if (world.intersects(entity, characterBounds)) plan |= PLAN_COLLIDED;
+        if (world.tickCooldown(entity)) plan |= PLAN_SHOOT;
+        return plan;
     }
 
     /**
-     * Updates the enemy and handles fireball shooting logic.
+     * Carries out a plan made by {@link #plan(AABB)}. Must be called on the game thread, in the same
+     * enemy order the serial update uses.
      *
-     * @param currCharacter The character currently in the game.
-     * @return A list of Fireballs spawned in this update.
+     * @param plan            The plan returned by {@link #plan(AABB)}.
+     * @param currCharacter   The character currently in the game.
+     * @param fireballs       The pool new fireballs are fired from.
+     * @param plannedBounds   The character bounds the plan was made against.
      */
-    public ArrayList<Fireball> updateAndShoot(Character currCharacter) {
-        ArrayList<Fireball> spawned = new ArrayList<>();
-        if (!isActive() || isDead()) {
-            return spawned;
+    public void applyPlan(int plan, Character currCharacter, ProjectilePool fireballs, AABB plannedBounds) {
+        if ((plan & PLAN_UPDATED) == 0) return;
+        if (collided(plan, currCharacter, plannedBounds)) {
+            currCharacter.takeDamage(getDamagePerFrame());
         }
-
-        if (hasCollidedWith(currCharacter)) {
+        // a dead enemy is only checked for contact once, as in the enemy system
+        if (isDead()) return;
+        if ((plan & PLAN_SHOOT) != 0) {
+            fireballs.spawn(getX(), getY(), currCharacter.getPosition());
+        }
+        if (collided(plan, currCharacter, plannedBounds)) {
             currCharacter.takeDamage(getDamagePerFrame());
         }
+    }
 
-        if (shootCooldown <= 0) {
-            Point spawnCenter = getBoundingBox().centre();
-            Point targetCenter = currCharacter.getCurrImage().getBoundingBoxAt(currCharacter.getPosition()).centre();
-            Fireball f = new Fireball(spawnCenter, targetCenter);
-            spawned.add(f);
-            shootCooldown = shootFrequency; // reset timer
-        } else {
-            shootCooldown--;
+    /**
+     * Checks a planned collision, testing again if an earlier enemy's damage moved the character
+     * (for example back to the start on game over) since the plan was made.
+     *
+     * @param plan            The plan returned by {@link #plan(AABB)}.
+     * @param currCharacter   The character currently in the game.
+     * @param plannedBounds   The character bounds the plan was made against.
+     * @return True if the enemy collides with the character now.
+     */
+    protected boolean collided(int plan, Character currCharacter, AABB plannedBounds) {
+        if (currCharacter.getBounds().sameAs(plannedBounds)) {
+            return (plan & PLAN_COLLIDED) != 0;
         }
-        return spawned;
+        return hasCollidedWith(currCharacter);
+    }
+
+    /**
+     * Releases the enemy's sprite once the enemy is no longer part of the game.
+     */
+    public void dispose() {
+        SpriteRegistry.release(image);
     }
 
     /**
      * Draws the enemy on the screen.
      */
     public void draw() {
-        image.draw(position.x, position.y);
+        world.draw(entity);
     }
 
     /**
@@ -93,19 +142,40 @@ public abstract class Enemy {
      * @return The bounding rectangle of the enemy.
      */
     public Rectangle getBoundingBox() {
-        return image.getBoundingBoxAt(position);
+        return image.getBoundingBoxAt(getPosition());
+    }
+
+    /**
+     * Gets the bounding box of the enemy, copied from the world into a box kept for the purpose,
+     * so it does not allocate.
+     *
+     * @return The bounding box of the enemy.
+     */
+    public AABB getBounds() {
+        world.getBounds(entity, bounds);
+        return bounds;
+    }
+
+    /**
+     * Gets the collision layer of the enemy.
+     *
+     * @return The {@link CollisionMask} layer bit.
+     */
+    public int getCollisionLayer() {
+        return collisionLayer;
     }
 
     /**
      * Checks whether a bullet has collided with this enemy.
      *
-     * @param bullet The bullet to check collision with.
+     * @param bullets The pool holding the bullet.
+     * @param index   The slot of the bullet to check collision with.
      * @return True if the bullet hits the enemy, false otherwise.
      */
-    public boolean checkBulletCollision(Bullet bullet) {
-        if (this.isActive() && !this.isDead()) {
-            if (bullet.getBoundingBox().intersects(this.getBoundingBox())) {
-                this.takeDamage(bullet.getDamage());
+    public boolean checkBulletCollision(ProjectilePool bullets, int index) {
+        if (this.isActive() && !this.isDead() && bullets.isActive(index)) {
+            if (bullets.intersects(index, getBounds())) {
+                this.takeDamage(bullets.getDamage(index));
                 return true;
             }
         }
@@ -119,10 +189,12 @@ public abstract class Enemy {
      */
     public void takeDamage(double dmg) {
         if (isDead()) return;
-        health -= dmg;
+        double health = world.getHealth(entity) - dmg;
+        world.setHealth(entity, health);
         if (health <= 0) {
             setDead(true);
             setActive(false);
+            events.publish(EventBus.ENEMY_DIED, this, coin);
         }
     }
 
@@ -133,8 +205,7 @@ public abstract class Enemy {
      * @return True if a collision has occurred, false otherwise.
      */
     public boolean hasCollidedWith(Character currCharacter) {
-        return image.getBoundingBoxAt(position)
-                .intersects(currCharacter.getCurrImage().getBoundingBoxAt(currCharacter.getPosition()));
+        return world.intersects(entity, currCharacter.getBounds());
     }
 
     /**
@@ -142,35 +213,49 @@ public abstract class Enemy {
      *
      * @return True if dead, false otherwise.
      */
-    public boolean isDead() { return dead; }
+    public boolean isDead() { return world.is(entity, EntityWorld.DEAD); }
 
     /**
      * Sets whether the enemy is dead.
      *
      * @param dead True if the enemy is dead.
      */
-    public void setDead(boolean dead) { this.dead = dead; }
+    public void setDead(boolean dead) { world.set(entity, EntityWorld.DEAD, dead); }
 
     /**
      * Returns whether the enemy is active.
      *
      * @return True if active, false otherwise.
      */
-    public boolean isActive() { return active; }
+    public boolean isActive() { return world.is(entity, EntityWorld.ACTIVE); }
 
     /**
      * Sets whether the enemy is active.
      *
      * @param active True to activate the enemy.
      */
-    public void setActive(boolean active) { this.active = active; }
+    public void setActive(boolean active) { world.set(entity, EntityWorld.ACTIVE, active); }
+
+    /**
+     * Gets the bus the enemy publishes its events on.
+     *
+     * @return The event bus of the enemy's room, set when the room is built.
+     */
+    public EventBus getEventBus() { return events; }
+
+    /**
+     * Sets the bus the enemy publishes its events on.
+     *
+     * @param events The event bus of the enemy's room.
+     */
+    public void setEventBus(EventBus events) { this.events = events; }
 
     /**
      * Gets the current health of the enemy.
      *
      * @return The current health value.
      */
-    public double getHealth() { return health; }
+    public double getHealth() { return world.getHealth(entity); }
 
     /**
      * Gets the amount of coins dropped when the enemy is defeated.
@@ -191,26 +276,85 @@ public abstract class Enemy {
      *
      * @param damage Damage per frame.
      */
-    public void setDamagePerFrame(double damage){ this.damagePerFrame = damage;}
+    public void setDamagePerFrame(double damage){ world.setContactDamage(entity, damage);}
 
     /**
      * Gets the damage dealt per frame to the character.
      *
      * @return Damage per frame.
      */
-    public double getDamagePerFrame(){return damagePerFrame;}
+    public double getDamagePerFrame(){return world.getContactDamage(entity);}
 
     /**
      * Gets the position of the enemy.
      *
-     * @return Current position.
+     * @return Current position, as a new point.
      */
-    public Point getPosition() { return position; }
+    public Point getPosition() { return new Point(getX(), getY()); }
+
+    /**
+     * Gets the x coordinate of the enemy's centre, without allocating.
+     *
+     * @return The x coordinate.
+     */
+    public double getX() { return world.getX(entity); }
+
+    /**
+     * Gets the y coordinate of the enemy's centre, without allocating.
+     *
+     * @return The y coordinate.
+     */
+    public double getY() { return world.getY(entity); }
 
     /**
      * Sets the position of the enemy.
      *
      * @param position New position.
      */
-    public void setPosition(Point position) { this.position = position; }
+    public void setPosition(Point position) {
+        world.setPosition(entity, position.x, position.y);
+    }
+
+    /**
+     * Gets the world that holds the enemy's state.
+     *
+     * @return The world of the enemy's room.
+     */
+    protected EntityWorld getWorld() { return world; }
+
+    /**
+     * Gets the enemy's slot in its world.
+     *
+     * @return The entity.
+     */
+    protected int getEntity() { return entity; }
+
+    /**
+     * Writes the state that can change during play to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        out.putDouble(getX());
+        out.putDouble(getY());
+        out.putDouble(getHealth());
+        GameSnapshot.putBoolean(out, isActive());
+        GameSnapshot.putBoolean(out, isDead());
+        out.putInt(world.getShootCooldown(entity));
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in) {
+        double x = in.getDouble();
+        double y = in.getDouble();
+        world.setPosition(entity, x, y);
+        world.setHealth(entity, in.getDouble());
+        setActive(GameSnapshot.getBoolean(in));
+        setDead(GameSnapshot.getBoolean(in));
+        world.setShootCooldown(entity, in.getInt());
+    }
 }
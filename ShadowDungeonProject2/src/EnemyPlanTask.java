@@ -0,0 +1,52 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Plans the turns of a range of enemies on the fork-join pool.
+ * Each enemy writes its plan into its own slot of the plan buffer, so the tasks never share
+ * anything they write and the result does not depend on how the work was split between threads.
+ */
+public class EnemyPlanTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    /** Ranges at or below this size are planned on one thread without splitting further. */
+    private static final int SPLIT_SIZE = 64;
+    private final Enemy[] enemies;
+    private final int[] plans;
+    private final AABB characterBounds;
+    private final int from;
+    private final int to;
+
+    private EnemyPlanTask(Enemy[] enemies, int[] plans, AABB characterBounds, int from, int to) {
+        this.enemies = enemies;
+        this.plans = plans;
+        this.characterBounds = characterBounds;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Plans every enemy in a range of entities in parallel and waits for all plans to be made.
+     *
+     * @param enemies         The room's enemies, indexed by entity.
+     * @param from            The first enemy entity.
+     * @param to              The entity after the last enemy.
+     * @param plans           The buffer receiving each enemy's plan, indexed by entity.
+     * @param characterBounds The character's bounds at the start of the frame, read but never changed.
+     */
+    public static void planAll(Enemy[] enemies, int from, int to, int[] plans, AABB characterBounds) {
+        ForkJoinPool.commonPool().invoke(new EnemyPlanTask(enemies, plans, characterBounds, from, to));
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= SPLIT_SIZE) {
+            for (int entity = from; entity < to; entity++) {
+                plans[entity] = enemies[entity].plan(characterBounds);
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new EnemyPlanTask(enemies, plans, characterBounds, from, middle),
+                new EnemyPlanTask(enemies, plans, characterBounds, middle, to));
+    }
+}
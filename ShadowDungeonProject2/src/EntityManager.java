@@ -1,101 +1,187 @@
-import bagel.Input;
 import bagel.util.Point;
 
-import java.util.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
+/**
+ * Holds a battle room's entities. Their state lives in the room's {@link EntityWorld}, where each
+ * type is one contiguous range of entities: walls, rivers, tables and baskets, treasure boxes, then
+ * Ashen Bullet Kin, Bullet Kin and the Key Bullet Kin. The objects are kept only as handles indexed
+ * by entity, for the code that needs an object rather than a slot (collision layers and combat).
+ */
 public class EntityManager {
-    private final ArrayList<KeyBulletKin> keyBulletKin = new ArrayList<>();
-    private final ArrayList<AshenEnemy> ashenEnemies = new ArrayList<>();
-    private final ArrayList<BulletKin> bulletKins = new ArrayList<>();
-    private final ArrayList<TreasureBox> treasureBoxes = new ArrayList<>();
-    private final ArrayList<Wall> walls = new ArrayList<>();
-    private final ArrayList<River> rivers = new ArrayList<>();
-    private final ArrayList<Table> tables = new ArrayList<>();
-    private final ArrayList<Basket> baskets = new ArrayList<>();
-    private final ArrayList<Fireball> fireballs = new ArrayList<>();
+    private final EntityWorld world = new EntityWorld();
+    private GameObject[] objects = new GameObject[0];
+    private Enemy[] enemies = new Enemy[0];
+    private List<Enemy> enemyList = List.of();
+    private final ArrayList<Enemy> livingEnemies = new ArrayList<>();
+    private int riversStart = 0;
+    private int riversEnd = 0;
+    private int treasureBoxesStart = 0;
+    private int objectsEnd = 0;
+    private int enemiesStart = 0;
+    private int bulletKinsStart = 0;
+    private int keyBulletKinStart = 0;
+    private int enemiesEnd = 0;
+    private final Runnable removeDeadEnemies = this::removeDeadEnemies;
+    private boolean cleanupQueued = false;
+    private boolean enemiesDiedSinceCleanup = false;
+    private final EventBus events;
+    private final FrameScheduler scheduler;
+    private int livingEnemyCount = 0;
+    private int[] enemyPlans = new int[0];
+    private final AABB plannedCharacterBounds = new AABB();
+    private boolean parallelEnemyUpdate = ShadowDungeon.getConfig().isParallelEnemyUpdate();
+    private int parallelEnemyThreshold = ShadowDungeon.getConfig().getParallelEnemyThreshold();
+    private final ProjectilePool fireballs = new ProjectilePool(new Fireball());
     private Door primaryDoor;
     private Door secondaryDoor;
+    private static final double GRID_CELL_SIZE = 64;
+    private final CollisionLayers collisionLayers = new CollisionLayers(ShadowDungeon.screenWidth, ShadowDungeon.screenHeight, GRID_CELL_SIZE);
+    private final ArrayList<GameObject> nearbySolids = new ArrayList<>();
+    private StaticLayer staticLayer;
 
     private Key roomKey = null;
+    private Key droppedKey = null;
     private boolean keyCollected = false;
-    private static final HashSet<String> collectedKeys = new HashSet<>();
+    private final Set<String> collectedKeys;
 
     /**
-     * Parses the game properties file to initialize all entities for a specific room,
+     * Creates an empty room whose entities publish their events on the room's own bus, which
+     * hands them on to the session's bus.
+     *
+     * @param session The game session the room belongs to.
+     */
+    public EntityManager(GameSession session) {
+        events = new EventBus(session.getEvents());
+        scheduler = session.getScheduler();
+        collectedKeys = session.getCollectedKeys();
+        events.subscribe(EventBus.ENEMY_DIED, this::onEnemyDied);
+        events.subscribe(EventBus.KEY_DROPPED, this::onKeyDropped);
+    }
+
+    /**
+     * Builds all entities for a room from its template,
      * including doors, enemies, and environment objects.
-     * @param gameProperties The Properties object containing entity data.
-     * @param roomName The name of the room to load entities for.
+     * Each type is added to the room's {@link EntityWorld} as one range, the environment in the
+     * order it is drawn and the enemies in the order they take their turns.
+     * @param template The room's layout, parsed once from the game properties.
      * @param room The BattleRoom instance (required for Door initialization).
      */
-    public void initEntities(Properties gameProperties, String roomName, BattleRoom room) {
-        for (Map.Entry<Object, Object> entry : gameProperties.entrySet()) {
-            String roomSuffix = String.format(".%s", roomName);
-            if (entry.getKey().toString().contains(roomSuffix)) {
-                String objectType = entry.getKey().toString()
-                        .substring(0, entry.getKey().toString().length() - roomSuffix.length());
-                String propertyValue = entry.getValue().toString();
-                if (propertyValue.equals("0")) {
-                    continue;
-                }
-                if (objectType.equals("primarydoor") || objectType.equals("secondarydoor")) {
-                    String[] coordinates = propertyValue.split(",");
-                    if (objectType.equals("primarydoor")) {
-                        primaryDoor = new Door(IOUtils.parseCoords(propertyValue), coordinates[2], room);
-                    } else {
-                        secondaryDoor = new Door(IOUtils.parseCoords(propertyValue), coordinates[2], room);
-                    }
-                    continue;
-                }
-                String[] coordsArray = propertyValue.split(";");
-
-                for (String coords : coordsArray) {
-                    switch (objectType) {
-                        case "keyBulletKin":
-                            ArrayList<Point> path = new ArrayList<>();
-                            for (String coord : propertyValue.split(";")) {
-                                path.add(IOUtils.parseCoords(coord));
-                            }
-                            KeyBulletKin enemy = new KeyBulletKin(path);
-                            enemy.getKey().setActive(false);
-                            keyBulletKin.add(enemy);
-                            coords = null;
-                            break;
-                        case "bulletKin":
-                            BulletKin bulletKin = new BulletKin(IOUtils.parseCoords(coords));
-                            bulletKins.add(bulletKin);
-                            break;
-                        case "ashenBulletKin":
-                            AshenEnemy ashenEnemy = new AshenEnemy(IOUtils.parseCoords(coords));
-                            ashenEnemies.add(ashenEnemy);
-                            break;
-                        case "wall":
-                            Wall wall = new Wall(IOUtils.parseCoords(coords));
-                            walls.add(wall);
-                            break;
-                        case "treasurebox":
-                            TreasureBox treasureBox = new TreasureBox(IOUtils.parseCoords(coords),
-                                    Integer.parseInt(coords.split(",")[2]));
-                            treasureBoxes.add(treasureBox);
-                            break;
-                        case "basket":
-                            Basket basket = new Basket(IOUtils.parseCoords(coords));
-                            baskets.add(basket);
-                            break;
-                        case "river":
-                            River river = new River(IOUtils.parseCoords(coords));
-                            rivers.add(river);
-                            break;
-                        case "table":
-                            Table table = new Table(IOUtils.parseCoords(coords));
-                            tables.add(table);
-                            break;
-                        default:
-                            break;
-                    }
-                    if (coords == null) break;
-                }
+    public void initEntities(RoomTemplate template, BattleRoom room) {
+        String roomName = template.getRoomName();
+        RoomTemplate.Placement door = template.getSingle("primarydoor");
+        if (door != null) primaryDoor = new Door(door.getPosition(), door.getExtra(), room);
+        door = template.getSingle("secondarydoor");
+        if (door != null) secondaryDoor = new Door(door.getPosition(), door.getExtra(), room);
+
+        List<RoomTemplate.Placement> keyPath = template.get("keyBulletKin");
+        objects = new GameObject[template.get("wall").size() + template.get("river").size()
+                + template.get("table").size() + template.get("basket").size() + template.get("treasurebox").size()];
+        for (RoomTemplate.Placement placement : template.get("wall")) {
+            addObject(new Wall(world, placement.getPosition()));
+        }
+        riversStart = world.size();
+        for (RoomTemplate.Placement placement : template.get("river")) {
+            addObject(new River(world, placement.getPosition()));
+        }
+        riversEnd = world.size();
+        for (RoomTemplate.Placement placement : template.get("table")) {
+            addObject(new Table(world, placement.getPosition()));
+        }
+        for (RoomTemplate.Placement placement : template.get("basket")) {
+            addObject(new Basket(world, placement.getPosition()));
+        }
+        treasureBoxesStart = world.size();
+        for (RoomTemplate.Placement placement : template.get("treasurebox")) {
+            addObject(new TreasureBox(world, placement.getPosition(), placement.getCoins()));
+        }
+        objectsEnd = world.size();
+        enemiesStart = world.size();
+        enemies = new Enemy[objectsEnd + template.get("ashenBulletKin").size() + template.get("bulletKin").size()
+                + (keyPath.isEmpty() ? 0 : 1)];
+        for (RoomTemplate.Placement placement : template.get("ashenBulletKin")) {
+            addEnemy(new AshenEnemy(world, placement.getPosition()));
+        }
+        bulletKinsStart = world.size();
+        for (RoomTemplate.Placement placement : template.get("bulletKin")) {
+            addEnemy(new BulletKin(world, placement.getPosition()));
+        }
+        keyBulletKinStart = world.size();
+        if (!keyPath.isEmpty()) {
+            ArrayList<Point> path = new ArrayList<>(keyPath.size());
+            for (RoomTemplate.Placement placement : keyPath) {
+                path.add(placement.getPosition());
             }
+            KeyBulletKin enemy = new KeyBulletKin(world, path);
+            enemy.getKey().setActive(false);
+            addEnemy(enemy);
         }
+        enemiesEnd = world.size();
+        enemyList = Collections.unmodifiableList(Arrays.asList(enemies).subList(enemiesStart, enemiesEnd));
+        buildCollisionLayers();
+        staticLayer = new StaticLayer(roomName);
+        staticLayer.addAll(objectRange(0, riversEnd));
+        staticLayer.bake();
+        enemyPlans = new int[enemiesEnd];
+        fillLivingEnemies();
+        livingEnemyCount = countLivingEnemies();
+        for (int entity = enemiesStart; entity < enemiesEnd; entity++) enemies[entity].setEventBus(events);
+        if (primaryDoor != null) primaryDoor.setEventBus(events);
+        if (secondaryDoor != null) secondaryDoor.setEventBus(events);
+    }
+
+    private void addObject(GameObject object) {
+        objects[object.getEntity()] = object;
+    }
+
+    private void addEnemy(Enemy enemy) {
+        enemies[enemy.getEntity()] = enemy;
+    }
+
+    private List<GameObject> objectRange(int from, int to) {
+        return Arrays.asList(objects).subList(from, to);
+    }
+
+    private KeyBulletKin getKeyBulletKin(int entity) {
+        return (KeyBulletKin) enemies[entity];
+    }
+
+    /**
+     * Fills the list projectiles are checked against from the enemy ranges. Projectiles have always
+     * tried the Key Bullet Kin first, then Bullet Kin and then Ashen Bullet Kin, the reverse of the
+     * order the types take their turns, so the first enemy a projectile hits stays the same.
+     */
+    private void fillLivingEnemies() {
+        livingEnemies.clear();
+        livingEnemies.addAll(enemyList.subList(keyBulletKinStart - enemiesStart, enemiesEnd - enemiesStart));
+        livingEnemies.addAll(enemyList.subList(bulletKinsStart - enemiesStart, keyBulletKinStart - enemiesStart));
+        livingEnemies.addAll(enemyList.subList(0, bulletKinsStart - enemiesStart));
+    }
+
+    private int countLivingEnemies() {
+        // the Key Bullet Kin is not counted, as noMoreEnemies checks it directly
+        return world.countWithout(enemiesStart, keyBulletKinStart, EntityWorld.DEAD);
+    }
+
+    private void onEnemyDied(int event, Object source, double amount) {
+        if (!(source instanceof KeyBulletKin)) livingEnemyCount--;
+        enemiesDiedSinceCleanup = true;
+    }
+
+    private void onKeyDropped(int event, Object source, double amount) {
+        droppedKey = ((KeyBulletKin) source).getKey();
+    }
+
+    private void buildCollisionLayers() {
+        collisionLayers.addSolids(objectRange(0, riversStart));
+        collisionLayers.addDestructibles(objectRange(riversEnd, treasureBoxesStart));
+        if (primaryDoor != null) collisionLayers.addDoor(primaryDoor);
+        if (secondaryDoor != null) collisionLayers.addDoor(secondaryDoor);
     }
 
     /**
@@ -131,14 +217,15 @@ public class EntityManager {
     }
 
     /**
-     * Finds a door by its destination room name.
+     * Finds a door by its destination room name. A room defined with only one of its two doors
+     * has the other left null.
      *
      * @param roomName The target room name.
-     * @return The corresponding Door object.
+     * @return The door leading to the room, or otherwise the secondary door if the room has one.
      */
     public Door findDoorByDestination(String roomName) {
-        if (primaryDoor.toRoomName.equals(roomName)) return primaryDoor;
-        return secondaryDoor;
+        if (primaryDoor != null && primaryDoor.toRoomName.equals(roomName)) return primaryDoor;
+        return secondaryDoor != null ? secondaryDoor : primaryDoor;
     }
 
     /**
@@ -150,21 +237,19 @@ public class EntityManager {
     }
 
     /**
-     * Returns a list of collidable environment objects in the room.
+     * Returns the collision layers of the room, which are kept up to date as objects are destroyed
+     * and doors lock or unlock.
      *
-     * @return List of collidable objects.
+     * @return The collision layers.
      */
-    public List<Object> getCollidableEnvironment() {
-        List<Object> environment = new ArrayList<>();
-        environment.addAll(walls);
-        environment.addAll(rivers);
-        environment.addAll(tables);
-        environment.addAll(baskets);
-        if (primaryDoor != null && !primaryDoor.isUnlocked()) environment.add(primaryDoor);
-        if (secondaryDoor != null && !secondaryDoor.isUnlocked()) environment.add(secondaryDoor);
-
-        return environment;
-    }
+    public CollisionLayers getCollisionLayers() { return collisionLayers; }
+
+    /**
+     * Checks whether the room's walls and rivers are drawn as one baked image that also covers the background.
+     *
+     * @return True if the static layer is baked.
+     */
+    public boolean hasBakedBackground() { return staticLayer != null && staticLayer.isBaked(); }
 
     /**
      * Updates and draws all environment objects and handles key collection.
@@ -173,31 +258,30 @@ public class EntityManager {
      * @param currCharacter The current character.
      * @param roomName     Current room name.
      */
-    public void updateAndDrawEnvironment(Input input, Character currCharacter, String roomName) {
+    public void updateAndDrawEnvironment(GameInput input, Character currCharacter, String roomName) {
+        // Push the character back out of any solid it walked into
+        nearbySolids.clear();
+        collisionLayers.getSolids().query(currCharacter.getBounds(), nearbySolids);
+        for (GameObject solid : nearbySolids) solid.update(currCharacter);
+
         // Update and draw environment objects
-        for (Wall wall : walls) { wall.update(currCharacter); wall.draw(); }
-        for (River river : rivers) { river.update(currCharacter); river.draw(); }
-        for (Table table : tables) { if (!table.isDestroyed()) { table.update(currCharacter); table.draw(); } }
-        for (Basket bk : baskets) { if (!bk.isDestroyed()) { bk.update(currCharacter); bk.draw(); } }
-        for (TreasureBox treasureBox : treasureBoxes) {
-            if (!treasureBox.isDestroyed()) {
-                treasureBox.update(input, currCharacter);
-                treasureBox.draw();
-            }
+        world.applyHazards(riversStart, riversEnd, currCharacter);
+        for (int entity = treasureBoxesStart; entity < objectsEnd; entity++) {
+            if (!world.is(entity, EntityWorld.DESTROYED)) ((TreasureBox) objects[entity]).update(input, currCharacter);
         }
+        world.drawObjects(0, objectsEnd, staticLayer.draw());
         if (!collectedKeys.contains(roomName)) {
-            for (KeyBulletKin enemy : keyBulletKin) {
-                if (enemy.isDead() && enemy.getKey().getActive()) {
-                    roomKey = enemy.getKey();
-                    break;
-                }
+            // a key dropped since the last frame becomes the room's key if nothing has put it away since
+            if (droppedKey != null) {
+                if (droppedKey.getActive()) roomKey = droppedKey;
+                droppedKey = null;
             }
         } else {
             roomKey = null;
         }
         if (roomKey != null && roomKey.getActive()) {
             roomKey.draw();
-            if (currCharacter.getCurrImage().getBoundingBoxAt(currCharacter.getPosition()).intersects(roomKey.getBoundingBox())) {
+            if (currCharacter.getBounds().intersects(roomKey.getBounds())) {
                 currCharacter.pickUpKey(roomKey);
                 roomKey.setActive(false);
                 keyCollected = true;
@@ -207,34 +291,107 @@ public class EntityManager {
     }
 
     /**
-     * Updates enemy behavior and returns newly spawned fireballs.
+     * Updates enemy behavior and fires new fireballs into the room's fireball pool.
+     * In rooms with enough enemies and parallel updates switched on, the enemies' turns are planned
+     * on worker threads first and then applied here in the usual order, which gives the same result.
      *
      * @param currCharacter The current character.
-     * @return List of new fireballs.
      */
-    public ArrayList<Fireball> updateAndShootEnemies(Character currCharacter) {
-        ArrayList<Fireball> newFireballs = new ArrayList<>();
-        for (AshenEnemy ashenEnemy : ashenEnemies) {
-            if (ashenEnemy.isActive()) {
-                newFireballs.addAll(ashenEnemy.updateAndShoot(currCharacter));
-                ashenEnemy.update(currCharacter);
-                ashenEnemy.draw();
-            }
+    public void updateAndShootEnemies(Character currCharacter) {
+        if (parallelEnemyUpdate && enemiesEnd - enemiesStart >= parallelEnemyThreshold) {
+            planAndApplyEnemies(currCharacter);
+            return;
         }
-        for (BulletKin bulletKin : bulletKins) {
-            if (bulletKin.isActive() && !bulletKin.isDead()) {
-                newFireballs.addAll(bulletKin.updateAndShoot(currCharacter));
-                bulletKin.update(currCharacter);
-                bulletKin.draw();
-            }
+        world.updateEnemies(enemiesStart, enemiesEnd, currCharacter, fireballs);
+    }
+
+    private void planAndApplyEnemies(Character currCharacter) {
+        plannedCharacterBounds.set(currCharacter.getBounds());
+        EnemyPlanTask.planAll(enemies, enemiesStart, enemiesEnd, enemyPlans, plannedCharacterBounds);
+        // damage, fireballs and draws all happen on this thread, one enemy at a time in entity order
+        for (int entity = enemiesStart; entity < enemiesEnd; entity++) {
+            if ((enemyPlans[entity] & Enemy.PLAN_UPDATED) == 0) continue;
+            Enemy enemy = enemies[entity];
+            enemy.applyPlan(enemyPlans[entity], currCharacter, fireballs, plannedCharacterBounds);
+            enemy.draw();
         }
-        for (KeyBulletKin enemy : keyBulletKin) {
-            if (enemy.isActive()) {
-                enemy.update(currCharacter);
-                enemy.draw();
-            }
+    }
+
+    /**
+     * Switches planning enemy turns on worker threads on or off for this room.
+     *
+     * @param parallel True to plan in parallel when the room has enough enemies.
+     */
+    public void setParallelEnemyUpdate(boolean parallel) { this.parallelEnemyUpdate = parallel; }
+
+    /**
+     * Sets how many enemies the room needs before their turns are planned on worker threads.
+     *
+     * @param threshold The smallest enemy count planned in parallel.
+     */
+    public void setParallelEnemyThreshold(int threshold) { this.parallelEnemyThreshold = threshold; }
+
+    /**
+     * Mixes the state of every entity that can change during play into a hash.
+     *
+     * @param hash The hash so far.
+     * @return The new hash.
+     */
+    public long hashState(long hash) {
+        hash = world.hashEnemies(enemiesStart, enemiesEnd, hash);
+        // tables, baskets and treasure boxes; walls and rivers never change
+        hash = world.hashFlag(riversEnd, objectsEnd, EntityWorld.DESTROYED, hash);
+        if (primaryDoor != null) hash = StateHash.mix(hash, primaryDoor.isUnlocked());
+        if (secondaryDoor != null) hash = StateHash.mix(hash, secondaryDoor.isUnlocked());
+        hash = StateHash.mix(hash, keyCollected);
+        return StateHash.mix(hash, fireballs);
+    }
+
+    /**
+     * Writes the state of every entity that can change during play to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        if (primaryDoor != null) primaryDoor.writeState(out);
+        if (secondaryDoor != null) secondaryDoor.writeState(out);
+        for (int entity = riversEnd; entity < objectsEnd; entity++) objects[entity].writeState(out);
+        for (int entity = enemiesStart; entity < enemiesEnd; entity++) enemies[entity].writeState(out);
+        fireballs.writeState(out);
+        int roomKeyOwner = -1;
+        for (int entity = keyBulletKinStart; entity < enemiesEnd; entity++) {
+            if (getKeyBulletKin(entity).getKey() == roomKey) roomKeyOwner = entity - keyBulletKinStart;
         }
-        return newFireballs;
+        out.putInt(roomKeyOwner);
+        GameSnapshot.putBoolean(out, keyCollected);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)} and rebuilds the collision layers
+     * to match the restored doors and crates.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in) {
+        if (primaryDoor != null) primaryDoor.readState(in);
+        if (secondaryDoor != null) secondaryDoor.readState(in);
+        for (int entity = riversEnd; entity < objectsEnd; entity++) objects[entity].readState(in);
+        for (int entity = enemiesStart; entity < enemiesEnd; entity++) enemies[entity].readState(in);
+        fireballs.readState(in);
+        int roomKeyOwner = in.getInt();
+        roomKey = roomKeyOwner < 0 ? null : getKeyBulletKin(keyBulletKinStart + roomKeyOwner).getKey();
+        keyCollected = GameSnapshot.getBoolean(in);
+        // restored enemies may be alive again, so start again from every enemy
+        fillLivingEnemies();
+        enemiesDiedSinceCleanup = true;
+        livingEnemyCount = countLivingEnemies();
+        droppedKey = null;
+        for (int entity = keyBulletKinStart; entity < enemiesEnd; entity++) {
+            KeyBulletKin enemy = getKeyBulletKin(entity);
+            if (enemy.isDead() && enemy.getKey().getActive()) droppedKey = enemy.getKey();
+        }
+        collisionLayers.clear();
+        buildCollisionLayers();
     }
 
     /**
@@ -246,9 +403,9 @@ public class EntityManager {
             roomKey = null;
         }
         setKeyCollected(false);
-        for (KeyBulletKin enemy : keyBulletKin) {
-            enemy.getKey().setActive(false);
-            enemy.setActive(false);
+        for (int entity = keyBulletKinStart; entity < enemiesEnd; entity++) {
+            getKeyBulletKin(entity).getKey().setActive(false);
+            world.set(entity, EntityWorld.ACTIVE, false);
         }
     }
 
@@ -258,31 +415,35 @@ public class EntityManager {
      * @param currCharacter The current character.
      */
     public void drawAll(Character currCharacter) {
-        for (Wall wall : walls) wall.draw();
-        for (River river : rivers) river.draw();
-        for (Table table : tables) if (!table.isDestroyed()) table.draw();
-        for (Basket bk : baskets) if (!bk.isDestroyed()) bk.draw();
-        for (TreasureBox treasureBox : treasureBoxes) {if (!treasureBox.isDestroyed()) treasureBox.draw();}
-        for (KeyBulletKin enemy : keyBulletKin) {if (enemy.isActive()) enemy.draw();}
-        for (AshenEnemy ashenEnemy : ashenEnemies) {if (ashenEnemy.isActive()) ashenEnemy.draw();}
-        for (BulletKin bulletKin : bulletKins) {if (bulletKin.isActive() && !bulletKin.isDead()) bulletKin.draw();}
-        for (Fireball f : fireballs) {if (f.isActive()) f.draw();}
-        if (currCharacter != null) {for (Bullet b : currCharacter.getBullets()) {if (b.isActive()) b.draw();}}
+        world.drawObjects(0, objectsEnd, staticLayer.draw());
+        world.drawEnemies(enemiesStart, enemiesEnd);
+        fireballs.draw();
+        if (currCharacter != null) currCharacter.getBullets().draw();
         if (roomKey != null && roomKey.getActive()) {
             roomKey.draw();
         }
     }
 
+    /**
+     * Releases the sprites of every entity in the room.
+     */
+    public void dispose() {
+        for (int entity = 0; entity < objectsEnd; entity++) objects[entity].dispose();
+        for (int entity = enemiesStart; entity < enemiesEnd; entity++) enemies[entity].dispose();
+        if (staticLayer != null) staticLayer.dispose();
+        if (primaryDoor != null) primaryDoor.dispose();
+        if (secondaryDoor != null) secondaryDoor.dispose();
+    }
+
     /**
      * Checks if there are no more active enemies in the room.
+     * The living enemies are counted down as they publish {@link EventBus#ENEMY_DIED}, and only the
+     * room's key enemy, which is switched on and off as the player comes and goes, is checked directly.
      *
      * @return True if all enemies are defeated.
      */
     public boolean noMoreEnemies() {
-        for (KeyBulletKin enemy : keyBulletKin) {if (enemy.isActive()) return false;}
-        for (BulletKin bk : bulletKins) {if (!bk.isDead()) return false;}
-        for (AshenEnemy enemy : ashenEnemies) {if (!enemy.isDead()) return false;}
-        return true;
+        return livingEnemyCount <= 0 && !world.anyWith(keyBulletKinStart, enemiesEnd, EntityWorld.ACTIVE);
     }
 
     /**
@@ -290,38 +451,71 @@ public class EntityManager {
      */
     public void activateEnemies() {
 //        KeyBulletKin.resetHealth();
-        for (KeyBulletKin enemy : keyBulletKin) { enemy.setActive(true); }
-        for (BulletKin enemy : bulletKins) { enemy.setActive(true); }
-        for (AshenEnemy enemy: ashenEnemies) { enemy.setActive(true);}
+        world.setAll(enemiesStart, enemiesEnd, EntityWorld.ACTIVE);
+    }
+
+    /**
+     * Gets every enemy in the room in entity order, as a read-only view of the room's enemy handles.
+     *
+     * @return List of all enemies.
+     */
+    public List<Enemy> getAllEnemies() { return enemyList; }
+
+    /**
+     * Gets the enemies that were alive when dead enemies were last removed, in the order projectiles
+     * check them. It may still hold enemies that have died since, so readers must skip dead enemies,
+     * but it holds every living one.
+     *
+     * @return List of enemies that may be alive.
+     */
+    public List<Enemy> getLivingEnemies() { return livingEnemies; }
+
+    /**
+     * If enemies have died since dead enemies were last removed from {@link #getLivingEnemies()},
+     * queues removing them with the session's {@link FrameScheduler}, so it runs in the spare time of a frame.
+     */
+    public void scheduleCleanup() {
+        if (cleanupQueued || !enemiesDiedSinceCleanup) return;
+        cleanupQueued = true;
+        scheduler.defer(removeDeadEnemies);
+    }
+
+    private void removeDeadEnemies() {
+        livingEnemies.removeIf(Enemy::isDead);
+        enemiesDiedSinceCleanup = false;
+        cleanupQueued = false;
     }
 
     /**
-     * Gets the list of KeyBulletKin enemies.
+     * Gets the bus the room's enemies and doors publish their events on.
+     * Every event is handed on to the session's bus as well.
      *
-     * @return List of KeyBulletKin.
+     * @return The room's event bus.
      */
-    public ArrayList<KeyBulletKin> getKeyBulletKin() { return keyBulletKin; }
+    public EventBus getEventBus() { return events; }
 
     /**
-     * Gets the list of AshenEnemies.
+     * Counts the enemies, crates, treasure boxes, walls and rivers in the room, destroyed or not.
      *
-     * @return List of AshenEnemy.
+     * @return The entity count.
      */
-    public ArrayList<AshenEnemy> getAshenEnemies() { return ashenEnemies; }
+    public int getEntityCount() {
+        return world.size();
+    }
 
     /**
-     * Gets the list of BulletKin enemies.
+     * Gets the world holding the state of the room's enemies and environment objects.
      *
-     * @return List of BulletKin.
+     * @return The room's entity world.
      */
-    public ArrayList<BulletKin> getBulletKins() { return bulletKins; }
+    public EntityWorld getWorld() { return world; }
 
     /**
-     * Gets the list of fireballs in the current room.
+     * Gets the pool of fireballs in the current room.
      *
-     * @return List of Fireball.
+     * @return The fireball pool.
      */
-    public ArrayList<Fireball> getFireballs() { return fireballs; }
+    public ProjectilePool getFireballs() { return fireballs; }
 
     /**
      * Sets the keyCollected flag for the current room.
@@ -0,0 +1,562 @@
+import bagel.util.Point;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the data of a room's entities in parallel arrays, one slot per entity, and runs the systems
+ * that update them a whole range of entities at a time.
+ *
+ * An entity is the index of its slot. Which arrays mean anything for an entity is given by its
+ * components (e.g. {@link #SHOOTER}), and what has happened to it by its flags (e.g. {@link #DEAD}).
+ * The enemy and environment objects the rest of the game holds keep only what never changes
+ * and read everything else from here, so the systems and the objects always agree.
+ *
+ * Entities are added when the room is built and never removed, so each type can be added as one
+ * contiguous range and a system walks that range straight through memory.
+ */
+public class EntityWorld {
+    /** Drawn with its sprite at its position. */
+    public static final int SPRITE = 1;
+    /** Has a bounding box around its position. */
+    public static final int COLLIDER = 2;
+    /** Hurts the character every frame they overlap, like a river. */
+    public static final int HAZARD = 4;
+    /** Has health and can be killed. */
+    public static final int HEALTH = 8;
+    /** Hurts the character on contact and fires at them on a cooldown. */
+    public static final int SHOOTER = 16;
+    /** Walks a closed path at a constant speed and hurts the character on contact. */
+    public static final int PATH_FOLLOWER = 32;
+
+    /** Set while the entity takes part in the room, e.g. an enemy after the room locks. */
+    public static final int ACTIVE = 1;
+    /** Set once the entity has been killed. */
+    public static final int DEAD = 2;
+    /** Set once the entity has been broken or used up. */
+    public static final int DESTROYED = 4;
+    /** Set for tiles that the room's {@link StaticLayer} draws when it is baked. */
+    public static final int TILE = 8;
+    /** Set for shooters that stay out of the room once dead, even when the room wakes its enemies again. */
+    public static final int HIDDEN_WHEN_DEAD = 16;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private int size = 0;
+    private int[] components;
+    private int[] flags;
+    private double[] x;
+    private double[] y;
+    private double[] minX;
+    private double[] minY;
+    private double[] maxX;
+    private double[] maxY;
+    private Sprite[] sprite;
+    private int[] renderLayer;
+    private double[] health;
+    private double[] contactDamage;
+    private int[] shootCooldown;
+    private int[] shootFrequency;
+    private double[][] pathX;
+    private double[][] pathY;
+    private int[] pathIndex;
+    private double[] speed;
+
+    /**
+     * Creates an empty world.
+     */
+    public EntityWorld() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        components = new int[capacity];
+        flags = new int[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        minX = new double[capacity];
+        minY = new double[capacity];
+        maxX = new double[capacity];
+        maxY = new double[capacity];
+        sprite = new Sprite[capacity];
+        renderLayer = new int[capacity];
+        health = new double[capacity];
+        contactDamage = new double[capacity];
+        shootCooldown = new int[capacity];
+        shootFrequency = new int[capacity];
+        pathX = new double[capacity][];
+        pathY = new double[capacity][];
+        pathIndex = new int[capacity];
+        speed = new double[capacity];
+    }
+
+    private void grow() {
+        int capacity = components.length * 2;
+        components = Arrays.copyOf(components, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        sprite = Arrays.copyOf(sprite, capacity);
+        renderLayer = Arrays.copyOf(renderLayer, capacity);
+        health = Arrays.copyOf(health, capacity);
+        contactDamage = Arrays.copyOf(contactDamage, capacity);
+        shootCooldown = Arrays.copyOf(shootCooldown, capacity);
+        shootFrequency = Arrays.copyOf(shootFrequency, capacity);
+        pathX = Arrays.copyOf(pathX, capacity);
+        pathY = Arrays.copyOf(pathY, capacity);
+        pathIndex = Arrays.copyOf(pathIndex, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+    }
+
+    /**
+     * Adds an entity with a sprite and a bounding box centred on its position.
+     *
+     * @param flags       The flags the entity starts with, e.g. {@link #TILE}.
+     * @param position    The position of the entity.
+     * @param image       The sprite of the entity.
+     * @param renderLayer The {@link RenderQueue} layer the entity is drawn on.
+     * @return The new entity.
+     */
+    public int create(int flags, Point position, Sprite image, int renderLayer) {
+        if (size == components.length) grow();
+        int entity = size++;
+        components[entity] = SPRITE | COLLIDER;
+        this.flags[entity] = flags;
+        sprite[entity] = image;
+        this.renderLayer[entity] = renderLayer;
+        setPosition(entity, position.x, position.y);
+        return entity;
+    }
+
+    /**
+     * Gives an entity health.
+     *
+     * @param entity The entity.
+     * @param amount Its starting health.
+     */
+    public void addHealth(int entity, double amount) {
+        components[entity] |= HEALTH;
+        health[entity] = amount;
+    }
+
+    /**
+     * Makes an entity hurt the character while they overlap it.
+     *
+     * @param entity         The entity.
+     * @param damagePerFrame The damage dealt each frame.
+     */
+    public void addHazard(int entity, double damagePerFrame) {
+        components[entity] |= HAZARD;
+        contactDamage[entity] = damagePerFrame;
+    }
+
+    /**
+     * Makes an entity hurt the character on contact and fire at them.
+     *
+     * @param entity         The entity.
+     * @param damagePerFrame The damage dealt each frame it touches the character.
+     * @param frequency      The number of frames between shots.
+     */
+    public void addShooter(int entity, double damagePerFrame, int frequency) {
+        components[entity] |= SHOOTER;
+        contactDamage[entity] = damagePerFrame;
+        shootFrequency[entity] = frequency;
+        shootCooldown[entity] = frequency;
+    }
+
+    /**
+     * Makes an entity walk a closed path and hurt the character on contact.
+     *
+     * @param entity         The entity.
+     * @param path           The points to walk through, in order.
+     * @param speed          The distance walked each frame.
+     * @param damagePerFrame The damage dealt each frame it touches the character.
+     */
+    public void addPathFollower(int entity, List<Point> path, double speed, double damagePerFrame) {
+        components[entity] |= PATH_FOLLOWER;
+        pathX[entity] = new double[path.size()];
+        pathY[entity] = new double[path.size()];
+        for (int i = 0; i < path.size(); i++) {
+            pathX[entity][i] = path.get(i).x;
+            pathY[entity][i] = path.get(i).y;
+        }
+        this.speed[entity] = speed;
+        contactDamage[entity] = damagePerFrame;
+    }
+
+    /**
+     * Gets the number of entities in the world.
+     *
+     * @return The entity count.
+     */
+    public int size() { return size; }
+
+    /**
+     * Checks whether an entity has all of the given components.
+     *
+     * @param entity     The entity.
+     * @param components The components, e.g. {@link #SHOOTER}.
+     * @return True if the entity has them all.
+     */
+    public boolean has(int entity, int components) { return (this.components[entity] & components) == components; }
+
+    /**
+     * Checks whether a flag is set for an entity.
+     *
+     * @param entity The entity.
+     * @param flag   The flag, e.g. {@link #DEAD}.
+     * @return True if the flag is set.
+     */
+    public boolean is(int entity, int flag) { return (flags[entity] & flag) != 0; }
+
+    /**
+     * Sets or clears a flag of an entity.
+     *
+     * @param entity The entity.
+     * @param flag   The flag, e.g. {@link #DEAD}.
+     * @param value  True to set the flag.
+     */
+    public void set(int entity, int flag, boolean value) {
+        if (value) flags[entity] |= flag;
+        else flags[entity] &= ~flag;
+    }
+
+    /**
+     * Sets a flag for a range of entities.
+     *
+     * @param from The first entity.
+     * @param to   The entity after the last one.
+     * @param flag The flag, e.g. {@link #ACTIVE}.
+     */
+    public void setAll(int from, int to, int flag) {
+        for (int entity = from; entity < to; entity++) flags[entity] |= flag;
+    }
+
+    /**
+     * Counts the entities in a range that do not have a flag set.
+     *
+     * @param from The first entity.
+     * @param to   The entity after the last one.
+     * @param flag The flag, e.g. {@link #DEAD}.
+     * @return The number of entities without the flag.
+     */
+    public int countWithout(int from, int to, int flag) {
+        int count = 0;
+        for (int entity = from; entity < to; entity++) {
+            if ((flags[entity] & flag) == 0) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether any entity in a range has a flag set.
+     *
+     * @param from The first entity.
+     * @param to   The entity after the last one.
+     * @param flag The flag, e.g. {@link #ACTIVE}.
+     * @return True if at least one entity has the flag.
+     */
+    public boolean anyWith(int from, int to, int flag) {
+        for (int entity = from; entity < to; entity++) {
+            if ((flags[entity] & flag) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The hash system for enemies: mixes the position, health and whether each entity in the range
+     * is active and dead into a hash, in entity order.
+     *
+     * @param from The first entity.
+     * @param to   The entity after the last one.
+     * @param hash The hash so far.
+     * @return The new hash.
+     */
+    public long hashEnemies(int from, int to, long hash) {
+        for (int entity = from; entity < to; entity++) {
+            hash = StateHash.mix(hash, x[entity]);
+            hash = StateHash.mix(hash, y[entity]);
+            hash = StateHash.mix(hash, health[entity]);
+            hash = StateHash.mix(hash, (flags[entity] & ACTIVE) != 0);
+            hash = StateHash.mix(hash, (flags[entity] & DEAD) != 0);
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes whether each entity in the range has a flag set into a hash, in entity order.
+     *
+     * @param from The first entity.
+     * @param to   The entity after the last one.
+     * @param flag The flag, e.g. {@link #DESTROYED}.
+     * @param hash The hash so far.
+     * @return The new hash.
+     */
+    public long hashFlag(int from, int to, int flag, long hash) {
+        for (int entity = from; entity < to; entity++) {
+            hash = StateHash.mix(hash, (flags[entity] & flag) != 0);
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the x coordinate of an entity's centre.
+     *
+     * @param entity The entity.
+     * @return The x coordinate.
+     */
+    public double getX(int entity) { return x[entity]; }
+
+    /**
+     * Gets the y coordinate of an entity's centre.
+     *
+     * @param entity The entity.
+     * @return The y coordinate.
+     */
+    public double getY(int entity) { return y[entity]; }
+
+    /**
+     * Moves an entity and its bounding box.
+     *
+     * @param entity The entity.
+     * @param x      The new x coordinate of its centre.
+     * @param y      The new y coordinate of its centre.
+     */
+    public void setPosition(int entity, double x, double y) {
+        this.x[entity] = x;
+        this.y[entity] = y;
+        // the same arithmetic as AABB.setCentred, so boxes read back through getBounds match exactly
+        double halfWidth = sprite[entity].getWidth() / 2;
+        double halfHeight = sprite[entity].getHeight() / 2;
+        minX[entity] = x - halfWidth;
+        minY[entity] = y - halfHeight;
+        maxX[entity] = x + halfWidth;
+        maxY[entity] = y + halfHeight;
+    }
+
+    /**
+     * Copies the bounding box of an entity.
+     *
+     * @param entity The entity.
+     * @param bounds The box to copy into.
+     */
+    public void getBounds(int entity, AABB bounds) {
+        bounds.setCentred(x[entity], y[entity], sprite[entity]);
+    }
+
+    /**
+     * Checks whether an entity's bounding box overlaps a box.
+     *
+     * @param entity The entity.
+     * @param other  The box to test against.
+     * @return True if they overlap.
+     */
+    public boolean intersects(int entity, AABB other) {
+        return AABB.intersects(minX[entity], minY[entity], maxX[entity], maxY[entity],
+                other.getMinX(), other.getMinY(), other.getMaxX(), other.getMaxY());
+    }
+
+    /**
+     * Gets the health of an entity.
+     *
+     * @param entity The entity.
+     * @return The health left.
+     */
+    public double getHealth(int entity) { return health[entity]; }
+
+    /**
+     * Sets the health of an entity.
+     *
+     * @param entity The entity.
+     * @param health The health left.
+     */
+    public void setHealth(int entity, double health) { this.health[entity] = health; }
+
+    /**
+     * Gets the damage an entity deals each frame it touches the character.
+     *
+     * @param entity The entity.
+     * @return The damage per frame.
+     */
+    public double getContactDamage(int entity) { return contactDamage[entity]; }
+
+    /**
+     * Sets the damage an entity deals each frame it touches the character.
+     *
+     * @param entity The entity.
+     * @param damagePerFrame The damage per frame.
+     */
+    public void setContactDamage(int entity, double damagePerFrame) { contactDamage[entity] = damagePerFrame; }
+
+    /**
+     * Gets the number of frames before a shooter fires again.
+     *
+     * @param entity The entity.
+     * @return The cooldown.
+     */
+    public int getShootCooldown(int entity) { return shootCooldown[entity]; }
+
+    /**
+     * Sets the number of frames before a shooter fires again.
+     *
+     * @param entity The entity.
+     * @param cooldown The cooldown.
+     */
+    public void setShootCooldown(int entity, int cooldown) { shootCooldown[entity] = cooldown; }
+
+    /**
+     * Gets the point on its path a path follower is walking towards.
+     *
+     * @param entity The entity.
+     * @return The index of the point.
+     */
+    public int getPathIndex(int entity) { return pathIndex[entity]; }
+
+    /**
+     * Sets the point on its path a path follower is walking towards.
+     *
+     * @param entity The entity.
+     * @param index The index of the point.
+     */
+    public void setPathIndex(int entity, int index) { pathIndex[entity] = index; }
+
+    /**
+     * Counts down an entity's shot cooldown, starting it again when it fires.
+     *
+     * @param entity The shooter.
+     * @return True if the entity fires this frame.
+     */
+    public boolean tickCooldown(int entity) {
+        if (shootCooldown[entity] <= 0) {
+            shootCooldown[entity] = shootFrequency[entity];
+            return true;
+        }
+        shootCooldown[entity]--;
+        return false;
+    }
+
+    /**
+     * Takes one step along an entity's path, or turns to the next point once the current one is
+     * closer than a step.
+     *
+     * @param entity The path follower.
+     */
+    public void followPath(int entity) {
+        double[] targetsX = pathX[entity];
+        if (targetsX == null || targetsX.length == 0) return;
+        int index = pathIndex[entity];
+        double dx = targetsX[index] - x[entity];
+        double dy = pathY[entity][index] - y[entity];
+        double distance = Math.sqrt(dx * dx + dy * dy);
+
+        double step = speed[entity];
+        if (distance < step) {
+            pathIndex[entity] = (index + 1) % targetsX.length;
+            return;
+        }
+        dx /= distance;
+        dy /= distance;
+        setPosition(entity, x[entity] + dx * step, y[entity] + dy * step);
+    }
+
+    private boolean touches(int entity, Character currCharacter) {
+        // read the character's box every time, since damage can send them back to the start
+        return intersects(entity, currCharacter.getBounds());
+    }
+
+    /**
+     * The hazard system: hurts the character for every hazard in the range they overlap,
+     * in entity order.
+     *
+     * @param from          The first entity.
+     * @param to            The entity after the last one.
+     * @param currCharacter The character.
+     */
+    public void applyHazards(int from, int to, Character currCharacter) {
+        for (int entity = from; entity < to; entity++) {
+            if ((components[entity] & HAZARD) == 0 || (flags[entity] & DESTROYED) != 0) continue;
+            if (touches(entity, currCharacter)) currCharacter.receiveDamage(contactDamage[entity]);
+        }
+    }
+
+    /**
+     * The enemy system: takes the turn of every active enemy in the range, in entity order, and
+     * draws it. Shooters touch the character before and after firing, so they hurt them twice a
+     * frame; path followers take a step and hurt them once. A shooter woken again after it died
+     * only hurts the character and is drawn, unless it is {@link #HIDDEN_WHEN_DEAD}, and a path
+     * follower found out of health is put away instead.
+     *
+     * @param from          The first entity.
+     * @param to            The entity after the last one.
+     * @param currCharacter The character.
+     * @param fireballs     The pool new fireballs are fired from.
+     */
+    public void updateEnemies(int from, int to, Character currCharacter, ProjectilePool fireballs) {
+        for (int entity = from; entity < to; entity++) {
+            int state = flags[entity];
+            if ((state & ACTIVE) == 0) continue;
+            if ((components[entity] & PATH_FOLLOWER) != 0) {
+                if (health[entity] > 0) {
+                    followPath(entity);
+                    if (touches(entity, currCharacter)) currCharacter.takeDamage(contactDamage[entity]);
+                } else {
+                    flags[entity] = (state & ~ACTIVE) | DEAD;
+                }
+            } else if ((state & DEAD) == 0) {
+                if (touches(entity, currCharacter)) currCharacter.takeDamage(contactDamage[entity]);
+                // sprites are drawn centred, so the centre of each bounding box is the position itself
+                if (tickCooldown(entity)) fireballs.spawn(x[entity], y[entity], currCharacter.getPosition());
+                if (touches(entity, currCharacter)) currCharacter.takeDamage(contactDamage[entity]);
+            } else if ((state & HIDDEN_WHEN_DEAD) != 0) {
+                continue;
+            } else {
+                if (touches(entity, currCharacter)) currCharacter.takeDamage(contactDamage[entity]);
+            }
+            draw(entity);
+        }
+    }
+
+    /**
+     * Draws one entity at its position.
+     *
+     * @param entity The entity.
+     */
+    public void draw(int entity) {
+        sprite[entity].draw(x[entity], y[entity], renderLayer[entity]);
+    }
+
+    /**
+     * The render system for objects: draws every entity in the range that has not been destroyed.
+     * Does nothing when the game is running headless.
+     *
+     * @param from      The first entity.
+     * @param to        The entity after the last one.
+     * @param skipTiles True if the tiles are already drawn as part of a baked layer.
+     */
+    public void drawObjects(int from, int to, boolean skipTiles) {
+        if (ShadowDungeon.isHeadless()) return;
+        int hidden = skipTiles ? DESTROYED | TILE : DESTROYED;
+        for (int entity = from; entity < to; entity++) {
+            if ((flags[entity] & hidden) == 0) draw(entity);
+        }
+    }
+
+    /**
+     * The render system for enemies: draws every active enemy in the range, leaving out dead
+     * enemies that are {@link #HIDDEN_WHEN_DEAD}. Does nothing when the game is running headless.
+     *
+     * @param from The first entity.
+     * @param to   The entity after the last one.
+     */
+    public void drawEnemies(int from, int to) {
+        if (ShadowDungeon.isHeadless()) return;
+        for (int entity = from; entity < to; entity++) {
+            int state = flags[entity];
+            if ((state & ACTIVE) == 0 || (state & (DEAD | HIDDEN_WHEN_DEAD)) == (DEAD | HIDDEN_WHEN_DEAD)) continue;
+            draw(entity);
+        }
+    }
+}
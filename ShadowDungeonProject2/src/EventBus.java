@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+/**
+ * Passes changes in the game state to the objects that react to them, instead of those objects
+ * checking the state every frame. An event is an int type, the object it happened to and an
+ * amount, so publishing one allocates nothing; listeners are only copied when they subscribe.
+ *
+ * Each room has its own bus for the events of its entities, which hands every event on to the
+ * bus of its {@link GameSession} afterwards. Events that are not tied to a room, such as the
+ * character earning coins or taking damage, go straight to the session's bus, so subscribing
+ * there sees everything that happens in that session.
+ */
+public class EventBus {
+    public static final int ENEMY_DIED = 0;
+    public static final int KEY_DROPPED = 1;
+    public static final int PROJECTILE_HIT = 2;
+    public static final int DOOR_UNLOCKED = 3;
+    public static final int COINS_EARNED = 4;
+    public static final int CHARACTER_DAMAGED = 5;
+    public static final int EVENT_COUNT = 6;
+    private static final String[] EVENT_NAMES = {"enemy died", "key dropped", "projectile hit", "door unlocked",
+            "coins earned", "character damaged"};
+
+    private final EventBus parent;
+    private final GameEventListener[][] listeners = new GameEventListener[EVENT_COUNT][0];
+    private final long[] counts = new long[EVENT_COUNT];
+
+    /**
+     * Creates a bus with no listeners.
+     *
+     * @param parent The bus every event is handed on to after this bus's listeners, or null.
+     */
+    public EventBus(EventBus parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Adds a listener for one type of event. Listeners are called in the order they subscribed.
+     *
+     * @param event    The event, e.g. {@link #ENEMY_DIED}.
+     * @param listener The listener to call.
+     */
+    public void subscribe(int event, GameEventListener listener) {
+        GameEventListener[] current = listeners[event];
+        GameEventListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners[event] = updated;
+    }
+
+    /**
+     * Removes a listener added with {@link #subscribe(int, GameEventListener)}.
+     *
+     * @param event    The event it subscribed to.
+     * @param listener The listener to remove.
+     */
+    public void unsubscribe(int event, GameEventListener listener) {
+        GameEventListener[] current = listeners[event];
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != listener) continue;
+            GameEventListener[] updated = new GameEventListener[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, i);
+            System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+            listeners[event] = updated;
+            return;
+        }
+    }
+
+    /**
+     * Calls every listener of the event, then hands the event on to the parent bus.
+     *
+     * @param event  The event, e.g. {@link #ENEMY_DIED}.
+     * @param source The object the event happened to.
+     * @param amount The amount that goes with the event, or 0.
+     */
+    public void publish(int event, Object source, double amount) {
+        counts[event]++;
+        GameEventListener[] current = listeners[event];
+        for (GameEventListener listener : current) {
+            listener.onEvent(event, source, amount);
+        }
+        if (parent != null) parent.publish(event, source, amount);
+    }
+
+    /**
+     * Gets the number of times an event has been published on this bus.
+     *
+     * @param event The event.
+     * @return The event count.
+     */
+    public long getCount(int event) {
+        return counts[event];
+    }
+
+    /**
+     * Gets the name of an event.
+     *
+     * @param event The event.
+     * @return The event name.
+     */
+    public static String getEventName(int event) {
+        return EVENT_NAMES[event];
+    }
+}
@@ -1,55 +1,23 @@
-import bagel.util.Point;
-
-import java.util.ArrayList;
-import java.util.List;
-
 /**
- * Represents a fireball projectile shot by enemies.
+ * Fireball projectiles shot by enemies.
+ * Fireballs fly over rivers, are stopped by walls, tables, baskets and locked doors, and damage the player.
  */
 public class Fireball extends Projectile {
+    private static final Sprite SPRITE = SpriteRegistry.acquire("res/fireball.png");
 
     /**
-     * Creates a Fireball with damage and speed loaded from game properties.
-     *
-     * @param startPos  Starting position of the fireball.
-     * @param targetPos Target position the fireball is aimed at.
+     * Creates the fireball type with damage and speed from the game configuration.
      */
-    public Fireball(Point startPos, Point targetPos) {
+    public Fireball() {
         super(
-                startPos,
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("fireballDamage")),
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("fireballSpeed")),
-                targetPos.x,
-                targetPos.y,
-                "res/fireball.png"
+                SPRITE,
+                ShadowDungeon.getConfig().getFireballSpeed(),
+                ShadowDungeon.getConfig().getFireballDamage()
         );
+        setResponse(CollisionMask.WALL, CollisionResponse.BLOCK);
+        setResponse(CollisionMask.DOOR, CollisionResponse.BLOCK);
+        setResponse(CollisionMask.TABLE, CollisionResponse.BLOCK);
+        setResponse(CollisionMask.BASKET, CollisionResponse.BLOCK);
+        setResponse(CollisionMask.PLAYER, CollisionResponse.BLOCK | CollisionResponse.DAMAGE);
     }
-
-    /**
-     * Updates fireball movement, handles collisions with player and environment (except rivers),
-     * and deactivates it if it hits the player.
-     *
-     * @param player        The player character.
-     * @param enemies       List of all enemies (unused here, handled in super).
-     * @param environment   List of environment objects to check collisions against.
-     * @param screenWidth   Width of the game screen.
-     * @param screenHeight  Height of the game screen.
-     */
-    @Override
-    public void updateAndCheckCollisions(Character player, List<Enemy> enemies, List<GameObject> environment, double screenWidth, double screenHeight) {
-        // Filter out rivers so fireballs can cross them
-        List<GameObject> filteredEnvironment = new ArrayList<>();
-        for (GameObject obj : environment) {
-            if (!(obj instanceof River)) filteredEnvironment.add(obj);
-        }
-
-        super.updateAndCheckCollisions(player, enemies, filteredEnvironment, screenWidth, screenHeight);
-
-        // Damage the player if intersecting
-        if (getBoundingBox().intersects(player.getBoundingBox())) {
-            player.takeDamage(damage);
-            deactivate();
-        }
-    }
-
 }
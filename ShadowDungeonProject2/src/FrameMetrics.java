@@ -0,0 +1,71 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Publishes the numbers collected by {@link FrameProfiler} as the JMX bean
+ * {@value #OBJECT_NAME}, so they can be watched from JConsole or VisualVM while the game runs.
+ */
+public class FrameMetrics implements FrameMetricsMBean {
+    public static final String OBJECT_NAME = "ShadowDungeon:type=FrameProfiler";
+
+    /**
+     * Registers the bean with the platform MBean server, once per JVM.
+     * The game still runs if registration fails.
+     */
+    public static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(new FrameMetrics(), name);
+        } catch (JMException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() { return FrameProfiler.isEnabled(); }
+
+    @Override
+    public void setEnabled(boolean enabled) { FrameProfiler.setEnabled(enabled); }
+
+    @Override
+    public long getFramesProfiled() { return FrameProfiler.getFramesProfiled(); }
+
+    @Override
+    public double getFrameTimeP50Millis() { return FrameProfiler.getFrameTimePercentile(0.5); }
+
+    @Override
+    public double getFrameTimeP99Millis() { return FrameProfiler.getFrameTimePercentile(0.99); }
+
+    @Override
+    public String[] getPhaseNames() {
+        String[] names = new String[FrameProfiler.PHASE_COUNT];
+        for (int phase = 0; phase < names.length; phase++) names[phase] = FrameProfiler.getPhaseName(phase);
+        return names;
+    }
+
+    @Override
+    public double[] getPhaseTimeP50Millis() { return phasePercentiles(0.5); }
+
+    @Override
+    public double[] getPhaseTimeP99Millis() { return phasePercentiles(0.99); }
+
+    private static double[] phasePercentiles(double percentile) {
+        double[] times = new double[FrameProfiler.PHASE_COUNT];
+        for (int phase = 0; phase < times.length; phase++) {
+            times[phase] = FrameProfiler.getPhaseTimePercentile(phase, percentile);
+        }
+        return times;
+    }
+
+    @Override
+    public int getEntityCount() { return FrameProfiler.getEntityCount(); }
+
+    @Override
+    public int getProjectileCount() { return FrameProfiler.getProjectileCount(); }
+
+    @Override
+    public double getAllocatedBytesPerFrame() { return FrameProfiler.getAllocatedBytesPerFrame(); }
+}
@@ -0,0 +1,62 @@
+/**
+ * The frame metrics published over JMX. Times are in milliseconds and percentiles are taken over
+ * the last {@value FrameProfiler#WINDOW} profiled frames.
+ */
+public interface FrameMetricsMBean {
+    /**
+     * @return whether frames are being profiled
+     */
+    public boolean isEnabled();
+
+    /**
+     * Turns profiling on or off.
+     *
+     * @param enabled true to profile each frame
+     */
+    public void setEnabled(boolean enabled);
+
+    /**
+     * @return the number of frames profiled since the game started
+     */
+    public long getFramesProfiled();
+
+    /**
+     * @return the median frame time
+     */
+    public double getFrameTimeP50Millis();
+
+    /**
+     * @return the 99th percentile frame time
+     */
+    public double getFrameTimeP99Millis();
+
+    /**
+     * @return the names of the timed phases, in the order of the phase arrays
+     */
+    public String[] getPhaseNames();
+
+    /**
+     * @return the median time spent in each phase per frame
+     */
+    public double[] getPhaseTimeP50Millis();
+
+    /**
+     * @return the 99th percentile time spent in each phase per frame
+     */
+    public double[] getPhaseTimeP99Millis();
+
+    /**
+     * @return the number of entities in the current room
+     */
+    public int getEntityCount();
+
+    /**
+     * @return the number of active projectiles in the current room
+     */
+    public int getProjectileCount();
+
+    /**
+     * @return the average number of bytes allocated on the game thread per frame
+     */
+    public double getAllocatedBytesPerFrame();
+}
@@ -0,0 +1,263 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Times the phases of each frame (doors, environment, enemy AI, combat, character and rendering)
+ * and keeps the last {@value #WINDOW} frames so rolling percentiles can be shown in the on-screen
+ * overlay or read through {@link FrameMetrics} over JMX.
+ *
+ * Every method returns straight away while profiling is disabled, so the calls left in the game
+ * loop cost one field read each. While enabled, each phase costs two {@link System#nanoTime()}
+ * calls and each frame one read of the thread's allocation counter.
+ *
+ * The profiler times one game at a time, the session shown in the window or run by
+ * {@link HeadlessSimulation}, so it must stay off while several sessions run at once;
+ * {@link GameSession#step(GameInput)} throws otherwise.
+ */
+public class FrameProfiler {
+    public static final int DOORS = 0;
+    public static final int ENVIRONMENT = 1;
+    public static final int ENEMY_AI = 2;
+    public static final int COMBAT = 3;
+    public static final int CHARACTER = 4;
+    public static final int RENDER = 5;
+    public static final int PHASE_COUNT = 6;
+    /** The number of most recent frames the percentiles are taken over, ten seconds at 60 Hz. */
+    public static final int WINDOW = 600;
+    private static final String[] PHASE_NAMES = {"doors", "environment", "enemy AI", "combat", "character", "render"};
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final int OVERLAY_FONT_SIZE = 16;
+    private static final int OVERLAY_REFRESH_FRAMES = 30;
+    private static final double OVERLAY_X = 10;
+    private static final double OVERLAY_Y = 20;
+    private static final double OVERLAY_LINE_HEIGHT = 18;
+
+    // toggled from the JMX thread and read every frame by the game thread, so it must be volatile
+    private static volatile boolean enabled = false;
+    private static boolean frameStarted = false;
+    private static long frameStart;
+    private static long frameAllocationStart;
+    private static final long[] phaseStart = new long[PHASE_COUNT];
+    private static final long[] phaseTotal = new long[PHASE_COUNT];
+    private static final long[] frameTimes = new long[WINDOW];
+    private static final long[][] phaseTimes = new long[PHASE_COUNT][WINDOW];
+    private static final long[] frameAllocations = new long[WINDOW];
+    private static final long[] scratch = new long[WINDOW];
+    private static int next = 0;
+    private static int recorded = 0;
+    private static long framesProfiled = 0;
+    private static int entityCount = 0;
+    private static int projectileCount = 0;
+    private static String[] overlayLines = new String[0];
+    private static boolean overlayRefreshQueued = false;
+    private static FrameScheduler scheduler;
+    private static final Runnable REFRESH_OVERLAY = () -> {
+        overlayLines = summarise();
+        overlayRefreshQueued = false;
+    };
+
+    /**
+     * Turns profiling on or off. Turning it on starts a new window of frames.
+     *
+     * @param enabled True to profile each frame.
+     */
+    public static synchronized void setEnabled(boolean enabled) {
+        if (enabled && !FrameProfiler.enabled) {
+            next = 0;
+            recorded = 0;
+            overlayLines = new String[0];
+        }
+        FrameProfiler.enabled = enabled;
+        frameStarted = false;
+    }
+
+    /**
+     * Sets the scheduler of the session being profiled, which refreshes the overlay and whose
+     * waiting tasks are reported in the summary.
+     *
+     * @param scheduler The session's frame scheduler.
+     */
+    public static synchronized void setScheduler(FrameScheduler scheduler) {
+        FrameProfiler.scheduler = scheduler;
+    }
+
+    /**
+     * Checks whether frames are being profiled.
+     *
+     * @return True if profiling is on.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a frame.
+     */
+    public static void beginFrame() {
+        if (!enabled) return;
+        Arrays.fill(phaseTotal, 0);
+        entityCount = 0;
+        projectileCount = 0;
+        frameAllocationStart = allocatedBytes();
+        frameStarted = true;
+        frameStart = System.nanoTime();
+    }
+
+    /**
+     * Starts timing a phase of the frame.
+     *
+     * @param phase The phase, e.g. {@link #COMBAT}.
+     */
+    public static void begin(int phase) {
+        if (!enabled) return;
+        phaseStart[phase] = System.nanoTime();
+    }
+
+    /**
+     * Stops timing a phase of the frame. A phase may be timed more than once per frame.
+     *
+     * @param phase The phase passed to {@link #begin(int)}.
+     */
+    public static void end(int phase) {
+        if (!enabled) return;
+        phaseTotal[phase] += System.nanoTime() - phaseStart[phase];
+    }
+
+    /**
+     * Records how many entities and projectiles the current room holds this frame.
+     *
+     * @param entities    The number of entities.
+     * @param projectiles The number of active projectiles.
+     */
+    public static void setCounts(int entities, int projectiles) {
+        if (!enabled) return;
+        entityCount = entities;
+        projectileCount = projectiles;
+    }
+
+    /**
+     * Stops timing the frame and adds it to the window.
+     */
+    public static synchronized void endFrame() {
+        if (!enabled || !frameStarted) return;
+        frameTimes[next] = System.nanoTime() - frameStart;
+        frameAllocations[next] = allocatedBytes() - frameAllocationStart;
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            phaseTimes[phase][next] = phaseTotal[phase];
+        }
+        next = (next + 1) % WINDOW;
+        if (recorded < WINDOW) recorded++;
+        framesProfiled++;
+        frameStarted = false;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Gets a percentile of the frame time over the window.
+     *
+     * @param percentile The percentile, from 0 to 1.
+     * @return The frame time in milliseconds, or 0 if no frames have been profiled.
+     */
+    public static synchronized double getFrameTimePercentile(double percentile) {
+        return percentile(frameTimes, percentile) / 1e6;
+    }
+
+    /**
+     * Gets a percentile of the time spent in a phase per frame over the window.
+     *
+     * @param phase      The phase.
+     * @param percentile The percentile, from 0 to 1.
+     * @return The phase time in milliseconds, or 0 if no frames have been profiled.
+     */
+    public static synchronized double getPhaseTimePercentile(int phase, double percentile) {
+        return percentile(phaseTimes[phase], percentile) / 1e6;
+    }
+
+    private static long percentile(long[] values, double percentile) {
+        if (recorded == 0) return 0;
+        System.arraycopy(values, 0, scratch, 0, recorded);
+        Arrays.sort(scratch, 0, recorded);
+        return scratch[Math.min(recorded - 1, (int) (recorded * percentile))];
+    }
+
+    /**
+     * Gets the average number of bytes allocated on the game thread per frame over the window.
+     *
+     * @return The bytes per frame.
+     */
+    public static synchronized double getAllocatedBytesPerFrame() {
+        if (recorded == 0) return 0;
+        long total = 0;
+        for (int i = 0; i < recorded; i++) total += frameAllocations[i];
+        return (double) total / recorded;
+    }
+
+    /**
+     * Gets the name of a phase.
+     *
+     * @param phase The phase.
+     * @return The name shown in the overlay and over JMX.
+     */
+    public static String getPhaseName(int phase) { return PHASE_NAMES[phase]; }
+
+    /**
+     * Gets the number of frames profiled since the game started.
+     *
+     * @return The frame count.
+     */
+    public static long getFramesProfiled() { return framesProfiled; }
+
+    /**
+     * Gets the number of entities in the room during the last profiled frame.
+     *
+     * @return The entity count.
+     */
+    public static int getEntityCount() { return entityCount; }
+
+    /**
+     * Gets the number of active projectiles in the room during the last profiled frame.
+     *
+     * @return The projectile count.
+     */
+    public static int getProjectileCount() { return projectileCount; }
+
+    /**
+     * Describes the percentiles over the window, one line for the frame and one per phase.
+     *
+     * @return The summary lines.
+     */
+    public static String[] summarise() {
+        String[] lines = new String[PHASE_COUNT + 2];
+        lines[0] = String.format("frame        p50 %.3f ms  p99 %.3f ms", getFrameTimePercentile(0.5), getFrameTimePercentile(0.99));
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            lines[phase + 1] = String.format("%-12s p50 %.3f ms  p99 %.3f ms", PHASE_NAMES[phase],
+                    getPhaseTimePercentile(phase, 0.5), getPhaseTimePercentile(phase, 0.99));
+        }
+        lines[PHASE_COUNT + 1] = String.format("entities %d  projectiles %d  alloc %.1f KB/frame  deferred %d",
+                entityCount, projectileCount, getAllocatedBytesPerFrame() / 1024,
+                scheduler == null ? 0 : scheduler.getPendingCount());
+        return lines;
+    }
+
+    /**
+     * Queues the overlay showing the percentiles in the top-left corner of the screen.
+     * The text is refreshed every {@value #OVERLAY_REFRESH_FRAMES} frames, as deferred work for the
+     * session's {@link FrameScheduler}, so drawing it stays cheap. Does nothing while profiling is off or the
+     * game is running headless.
+     */
+    public static void drawOverlay() {
+        if (!enabled || ShadowDungeon.isHeadless() || scheduler == null) return;
+        if (!overlayRefreshQueued && (framesProfiled % OVERLAY_REFRESH_FRAMES == 0 || overlayLines.length == 0)) {
+            overlayRefreshQueued = true;
+            scheduler.defer(REFRESH_OVERLAY);
+        }
+        for (int i = 0; i < overlayLines.length; i++) {
+            RenderQueue.submitText(UserInterface.getFont(OVERLAY_FONT_SIZE), overlayLines[i],
+                    OVERLAY_X, OVERLAY_Y + i * OVERLAY_LINE_HEIGHT, RenderQueue.OVERLAY);
+        }
+    }
+}
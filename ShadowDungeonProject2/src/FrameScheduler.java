@@ -0,0 +1,130 @@
+import java.util.ArrayDeque;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs low-priority work in whatever time is left of a frame once the room has been updated and drawn.
+ * Combat, movement and everything else that decides how the game plays out always run every frame;
+ * work handed to {@link #defer(Runnable)} waits in a queue and is run, oldest first, only while the
+ * frame is still inside its time budget, so a long queue is worked through over several frames
+ * instead of making any one frame late.
+ *
+ * Because how much is run each frame depends on how fast the machine is, deferred work must not
+ * change the game state, or recordings would stop matching when played back. It may tidy up
+ * (e.g. drop dead enemies from a list whose readers skip them anyway) or refresh statistics.
+ *
+ * Each {@link GameSession} has its own scheduler, so sessions run on different threads never
+ * share a queue.
+ */
+public class FrameScheduler {
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+    private final LongSupplier clock;
+    private long budgetNanos = Long.MAX_VALUE;
+    private long frameStart;
+    private long tasksRun = 0;
+    private long framesOverBudget = 0;
+
+    /**
+     * Creates a scheduler with an empty queue and no budget, so all deferred work runs every frame
+     * until a budget is set.
+     */
+    public FrameScheduler() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Creates a scheduler that measures the frame with the given clock instead of {@link System#nanoTime()}.
+     *
+     * @param clock The clock, in nanoseconds.
+     */
+    FrameScheduler(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Sets how long a frame may take before deferred work waits for the next frame.
+     *
+     * @param millis The frame budget in milliseconds.
+     */
+    public void setBudget(double millis) {
+        budgetNanos = (long) (millis * 1e6);
+    }
+
+    /**
+     * Gets how long a frame may take before deferred work waits for the next frame.
+     *
+     * @return The frame budget in milliseconds.
+     */
+    public double getBudget() {
+        return budgetNanos / 1e6;
+    }
+
+    /**
+     * Marks the start of a frame, from which the budget is counted.
+     */
+    public void beginFrame() {
+        frameStart = clock.getAsLong();
+    }
+
+    /**
+     * Queues work to run at the end of this frame or a later one, once there is time for it.
+     * Work that has to be split up can defer its next part when it runs.
+     *
+     * @param task The work to run.
+     */
+    public void defer(Runnable task) {
+        queue.add(task);
+    }
+
+    /**
+     * Runs deferred work, oldest first, until the queue is empty or the frame has used its budget.
+     * Work deferred while this runs waits for the next frame. The budget is checked before each
+     * task, so a frame can only go over it by the length of one task.
+     *
+     * @return The number of tasks run.
+     */
+    public int runDeferred() {
+        int queued = queue.size();
+        int run = 0;
+        while (run < queued && clock.getAsLong() - frameStart < budgetNanos) {
+            queue.poll().run();
+            run++;
+        }
+        if (run < queued) framesOverBudget++;
+        tasksRun += run;
+        return run;
+    }
+
+    /**
+     * Drops all deferred work without running it.
+     */
+    public void clear() {
+        queue.clear();
+    }
+
+    /**
+     * Gets the number of tasks waiting to run.
+     *
+     * @return The queue length.
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of deferred tasks run since the scheduler was created.
+     *
+     * @return The task count.
+     */
+    public long getTasksRun() {
+        return tasksRun;
+    }
+
+    /**
+     * Gets the number of frames that ran out of budget before the queue was empty.
+     *
+     * @return The frame count.
+     */
+    public long getFramesOverBudget() {
+        return framesOverBudget;
+    }
+}
@@ -0,0 +1,417 @@
+import bagel.util.Point;
+
+import java.util.Properties;
+
+/**
+ * Immutable, typed view of the game configuration.
+ * Every value is parsed and checked once when the configuration is loaded,
+ * so entities read plain fields instead of looking up and parsing properties at runtime.
+ */
+public class GameConfig {
+    private final int windowWidth;
+    private final int windowHeight;
+    private final int maxFrames;
+    private final int titleFontSize;
+    private final double titleY;
+    private final int promptFontSize;
+    private final double moveMessageY;
+    private final double selectMessageY;
+    private final Point robotPosition;
+    private final Point marinePosition;
+    private final Point playerStart;
+    private final Point storePosition;
+    private final Point weaponStatPosition;
+    private final Point healthStatPosition;
+    private final Point keyStatPosition;
+    private final Point coinStatPosition;
+    private final int statsFontSize;
+    private final Point marineMessagePosition;
+    private final Point robotMessagePosition;
+    private final double initialHealth;
+    private final double movingSpeed;
+    private final double robotExtraCoin;
+    private final double basketCoin;
+    private final double bulletKinHealth;
+    private final double bulletKinCoin;
+    private final int bulletKinShootFrequency;
+    private final double ashenBulletKinHealth;
+    private final double ashenBulletKinCoin;
+    private final int ashenBulletKinShootFrequency;
+    private final double keyBulletKinHealth;
+    private final double keyBulletKinSpeed;
+    private final double fireballDamage;
+    private final double fireballSpeed;
+    private final double riverDamagePerFrame;
+    private final double healthPurchase;
+    private final double healthBonus;
+    private final double weaponPurchase;
+    private final double weaponStandardDamage;
+    private final double weaponAdvanceDamage;
+    private final double weaponEliteDamage;
+    private final double bulletSpeed;
+    private final int bulletFreq;
+    private final boolean parallelEnemyUpdate;
+    private final int parallelEnemyThreshold;
+    private final boolean lazyRoomLoading;
+    private final int roomEntityBudget;
+    private final boolean profilerEnabled;
+    private final double frameBudgetMillis;
+
+    /**
+     * Parses and validates the configuration.
+     *
+     * @param props The game properties, usually read from app.properties.
+     * @throws IllegalArgumentException if a value is missing or invalid.
+     */
+    public GameConfig(Properties props) {
+        windowWidth = requirePositive("window.width", readInt(props, "window.width"));
+        windowHeight = requirePositive("window.height", readInt(props, "window.height"));
+        maxFrames = requirePositive("gamePlay.maxFrames", readInt(props, "gamePlay.maxFrames"));
+        titleFontSize = requirePositive("title.fontSize", readInt(props, "title.fontSize"));
+        titleY = readDouble(props, "title.y");
+        promptFontSize = requirePositive("prompt.fontSize", readInt(props, "prompt.fontSize"));
+        moveMessageY = readDouble(props, "moveMessage.y");
+        selectMessageY = readDouble(props, "selectMessage.y");
+        robotPosition = readPoint(props, "Robot");
+        marinePosition = readPoint(props, "Marine");
+        playerStart = readPoint(props, "player.start");
+        storePosition = readPoint(props, "store");
+        weaponStatPosition = readPoint(props, "weaponStat");
+        healthStatPosition = readPoint(props, "healthStat");
+        keyStatPosition = readPoint(props, "keyStat");
+        coinStatPosition = readPoint(props, "coinStat");
+        statsFontSize = requirePositive("playerStats.fontSize", readInt(props, "playerStats.fontSize"));
+        marineMessagePosition = readPoint(props, "marineMessage");
+        robotMessagePosition = readPoint(props, "robotMessage");
+        initialHealth = requirePositive("initialHealth", readDouble(props, "initialHealth"));
+        movingSpeed = requirePositive("movingSpeed", readDouble(props, "movingSpeed"));
+        robotExtraCoin = requireNonNegative("robotExtraCoin", readDouble(props, "robotExtraCoin"));
+        basketCoin = requireNonNegative("basketCoin", readDouble(props, "basketCoin"));
+        bulletKinHealth = requirePositive("bulletKinHealth", readDouble(props, "bulletKinHealth"));
+        bulletKinCoin = requireNonNegative("bulletKinCoin", readDouble(props, "bulletKinCoin"));
+        bulletKinShootFrequency = requireNonNegative("bulletKinShootFrequency", readInt(props, "bulletKinShootFrequency"));
+        ashenBulletKinHealth = requirePositive("ashenBulletKinHealth", readDouble(props, "ashenBulletKinHealth"));
+        ashenBulletKinCoin = requireNonNegative("ashenBulletKinCoin", readDouble(props, "ashenBulletKinCoin"));
+        ashenBulletKinShootFrequency = requireNonNegative("ashenBulletKinShootFrequency", readInt(props, "ashenBulletKinShootFrequency"));
+        keyBulletKinHealth = requirePositive("keyBulletKinHealth", readDouble(props, "keyBulletKinHealth"));
+        keyBulletKinSpeed = requirePositive("keyBulletKinSpeed", readDouble(props, "keyBulletKinSpeed"));
+        fireballDamage = requireNonNegative("fireballDamage", readDouble(props, "fireballDamage"));
+        fireballSpeed = requirePositive("fireballSpeed", readDouble(props, "fireballSpeed"));
+        riverDamagePerFrame = requireNonNegative("riverDamagePerFrame", readDouble(props, "riverDamagePerFrame"));
+        healthPurchase = requireNonNegative("healthPurchase", readDouble(props, "healthPurchase"));
+        healthBonus = requireNonNegative("healthBonus", readDouble(props, "healthBonus"));
+        weaponPurchase = requireNonNegative("weaponPurchase", readDouble(props, "weaponPurchase"));
+        weaponStandardDamage = requireNonNegative("weaponStandardDamage", readDouble(props, "weaponStandardDamage"));
+        weaponAdvanceDamage = requireNonNegative("weaponAdvanceDamage", readDouble(props, "weaponAdvanceDamage"));
+        weaponEliteDamage = requireNonNegative("weaponEliteDamage", readDouble(props, "weaponEliteDamage"));
+        bulletSpeed = requirePositive("bulletSpeed", readDouble(props, "bulletSpeed"));
+        bulletFreq = requireNonNegative("bulletFreq", readInt(props, "bulletFreq"));
+        parallelEnemyUpdate = readBoolean(props, "enemyUpdate.parallel");
+        parallelEnemyThreshold = requirePositive("enemyUpdate.parallelThreshold",
+                readInt(props, "enemyUpdate.parallelThreshold"));
+        lazyRoomLoading = readBoolean(props, "rooms.lazyLoading");
+        roomEntityBudget = requirePositive("rooms.entityBudget", readInt(props, "rooms.entityBudget"));
+        profilerEnabled = readBoolean(props, "profiler.enabled");
+        frameBudgetMillis = requirePositive("scheduler.frameBudgetMillis",
+                readDouble(props, "scheduler.frameBudgetMillis"));
+    }
+
+    private static String readValue(Properties props, String key) {
+        String value = props.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing game property: " + key);
+        }
+        return value.trim();
+    }
+
+    private static int readInt(Properties props, String key) {
+        try {
+            return Integer.parseInt(readValue(props, key));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Game property " + key + " is not a whole number", ex);
+        }
+    }
+
+    private static double readDouble(Properties props, String key) {
+        try {
+            return Double.parseDouble(readValue(props, key));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Game property " + key + " is not a number", ex);
+        }
+    }
+
+    private static boolean readBoolean(Properties props, String key) {
+        String value = readValue(props, key);
+        if (value.equalsIgnoreCase("true")) return true;
+        if (value.equalsIgnoreCase("false")) return false;
+        throw new IllegalArgumentException("Game property " + key + " is not true or false");
+    }
+
+    private static Point readPoint(Properties props, String key) {
+        try {
+            return IOUtils.parseCoords(readValue(props, key));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Game property " + key + " is not a coordinate pair", ex);
+        }
+    }
+
+    private static int requirePositive(String key, int value) {
+        if (value <= 0) throw new IllegalArgumentException("Game property " + key + " must be positive");
+        return value;
+    }
+
+    private static double requirePositive(String key, double value) {
+        if (!(value > 0)) throw new IllegalArgumentException("Game property " + key + " must be positive");
+        return value;
+    }
+
+    private static int requireNonNegative(String key, int value) {
+        if (value < 0) throw new IllegalArgumentException("Game property " + key + " must not be negative");
+        return value;
+    }
+
+    private static double requireNonNegative(String key, double value) {
+        if (!(value >= 0)) throw new IllegalArgumentException("Game property " + key + " must not be negative");
+        return value;
+    }
+
+    /**
+     * @return the width of the game window
+     */
+    public int getWindowWidth() { return windowWidth; }
+
+    /**
+     * @return the height of the game window
+     */
+    public int getWindowHeight() { return windowHeight; }
+
+    /**
+     * @return the number of frames a headless run simulates by default
+     */
+    public int getMaxFrames() { return maxFrames; }
+
+    /**
+     * @return the font size of titles
+     */
+    public int getTitleFontSize() { return titleFontSize; }
+
+    /**
+     * @return the y-coordinate of titles
+     */
+    public double getTitleY() { return titleY; }
+
+    /**
+     * @return the font size of prompts
+     */
+    public int getPromptFontSize() { return promptFontSize; }
+
+    /**
+     * @return the y-coordinate of the movement prompt
+     */
+    public double getMoveMessageY() { return moveMessageY; }
+
+    /**
+     * @return the y-coordinate of the character selection prompt
+     */
+    public double getSelectMessageY() { return selectMessageY; }
+
+    /**
+     * @return the position of the robot statue in the prep room
+     */
+    public Point getRobotPosition() { return robotPosition; }
+
+    /**
+     * @return the position of the marine statue in the prep room
+     */
+    public Point getMarinePosition() { return marinePosition; }
+
+    /**
+     * @return the starting position of the player
+     */
+    public Point getPlayerStart() { return playerStart; }
+
+    /**
+     * @return the position of the store screen
+     */
+    public Point getStorePosition() { return storePosition; }
+
+    /**
+     * @return the position of the weapon level display
+     */
+    public Point getWeaponStatPosition() { return weaponStatPosition; }
+
+    /**
+     * @return the position of the health display
+     */
+    public Point getHealthStatPosition() { return healthStatPosition; }
+
+    /**
+     * @return the position of the key count display
+     */
+    public Point getKeyStatPosition() { return keyStatPosition; }
+
+    /**
+     * @return the position of the coin display
+     */
+    public Point getCoinStatPosition() { return coinStatPosition; }
+
+    /**
+     * @return the font size of the player stats
+     */
+    public int getStatsFontSize() { return statsFontSize; }
+
+    /**
+     * @return the position of the marine description
+     */
+    public Point getMarineMessagePosition() { return marineMessagePosition; }
+
+    /**
+     * @return the position of the robot description
+     */
+    public Point getRobotMessagePosition() { return robotMessagePosition; }
+
+    /**
+     * @return the health the player starts with
+     */
+    public double getInitialHealth() { return initialHealth; }
+
+    /**
+     * @return the distance the player moves each frame
+     */
+    public double getMovingSpeed() { return movingSpeed; }
+
+    /**
+     * @return the bonus coins the robot earns per kill
+     */
+    public double getRobotExtraCoin() { return robotExtraCoin; }
+
+    /**
+     * @return the coins earned by destroying a basket
+     */
+    public double getBasketCoin() { return basketCoin; }
+
+    /**
+     * @return the starting health of a bullet kin
+     */
+    public double getBulletKinHealth() { return bulletKinHealth; }
+
+    /**
+     * @return the coins dropped by a bullet kin
+     */
+    public double getBulletKinCoin() { return bulletKinCoin; }
+
+    /**
+     * @return the frames between bullet kin shots
+     */
+    public int getBulletKinShootFrequency() { return bulletKinShootFrequency; }
+
+    /**
+     * @return the starting health of an ashen bullet kin
+     */
+    public double getAshenBulletKinHealth() { return ashenBulletKinHealth; }
+
+    /**
+     * @return the coins dropped by an ashen bullet kin
+     */
+    public double getAshenBulletKinCoin() { return ashenBulletKinCoin; }
+
+    /**
+     * @return the frames between ashen bullet kin shots
+     */
+    public int getAshenBulletKinShootFrequency() { return ashenBulletKinShootFrequency; }
+
+    /**
+     * @return the starting health of a key bullet kin
+     */
+    public double getKeyBulletKinHealth() { return keyBulletKinHealth; }
+
+    /**
+     * @return the distance a key bullet kin moves each frame
+     */
+    public double getKeyBulletKinSpeed() { return keyBulletKinSpeed; }
+
+    /**
+     * @return the damage dealt by a fireball
+     */
+    public double getFireballDamage() { return fireballDamage; }
+
+    /**
+     * @return the distance a fireball moves each frame
+     */
+    public double getFireballSpeed() { return fireballSpeed; }
+
+    /**
+     * @return the damage dealt each frame by rivers and enemy contact
+     */
+    public double getRiverDamagePerFrame() { return riverDamagePerFrame; }
+
+    /**
+     * @return the cost of a health upgrade
+     */
+    public double getHealthPurchase() { return healthPurchase; }
+
+    /**
+     * @return the health gained from a health upgrade
+     */
+    public double getHealthBonus() { return healthBonus; }
+
+    /**
+     * @return the cost of a weapon upgrade
+     */
+    public double getWeaponPurchase() { return weaponPurchase; }
+
+    /**
+     * @return the bullet damage of the standard weapon
+     */
+    public double getWeaponStandardDamage() { return weaponStandardDamage; }
+
+    /**
+     * @return the bullet damage of the advanced weapon
+     */
+    public double getWeaponAdvanceDamage() { return weaponAdvanceDamage; }
+
+    /**
+     * @return the bullet damage of the elite weapon
+     */
+    public double getWeaponEliteDamage() { return weaponEliteDamage; }
+
+    /**
+     * @return the distance a bullet moves each frame
+     */
+    public double getBulletSpeed() { return bulletSpeed; }
+
+    /**
+     * @return the frames between player shots
+     */
+    public int getBulletFreq() { return bulletFreq; }
+
+    /**
+     * @return whether enemy AI is planned on worker threads in large rooms
+     */
+    public boolean isParallelEnemyUpdate() { return parallelEnemyUpdate; }
+
+    /**
+     * @return the number of enemies a room needs before their AI is planned in parallel
+     */
+    public int getParallelEnemyThreshold() { return parallelEnemyThreshold; }
+
+    /**
+     * @return whether rooms are built only when the player gets near them and unloaded when far away
+     */
+    public boolean isLazyRoomLoading() { return lazyRoomLoading; }
+
+    /**
+     * @return the number of entities the loaded rooms may hold before far-away rooms are unloaded
+     */
+    public int getRoomEntityBudget() { return roomEntityBudget; }
+
+    /**
+     * @return whether frames are profiled from the start of the game
+     */
+    public boolean isProfilerEnabled() { return profilerEnabled; }
+
+    /**
+     * @return the milliseconds a frame may take before low-priority work waits for the next frame
+     */
+    public double getFrameBudgetMillis() { return frameBudgetMillis; }
+}
@@ -0,0 +1,13 @@
+/**
+ * Reacts to events published on an {@link EventBus}.
+ */
+public interface GameEventListener {
+    /**
+     * Called when an event the listener subscribed to is published.
+     *
+     * @param event  The event, e.g. {@link EventBus#ENEMY_DIED}.
+     * @param source The object the event happened to.
+     * @param amount The amount that goes with the event, such as the damage dealt, or 0.
+     */
+    void onEvent(int event, Object source, double amount);
+}
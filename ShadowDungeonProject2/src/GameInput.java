@@ -0,0 +1,69 @@
+import bagel.Keys;
+import bagel.MouseButtons;
+
+/**
+ * Source of the keyboard and mouse state the game reacts to each frame.
+ * Implemented by the live bagel input and by scripted input for headless runs.
+ */
+public interface GameInput {
+
+    /**
+     * Moves on to the input of the next frame. Must be called once before each game step.
+     * Live input is already up to date, so by default this does nothing.
+     */
+    public default void advance() {
+    }
+
+    /**
+     * Called once after each game step. Recording and replaying input use it to store or check
+     * a checksum of the game state; other input does nothing.
+     */
+    public default void endFrame() {
+    }
+
+    /**
+     * Checks whether a key is held down.
+     *
+     * @param key the key to check
+     * @return true if the key is down
+     */
+    public boolean isDown(Keys key);
+
+    /**
+     * Checks whether a key was pressed this frame.
+     *
+     * @param key the key to check
+     * @return true if the key went down this frame
+     */
+    public boolean wasPressed(Keys key);
+
+    /**
+     * Checks whether a mouse button is held down.
+     *
+     * @param button the button to check
+     * @return true if the button is down
+     */
+    public boolean isDown(MouseButtons button);
+
+    /**
+     * Checks whether a mouse button was pressed this frame.
+     *
+     * @param button the button to check
+     * @return true if the button went down this frame
+     */
+    public boolean wasPressed(MouseButtons button);
+
+    /**
+     * Gets the x-coordinate of the mouse.
+     *
+     * @return the mouse x-coordinate
+     */
+    public double getMouseX();
+
+    /**
+     * Gets the y-coordinate of the mouse.
+     *
+     * @return the mouse y-coordinate
+     */
+    public double getMouseY();
+}
@@ -1,24 +1,69 @@
-import bagel.Image;
 import bagel.util.Point;
 import bagel.util.Rectangle;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a game object with an image and position.
  */
 public abstract class GameObject {
-    private final Image image;
+    private final Sprite image;
+    private final int collisionLayer;
     private final Point point;
+    private final AABB bounds = new AABB();
+    /** Whether an object outside a world, such as a door, is destroyed; objects in a world keep it there. */
     private boolean destroyed = false;
+    private CollisionLayers collisionLayers;
+    private EntityWorld world;
+    private int entity = -1;
+    /** The last {@link SpatialGrid} query that returned this object, used to skip duplicates. */
+    int gridQueryStamp = 0;
 
     /**
      * Creates a new GameObject.
      *
      * @param point     The position of the object.
      * @param imagePath The file path of the object's image.
+     * @param collisionLayer The {@link CollisionMask} layer the object belongs to.
      */
-    public GameObject(Point point, String imagePath) {
+    public GameObject(Point point, String imagePath, int collisionLayer) {
         this.point = point;
-        this.image = new Image(imagePath);
+        this.collisionLayer = collisionLayer;
+        this.image = SpriteRegistry.acquire(imagePath);
+        bounds.setCentred(point.x, point.y, image);
+    }
+
+    /**
+     * Creates a new GameObject and adds it to a room's world, whose systems draw it from then on.
+     *
+     * @param world     The world of the object's room.
+     * @param point     The position of the object.
+     * @param imagePath The file path of the object's image.
+     * @param collisionLayer The {@link CollisionMask} layer the object belongs to.
+     * @param flags     The {@link EntityWorld} flags the object starts with, e.g. {@link EntityWorld#TILE}.
+     */
+    protected GameObject(EntityWorld world, Point point, String imagePath, int collisionLayer, int flags) {
+        this(point, imagePath, collisionLayer);
+        this.world = world;
+        this.entity = world.create(flags, point, image, RenderQueue.ENVIRONMENT);
+    }
+
+    /**
+     * Gets the object's slot in its room's world.
+     *
+     * @return The entity, or -1 if the object is not in a world.
+     */
+    public int getEntity() {
+        return entity;
+    }
+
+    /**
+     * Returns the cached bounding box of this object, which does not allocate.
+     *
+     * @return The bounding box.
+     */
+    public AABB getBounds() {
+        return bounds;
     }
 
     /**
@@ -30,28 +75,87 @@ public abstract class GameObject {
         return image.getBoundingBoxAt(point);
     }
 
+    /**
+     * Gets the position of this object.
+     *
+     * @return The centre of the object.
+     */
+    public Point getPosition() {
+        return point;
+    }
+
+    /**
+     * Gets the sprite of this object.
+     *
+     * @return The sprite.
+     */
+    public Sprite getImage() {
+        return image;
+    }
+
+    /**
+     * Gets the collision layer of this object.
+     *
+     * @return The {@link CollisionMask} layer bit.
+     */
+    public int getCollisionLayer() {
+        return collisionLayer;
+    }
+
     /**
      * Marks this object as destroyed.
      */
     public void destroy() {
-        this.destroyed = true;
+        if (isDestroyed()) return;
+        setDestroyed(true);
+        if (collisionLayers != null) collisionLayers.onDestroyed(this);
     }
 
     /**
-     * Checks if the object is destroyed.
+     * Sets the collision layers to notify when this object changes, e.g. when it is destroyed.
+     *
+     * @param collisionLayers The collision layers holding this object.
+     */
+    void setCollisionLayers(CollisionLayers collisionLayers) {
+        this.collisionLayers = collisionLayers;
+    }
+
+    /**
+     * Gets the collision layers holding this object.
+     *
+     * @return The collision layers, or null if the object is in none.
+     */
+    CollisionLayers getCollisionLayers() {
+        return collisionLayers;
+    }
+
+    /**
+     * Checks if the object is destroyed. An object in a world reads this from its world.
      *
      * @return True if destroyed, false otherwise.
      */
     public boolean isDestroyed() {
-        return destroyed;
+        return world != null ? world.is(entity, EntityWorld.DESTROYED) : destroyed;
+    }
+
+    private void setDestroyed(boolean destroyed) {
+        if (world != null) world.set(entity, EntityWorld.DESTROYED, destroyed);
+        else this.destroyed = destroyed;
+    }
+
+    /**
+     * Releases the object's sprite once the object is no longer part of the game.
+     */
+    public void dispose() {
+        SpriteRegistry.release(image);
     }
 
     /**
      * Draws the object if it is not destroyed.
      */
     public void draw() {
-        if (!destroyed) {
-            image.draw(point.x, point.y);
+        if (!isDestroyed()) {
+            image.draw(point.x, point.y, RenderQueue.ENVIRONMENT);
         }
     }
 
@@ -61,7 +165,7 @@ public abstract class GameObject {
      * @param currCharacter The current character.
      */
     public void update(Character currCharacter) {
-        if (destroyed) return;
+        if (isDestroyed()) return;
 
         if (hasCollidedWith(currCharacter)) {
             currCharacter.move(currCharacter.getPrevPosition().x, currCharacter.getPrevPosition().y);
@@ -75,6 +179,25 @@ public abstract class GameObject {
      * @return True if collided, false otherwise.
      */
     public boolean hasCollidedWith(Character currCharacter) {
-        return image.getBoundingBoxAt(point).intersects(currCharacter.getCurrImage().getBoundingBoxAt(currCharacter.getPosition()));
+        return bounds.intersects(currCharacter.getBounds());
+    }
+
+    /**
+     * Writes whether the object is destroyed to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        GameSnapshot.putBoolean(out, isDestroyed());
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)}. The collision layers are not told,
+     * so the room must rebuild them once everything is restored.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in) {
+        setDestroyed(GameSnapshot.getBoolean(in));
     }
 }
@@ -0,0 +1,307 @@
+import bagel.util.Point;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One game being played: its rooms, characters, shared player stats, collected keys, event bus
+ * and frame scheduler. Rooms, characters and entities are given the session they belong to and
+ * reach the rest of the game only through it, so several sessions can run in one process.
+ *
+ * A session must only be stepped by one thread at a time. Headless sessions share nothing that
+ * changes during play, only the game configuration and the room templates, so each can be stepped
+ * on its own thread. Drawing goes through the render queue, sprites and HUD, and the frame profiler
+ * times one game, all of which are shared by every session; so while a session is drawn or profiled
+ * it must be the only one stepping, and {@link #step(GameInput)} throws if another steps at the same time.
+ * The windowed game has a single session.
+ */
+public class GameSession {
+    private static final AtomicInteger steppingSessions = new AtomicInteger();
+    private final RoomRegistry rooms;
+    private final EventBus events = new EventBus(null);
+    private final PlayerStats stats = new PlayerStats(events);
+    private final FrameScheduler scheduler = new FrameScheduler();
+    private final HashSet<String> collectedKeys = new HashSet<>();
+    private String currRoomName;
+    private Player player;
+    private Robot robot;
+    private Marine marine;
+    private Character currCharacter;
+    private GameSnapshot initialSnapshot;
+    private boolean restartRequested = false;
+
+    /**
+     * Starts a new game in the prep room, with its own rooms built from the given templates.
+     *
+     * @param layout The registry holding the room templates, from {@link ShadowDungeon#getLayout()}.
+     */
+    public GameSession(RoomRegistry layout) {
+        rooms = new RoomRegistry(layout, this);
+        scheduler.setBudget(ShadowDungeon.getConfig().getFrameBudgetMillis());
+        reset();
+    }
+
+    /**
+     * Resets all rooms, characters, and shared stats to initial values.
+     * Rooms are built from the templates parsed when the game started, so the game properties
+     * are not read again.
+     */
+    public void reset() {
+        GameConfig config = ShadowDungeon.getConfig();
+        rooms.buildRooms();
+
+        currRoomName = ShadowDungeon.PREP_ROOM_NAME;
+
+        player = new Player(this, config.getPlayerStart());
+        robot = new Robot(this, config.getRobotPosition());
+        marine = new Marine(this, config.getMarinePosition());
+        stats.reset(config.getInitialHealth(), config.getMovingSpeed());
+
+        currCharacter = player;
+
+        PrepRoom prepRoom = (PrepRoom) rooms.get(ShadowDungeon.PREP_ROOM_NAME);
+        prepRoom.setPlayer(player);
+        prepRoom.setRobot(robot);
+        prepRoom.setMarine(marine);
+        initialSnapshot = GameSnapshot.capture(this);
+    }
+
+    /**
+     * Asks for the game to be restarted once the current frame has finished.
+     * Rooms keep running on their old state until the end of the frame, as they did when
+     * restarting rebuilt every room straight away.
+     */
+    public void requestRestart() {
+        restartRequested = true;
+    }
+
+    /**
+     * Restarts the game by restoring the snapshot taken when the rooms were built,
+     * instead of building the rooms again from the game properties.
+     */
+    public void restart() {
+        restartRequested = false;
+        // collected keys were never reset by a restart, so they survive this one too
+        ArrayList<String> keptKeys = new ArrayList<>(collectedKeys);
+        initialSnapshot.restore(this);
+        collectedKeys.addAll(keptKeys);
+    }
+
+    /**
+     * Advances the current room by one frame.
+     *
+     * @param input The input for this frame.
+     * @throws IllegalStateException If another session is being stepped at the same time while
+     *                               the game is drawn or profiled.
+     */
+    public void step(GameInput input) {
+        if (steppingSessions.incrementAndGet() > 1 && (!ShadowDungeon.isHeadless() || FrameProfiler.isEnabled())) {
+            steppingSessions.decrementAndGet();
+            throw new IllegalStateException("Only headless sessions without profiling can be stepped at the same time");
+        }
+        try {
+            rooms.get(currRoomName).update(input);
+            if (restartRequested) {
+                restart();
+            }
+        } finally {
+            steppingSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Changes the active room and moves the player to the appropriate door position.
+     *
+     * @param roomName The room to switch to.
+     */
+    public void changeRoom(String roomName) {
+        String fromRoomName = currRoomName;
+        rooms.get(fromRoomName).stopCurrentUpdateCall();
+        currRoomName = roomName;
+        rooms.visit(roomName).enter(fromRoomName, currCharacter);
+    }
+
+    /**
+     * Switches the game to the Game Over room when the player dies.
+     */
+    public void changeToGameOverRoom() {
+        if (!currRoomName.equals(ShadowDungeon.END_ROOM_NAME)) {
+            rooms.get(currRoomName).stopCurrentUpdateCall();
+        }
+        // the room the player died in is still updating, so nothing is unloaded until the next room change
+        EndRoom endRoom = (EndRoom) rooms.get(ShadowDungeon.END_ROOM_NAME);
+        endRoom.isGameOver();
+        currRoomName = ShadowDungeon.END_ROOM_NAME;
+        Point startPos = ShadowDungeon.getConfig().getPlayerStart();
+        currCharacter.move(startPos.x, startPos.y);
+        endRoom.setCurrCharacter(currCharacter);
+    }
+
+    /**
+     * Checks whether the current room draws the background itself as part of its baked static layer.
+     *
+     * @return True if the window should not draw the background.
+     */
+    public boolean currRoomHasBakedBackground() {
+        return rooms.get(currRoomName).hasBakedBackground();
+    }
+
+    /**
+     * Computes a checksum of the game state: the current room, the shared player stats,
+     * the controlled character and its bullets, and everything in the battle rooms.
+     * Runs given the same input produce the same hash every frame.
+     *
+     * @return The state hash.
+     */
+    public long hashState() {
+        long hash = StateHash.mix(StateHash.SEED, (long) currRoomName.hashCode());
+        hash = stats.hashState(hash);
+        hash = StateHash.mix(hash, (long) currCharacter.getClass().getSimpleName().hashCode());
+        hash = StateHash.mix(hash, currCharacter.getPosition().x);
+        hash = StateHash.mix(hash, currCharacter.getPosition().y);
+        // the default player has no bullets
+        if (currCharacter.getBullets() != null) hash = StateHash.mix(hash, currCharacter.getBullets());
+        return rooms.hashState(hash);
+    }
+
+    /**
+     * Mixes the layout of every room into a hash, so a snapshot is only restored into the rooms it was taken of.
+     *
+     * @return The layout hash.
+     */
+    public long hashLayout() {
+        return rooms.hashLayout(StateHash.SEED);
+    }
+
+    /**
+     * Writes the whole game state to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        GameSnapshot.putString(out, currRoomName);
+        out.put((byte) getCharacterId(currCharacter));
+        stats.writeState(out);
+        player.writeState(out);
+        robot.writeState(out);
+        marine.writeState(out);
+        rooms.writeState(out);
+        out.putShort((short) collectedKeys.size());
+        for (String roomName : collectedKeys) GameSnapshot.putString(out, roomName);
+    }
+
+    /**
+     * Reads the game state written by {@link #writeState(ByteBuffer)} into the existing rooms and characters.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in) {
+        currRoomName = GameSnapshot.getString(in);
+        currCharacter = getCharacterById(in.get());
+        stats.readState(in);
+        player.readState(in);
+        robot.readState(in);
+        marine.readState(in);
+        rooms.readState(in);
+        collectedKeys.clear();
+        int count = in.getShort();
+        for (int i = 0; i < count; i++) collectedKeys.add(GameSnapshot.getString(in));
+    }
+
+    /**
+     * Gets the number a snapshot stores in place of a reference to one of the characters.
+     *
+     * @param character The character, or null.
+     * @return 1 for the player, 2 for the robot, 3 for the marine and 0 for anything else.
+     */
+    int getCharacterId(Character character) {
+        if (character == null) return 0;
+        if (character == player) return 1;
+        if (character == robot) return 2;
+        if (character == marine) return 3;
+        return 0;
+    }
+
+    /**
+     * Gets the character stored in a snapshot as the given number.
+     *
+     * @param id The number from {@link #getCharacterId(Character)}.
+     * @return The character, or null.
+     */
+    Character getCharacterById(int id) {
+        switch (id) {
+            case 1: return player;
+            case 2: return robot;
+            case 3: return marine;
+            default: return null;
+        }
+    }
+
+    /**
+     * sets currently controlled character.
+     *
+     * @param character the character which is going to be active
+     */
+    public void setCurrCharacter(Character character) {
+        currCharacter = character;
+    }
+
+    /**
+     * @return the currently controlled character.
+     */
+    public Character getCurrCharacter() {
+        return currCharacter;
+    }
+
+    /**
+     * Gets the name of the room the player is in.
+     * @return the current room name
+     */
+    public String getCurrRoomName() {
+        return currRoomName;
+    }
+
+    /**
+     * Gets the stats shared by the session's characters.
+     * @return the player stats
+     */
+    public PlayerStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Gets the bus every event of the session ends up on, including the events of each room's bus.
+     * @return the session's event bus
+     */
+    public EventBus getEvents() {
+        return events;
+    }
+
+    /**
+     * Gets the scheduler running the session's deferred work.
+     * @return the frame scheduler
+     */
+    public FrameScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Gets the session's rooms.
+     * @return the room registry
+     */
+    public RoomRegistry getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Gets the rooms whose key has been collected, which stay collected across rooms and restarts.
+     *
+     * @return The room names.
+     */
+    Set<String> getCollectedKeys() {
+        return collectedKeys;
+    }
+}
@@ -0,0 +1,200 @@
+import bagel.util.Point;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A binary copy of the whole game state: the current room, the shared player stats, every character,
+ * and every room with its doors, crates, enemies, keys and projectiles.
+ *
+ * Rooms are built from the game properties once; a snapshot only stores what can change during play
+ * and is restored into the same objects, so restoring never re-reads the configuration. Rooms that
+ * are not built when the snapshot is restored keep their state until they are. A snapshot starts with the magic number {@code SDSV}, the format version, and a hash of
+ * the room layout, so it can only be restored into a game with the same rooms.
+ */
+public class GameSnapshot {
+    private static final int MAGIC = 0x53445356;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 4 + 2 + 8;
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    private ByteBuffer buffer;
+
+    private GameSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Takes a snapshot of the current state of a game session.
+     *
+     * @param session The session.
+     * @return The snapshot.
+     */
+    public static GameSnapshot capture(GameSession session) {
+        GameSnapshot snapshot = new GameSnapshot(ByteBuffer.allocate(INITIAL_CAPACITY));
+        snapshot.recapture(session);
+        return snapshot;
+    }
+
+    /**
+     * Replaces the contents of this snapshot with the current state of a session, reusing its buffer.
+     *
+     * @param session The session.
+     */
+    public void recapture(GameSession session) {
+        while (true) {
+            try {
+                buffer.clear();
+                buffer.putInt(MAGIC);
+                buffer.putShort((short) VERSION);
+                buffer.putLong(session.hashLayout());
+                session.writeState(buffer);
+                buffer.flip();
+                return;
+            } catch (BufferOverflowException ex) {
+                // projectile pools can grow without limit, so make room and write everything again
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Puts a session back into the state held by this snapshot. The snapshot may have been taken
+     * of another session with the same rooms.
+     *
+     * @param session The session.
+     * @throws IllegalStateException if the snapshot was taken of a game with different rooms.
+     */
+    public void restore(GameSession session) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(HEADER_SIZE - 8);
+        if (in.getLong() != session.hashLayout()) {
+            throw new IllegalStateException("Snapshot was taken of a different room layout");
+        }
+        session.readState(in);
+    }
+
+    /**
+     * Writes the snapshot to a file, replacing the file if it exists.
+     *
+     * @param snapshotFile The path of the file.
+     */
+    public void writeTo(String snapshotFile) {
+        try (FileChannel channel = FileChannel.open(Paths.get(snapshotFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = buffer.duplicate();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeTo(String)}.
+     *
+     * @param snapshotFile The path of the file.
+     * @return The snapshot, ready to be restored.
+     */
+    public static GameSnapshot readFrom(String snapshotFile) {
+        try (FileChannel channel = FileChannel.open(Paths.get(snapshotFile), StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate((int) channel.size());
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // keep reading until the whole file is in the buffer
+            }
+            in.flip();
+            if (in.remaining() < HEADER_SIZE || in.getInt(0) != MAGIC) {
+                throw new IOException(snapshotFile + " is not a game snapshot");
+            }
+            int version = in.getShort(4) & 0xffff;
+            if (version != VERSION) {
+                throw new IOException(snapshotFile + " has unsupported version " + version);
+            }
+            return new GameSnapshot(in);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the size of the snapshot.
+     *
+     * @return The number of bytes in the snapshot.
+     */
+    public int size() { return buffer.limit(); }
+
+    /**
+     * Writes a point, or NaN coordinates for a missing point.
+     *
+     * @param out   The buffer to write to.
+     * @param point The point, or null.
+     */
+    static void putPoint(ByteBuffer out, Point point) {
+        out.putDouble(point == null ? Double.NaN : point.x);
+        out.putDouble(point == null ? Double.NaN : point.y);
+    }
+
+    /**
+     * Reads a point written by {@link #putPoint(ByteBuffer, Point)}.
+     *
+     * @param in The buffer to read from.
+     * @return The point, or null if none was written.
+     */
+    static Point getPoint(ByteBuffer in) {
+        double x = in.getDouble();
+        double y = in.getDouble();
+        return Double.isNaN(x) ? null : new Point(x, y);
+    }
+
+    /**
+     * Writes a flag as one byte.
+     *
+     * @param out   The buffer to write to.
+     * @param value The flag.
+     */
+    static void putBoolean(ByteBuffer out, boolean value) {
+        out.put((byte) (value ? 1 : 0));
+    }
+
+    /**
+     * Reads a flag written by {@link #putBoolean(ByteBuffer, boolean)}.
+     *
+     * @param in The buffer to read from.
+     * @return The flag.
+     */
+    static boolean getBoolean(ByteBuffer in) {
+        return in.get() != 0;
+    }
+
+    /**
+     * Writes a string as its UTF-8 length and bytes.
+     *
+     * @param out   The buffer to write to.
+     * @param value The string.
+     */
+    static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #putString(ByteBuffer, String)}.
+     *
+     * @param in The buffer to read from.
+     * @return The string.
+     */
+    static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xffff];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,158 @@
+import java.util.Properties;
+
+/**
+ * Runs the game logic without a window or OpenGL context.
+ * Each step advances the game by one fixed frame, driven by scripted input,
+ * so thousands of frames can be simulated per second for soak tests and balancing.
+ * Each simulation plays its own {@link GameSession}, so simulations of sessions made from the same
+ * configuration can be stepped on different threads at the same time.
+ */
+public class HeadlessSimulation {
+    /** Length of one simulated frame in seconds, matching the 60 Hz window refresh. */
+    public static final double FRAME_TIME = 1.0 / 60;
+    private final GameSession session;
+    private final GameInput input;
+    private long framesRun = 0;
+
+    /**
+     * Sets up a headless game driven by the given input.
+     *
+     * @param gameProps Game configuration properties.
+     * @param messageProps Text messages and labels properties.
+     * @param input The scripted, recording or replayed input played back each frame.
+     */
+    public HeadlessSimulation(Properties gameProps, Properties messageProps, GameInput input) {
+        this(loadSession(gameProps, messageProps), input);
+    }
+
+    /**
+     * Sets up a headless simulation of a session made after the game was loaded headless.
+     *
+     * @param session The session to simulate.
+     * @param input The scripted, recording or replayed input played back each frame.
+     */
+    public HeadlessSimulation(GameSession session, GameInput input) {
+        this.session = session;
+        this.input = input;
+    }
+
+    /**
+     * Loads the game configuration without a window and starts a new session.
+     *
+     * @param gameProps Game configuration properties.
+     * @param messageProps Text messages and labels properties.
+     * @return The new session.
+     */
+    public static GameSession loadSession(Properties gameProps, Properties messageProps) {
+        ShadowDungeon.setHeadless(true);
+        ShadowDungeon.initGame(gameProps, messageProps);
+        return new GameSession(ShadowDungeon.getLayout());
+    }
+
+    /**
+     * Advances the game by one frame.
+     */
+    public void step() {
+        FrameScheduler scheduler = session.getScheduler();
+        scheduler.beginFrame();
+        FrameProfiler.beginFrame();
+        input.advance();
+        session.step(input);
+        input.endFrame();
+        scheduler.runDeferred();
+        FrameProfiler.endFrame();
+        framesRun++;
+    }
+
+    /**
+     * Advances the game by the given number of frames.
+     *
+     * @param frames The number of frames to simulate.
+     */
+    public void run(long frames) {
+        for (long i = 0; i < frames; i++) {
+            step();
+        }
+    }
+
+    /**
+     * Gets the session being simulated.
+     *
+     * @return The game session.
+     */
+    public GameSession getSession() { return session; }
+
+    /**
+     * Gets the number of frames simulated so far.
+     *
+     * @return The frame count.
+     */
+    public long getFramesRun() { return framesRun; }
+
+    /**
+     * Gets the amount of game time simulated so far.
+     *
+     * @return The simulated time in seconds.
+     */
+    public double getSimulatedSeconds() { return framesRun * FRAME_TIME; }
+
+    /**
+     * Entry point for headless runs.
+     * Usage: {@code HeadlessSimulation [--record file | --replay file] [scriptFile] [frames]}.
+     * Without a frame count, a replay runs until the recording ends and other runs use
+     * {@code gamePlay.maxFrames} from the game properties.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String[] args) {
+        Properties gameProps = IOUtils.readPropertiesFile("res/app.properties");
+        Properties messageProps = IOUtils.readPropertiesFile("res/message.properties");
+        String recordFile = null;
+        String replayFile = null;
+        int next = 0;
+        if (args.length > 1 && args[0].equals("--record")) {
+            recordFile = args[1];
+            next = 2;
+        } else if (args.length > 1 && args[0].equals("--replay")) {
+            replayFile = args[1];
+            next = 2;
+        }
+
+        GameSession session = loadSession(gameProps, messageProps);
+        FrameProfiler.setScheduler(session.getScheduler());
+        GameInput input;
+        ReplayInput replay = null;
+        if (replayFile != null) {
+            replay = new ReplayInput(replayFile, session);
+            input = replay;
+        } else {
+            input = args.length > next ? ScriptedInput.fromFile(args[next++]) : new ScriptedInput();
+        }
+        if (recordFile != null) input = new InputRecorder(input, recordFile, session);
+        HeadlessSimulation simulation = new HeadlessSimulation(session, input);
+
+        long start = System.nanoTime();
+        if (replay != null && args.length <= next) {
+            while (!replay.isFinished()) simulation.step();
+        } else {
+            simulation.run(args.length > next ? Long.parseLong(args[next])
+                    : ShadowDungeon.getConfig().getMaxFrames());
+        }
+        double elapsedMillis = (System.nanoTime() - start) / 1e6;
+        if (input instanceof InputRecorder) ((InputRecorder) input).close();
+
+        System.out.printf("Simulated %d frames (%.1f s of game time) in %.1f ms, %.0f frames/s%n",
+                simulation.getFramesRun(), simulation.getSimulatedSeconds(), elapsedMillis,
+                simulation.getFramesRun() / (elapsedMillis / 1000));
+        System.out.printf("Room: %s, health: %.1f, coins: %.0f%n",
+                session.getCurrRoomName(), session.getStats().getHealth(), session.getStats().getCoins());
+        if (FrameProfiler.isEnabled()) {
+            for (String line : FrameProfiler.summarise()) System.out.println(line);
+        }
+        if (replay != null) {
+            System.out.printf("Replayed %d recorded frames, %s%n", replay.getFramesPlayed(),
+                    replay.getFirstDivergentFrame() < 0 ? "all matched"
+                            : "diverged at frame " + replay.getFirstDivergentFrame());
+        }
+    }
+}
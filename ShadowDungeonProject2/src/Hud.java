@@ -0,0 +1,77 @@
+import bagel.util.Point;
+
+import java.util.Properties;
+
+/**
+ * On-screen display of the player's health, coins, weapon level and keys.
+ * Positions and labels are read once, and each line of text is only formatted again
+ * when the value it shows has changed.
+ */
+public class Hud {
+    private final int fontSize;
+    private final Point healthPos;
+    private final Point coinPos;
+    private final Point weaponPos;
+    private final Point keyPos;
+    private final String healthLabel;
+    private final String coinLabel;
+    private final String weaponLabel;
+    private final String keyLabel;
+    private double shownHealth = Double.NaN;
+    private double shownCoins = Double.NaN;
+    private int shownWeapon = -1;
+    private int shownKey = -1;
+    private String healthText;
+    private String coinText;
+    private String weaponText;
+    private String keyText;
+
+    /**
+     * Reads the layout and labels of the display.
+     *
+     * @param config The game configuration.
+     * @param messageProps Text messages and labels properties.
+     */
+    public Hud(GameConfig config, Properties messageProps) {
+        fontSize = config.getStatsFontSize();
+        healthPos = config.getHealthStatPosition();
+        coinPos = config.getCoinStatPosition();
+        weaponPos = config.getWeaponStatPosition();
+        keyPos = config.getKeyStatPosition();
+        healthLabel = messageProps.getProperty("healthDisplay");
+        coinLabel = messageProps.getProperty("coinDisplay");
+        weaponLabel = messageProps.getProperty("weaponDisplay");
+        keyLabel = messageProps.getProperty("keyDisplay");
+    }
+
+    /**
+     * Draws the player stats, formatting only the lines whose value changed.
+     *
+     * @param health Player's current health.
+     * @param coins Player's current coins.
+     * @param weapon Player's weapon level.
+     * @param key Player's number of keys.
+     */
+    public void draw(double health, double coins, int weapon, int key) {
+        if (health != shownHealth) {
+            shownHealth = health;
+            healthText = String.format("%s %.1f", healthLabel, health);
+        }
+        if (coins != shownCoins) {
+            shownCoins = coins;
+            coinText = String.format("%s %.0f", coinLabel, coins);
+        }
+        if (weapon != shownWeapon) {
+            shownWeapon = weapon;
+            weaponText = String.format("%s %d", weaponLabel, weapon);
+        }
+        if (key != shownKey) {
+            shownKey = key;
+            keyText = String.format("%s %d", keyLabel, key);
+        }
+        UserInterface.drawData(healthText, fontSize, healthPos);
+        UserInterface.drawData(coinText, fontSize, coinPos);
+        UserInterface.drawData(weaponText, fontSize, weaponPos);
+        UserInterface.drawData(keyText, fontSize, keyPos);
+    }
+}
@@ -1,6 +1,12 @@
 import bagel.util.Point;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.io.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -24,6 +30,61 @@ public class IOUtils {
         return appProps;
     }
 
+    /**
+     * Builds the typed game configuration from the game properties.
+     * Exits the game if any value is missing or invalid.
+     *
+     * @param gameProps The game properties.
+     * @return The validated configuration.
+     */
+    public static GameConfig readGameConfig(Properties gameProps) {
+        try {
+            return new GameConfig(gameProps);
+        } catch (IllegalArgumentException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+        return null;
+    }
+
+    /**
+     * Groups the game properties by room in one pass. A key such as {@code wall.A} is split at its
+     * last dot into the object type ({@code wall}) and the room name ({@code A}); keys without a dot
+     * are skipped. Values are kept as they are, so only the rooms that are used get parsed.
+     *
+     * @param gameProps The game properties.
+     * @return For each room name, the value of each object type in that room.
+     */
+    public static HashMap<String, HashMap<String, String>> indexRoomProperties(Properties gameProps) {
+        HashMap<String, HashMap<String, String>> rooms = new HashMap<>();
+        for (Map.Entry<Object, Object> entry : gameProps.entrySet()) {
+            String key = entry.getKey().toString();
+            int dot = key.lastIndexOf('.');
+            if (dot <= 0) continue;
+            rooms.computeIfAbsent(key.substring(dot + 1), room -> new HashMap<>())
+                    .put(key.substring(0, dot), entry.getValue().toString());
+        }
+        return rooms;
+    }
+
+    /**
+     * Finds every room of the dungeon from the door definitions in the game properties.
+     * Exits the game if a door leads to a room that is not defined.
+     *
+     * @param gameProps     The game properties.
+     * @param startRoomName The room the game starts in.
+     * @return The room registry, with no rooms built yet.
+     */
+    public static RoomRegistry readRoomRegistry(Properties gameProps, String startRoomName) {
+        try {
+            return new RoomRegistry(indexRoomProperties(gameProps), startRoomName);
+        } catch (IllegalArgumentException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+        return null;
+    }
+
     /**
      * Parses a coordinate string (e.g., "100,200") into a Point object.
      *
@@ -34,4 +95,33 @@ public class IOUtils {
         String[] coordinates = coords.split(",");
         return new Point(Double.parseDouble(coordinates[0]), Double.parseDouble(coordinates[1]));
     }
+
+    /**
+     * Reads the width and height of an image file without decoding its pixels.
+     *
+     * @param imageFile The path to the image file.
+     * @return An array holding the width followed by the height.
+     */
+    public static int[] readImageSize(String imageFile) {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(new File(imageFile))) {
+            if (stream == null) {
+                throw new FileNotFoundException(imageFile);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + imageFile);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream);
+                return new int[] {reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+        return null;
+    }
 }
@@ -0,0 +1,188 @@
+import bagel.Keys;
+import bagel.MouseButtons;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Game input that passes another input through to the game and records it, frame by frame,
+ * to a compact binary file that {@link ReplayInput} can play back.
+ *
+ * A recording starts with a header: the magic number {@code SDRP}, the format version, and the
+ * number of keys and mouse buttons. Each frame then takes one flags byte, followed by the full
+ * input state only if it differs from the previous frame (held and pressed keys as bit sets, held
+ * and pressed buttons, mouse x and y), and a 32-bit checksum of the game state after the frame.
+ * A frame in which nothing changed therefore takes five bytes.
+ */
+public class InputRecorder implements GameInput {
+    /** The first four bytes of every recording. */
+    static final int MAGIC = 0x53445250;
+    /** The version of the recording format written by this class. */
+    static final int VERSION = 1;
+    /** Set in a frame's flags when the input state follows. */
+    static final int INPUT_CHANGED = 1;
+    static final Keys[] KEYS = Keys.values();
+    static final MouseButtons[] BUTTONS = MouseButtons.values();
+    static final int KEY_WORDS = (KEYS.length + 63) / 64;
+
+    private final GameInput source;
+    private final GameSession session;
+    private final String recordingFile;
+    private DataOutputStream out;
+    private final long[] keysDown = new long[KEY_WORDS];
+    private final long[] keysPressed = new long[KEY_WORDS];
+    private final long[] lastKeysDown = new long[KEY_WORDS];
+    private final long[] lastKeysPressed = new long[KEY_WORDS];
+    private int buttonsDown;
+    private int buttonsPressed;
+    private int lastButtonsDown;
+    private int lastButtonsPressed;
+    private double mouseX;
+    private double mouseY;
+    private double lastMouseX;
+    private double lastMouseY;
+    private boolean inputWritten = false;
+    private long framesRecorded = 0;
+
+    /**
+     * Starts recording the given input to a file, replacing any earlier recording.
+     *
+     * @param source        The input played to the game.
+     * @param recordingFile The path of the recording.
+     * @param session       The session the input is played to, whose state is checksummed each frame.
+     */
+    public InputRecorder(GameInput source, String recordingFile, GameSession session) {
+        this.source = source;
+        this.session = session;
+        this.recordingFile = recordingFile;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(recordingFile)));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(KEYS.length);
+            out.writeByte(BUTTONS.length);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Moves the source input on and takes a copy of its state for this frame.
+     */
+    @Override
+    public void advance() {
+        source.advance();
+        for (int i = 0; i < KEYS.length; i++) {
+            setBit(keysDown, i, source.isDown(KEYS[i]));
+            setBit(keysPressed, i, source.wasPressed(KEYS[i]));
+        }
+        buttonsDown = 0;
+        buttonsPressed = 0;
+        for (int i = 0; i < BUTTONS.length; i++) {
+            if (source.isDown(BUTTONS[i])) buttonsDown |= 1 << i;
+            if (source.wasPressed(BUTTONS[i])) buttonsPressed |= 1 << i;
+        }
+        mouseX = source.getMouseX();
+        mouseY = source.getMouseY();
+    }
+
+    /**
+     * Writes this frame's input, if it changed, and the checksum of the game state after the frame.
+     */
+    @Override
+    public void endFrame() {
+        if (out == null) return;
+        try {
+            if (inputChanged()) {
+                out.writeByte(INPUT_CHANGED);
+                for (long word : keysDown) out.writeLong(word);
+                for (long word : keysPressed) out.writeLong(word);
+                out.writeByte(buttonsDown);
+                out.writeByte(buttonsPressed);
+                out.writeDouble(mouseX);
+                out.writeDouble(mouseY);
+                rememberInput();
+            } else {
+                out.writeByte(0);
+            }
+            out.writeInt(StateHash.fold(session.hashState()));
+            framesRecorded++;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Writes out anything still buffered and closes the recording. Later frames are not recorded.
+     */
+    public void close() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        out = null;
+        System.out.printf("Recorded %d frames to %s%n", framesRecorded, recordingFile);
+    }
+
+    /**
+     * Gets the number of frames written to the recording so far.
+     *
+     * @return The frame count.
+     */
+    public long getFramesRecorded() { return framesRecorded; }
+
+    private boolean inputChanged() {
+        if (!inputWritten) return true;
+        for (int i = 0; i < KEY_WORDS; i++) {
+            if (keysDown[i] != lastKeysDown[i] || keysPressed[i] != lastKeysPressed[i]) return true;
+        }
+        return buttonsDown != lastButtonsDown || buttonsPressed != lastButtonsPressed
+                || Double.compare(mouseX, lastMouseX) != 0 || Double.compare(mouseY, lastMouseY) != 0;
+    }
+
+    private void rememberInput() {
+        System.arraycopy(keysDown, 0, lastKeysDown, 0, KEY_WORDS);
+        System.arraycopy(keysPressed, 0, lastKeysPressed, 0, KEY_WORDS);
+        lastButtonsDown = buttonsDown;
+        lastButtonsPressed = buttonsPressed;
+        lastMouseX = mouseX;
+        lastMouseY = mouseY;
+        inputWritten = true;
+    }
+
+    static boolean getBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    @Override
+    public boolean isDown(Keys key) { return getBit(keysDown, key.ordinal()); }
+
+    @Override
+    public boolean wasPressed(Keys key) { return getBit(keysPressed, key.ordinal()); }
+
+    @Override
+    public boolean isDown(MouseButtons button) { return (buttonsDown & (1 << button.ordinal())) != 0; }
+
+    @Override
+    public boolean wasPressed(MouseButtons button) { return (buttonsPressed & (1 << button.ordinal())) != 0; }
+
+    @Override
+    public double getMouseX() { return mouseX; }
+
+    @Override
+    public double getMouseY() { return mouseY; }
+}
@@ -1,14 +1,16 @@
-import bagel.*;
 import bagel.util.Point;
 import bagel.util.Rectangle;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a collectible
  */
 public class Key {
     private boolean active;
     private Point position;
-    private final Image image = new Image("res/key.png");
+    private final Sprite image = SpriteRegistry.acquire("res/key.png");
+    private final AABB bounds = new AABB();
 
     /**
      * Creates a new key
@@ -26,12 +28,28 @@ public class Key {
         return image.getBoundingBoxAt(position);
     }
 
+    /**
+     * Returns the cached bounding box of the key, which is updated when the key is placed.
+     *
+     * @return The bounding box.
+     */
+    public AABB getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Releases the key's sprite once the key is no longer part of the game.
+     */
+    public void dispose() {
+        SpriteRegistry.release(image);
+    }
+
     /**
      * Draws the key on screen if it is active.
      */
     public void draw(){
         if (getActive()){
-            image.draw(position.x, position.y);
+            image.draw(position.x, position.y, RenderQueue.ITEMS);
         }
     }
 
@@ -54,7 +72,10 @@ public class Key {
      *
      * @param position The position to place the key.
      */
-    public void setPosition(Point position) {this.position = position;}
+    public void setPosition(Point position) {
+        this.position = position;
+        bounds.setCentred(position.x, position.y, image);
+    }
 
     /**
      * Returns the current position of the key.
@@ -62,4 +83,29 @@ public class Key {
      * @return The key's position as a Point.
      */
     public Point getPosition() {return position;}
+
+    /**
+     * Writes whether the key is out and where it lies to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        GameSnapshot.putBoolean(out, active);
+        GameSnapshot.putPoint(out, position);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in) {
+        active = GameSnapshot.getBoolean(in);
+        Point restored = GameSnapshot.getPoint(in);
+        if (restored != null) {
+            setPosition(restored);
+        } else {
+            position = null;
+        }
+    }
 }
@@ -1,66 +1,66 @@
 import bagel.util.Point;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
  * A special type of enemy that follows a path and drops a key upon death.
  */
 public class KeyBulletKin extends Enemy {
-    private final double SPEED;
-    private final ArrayList<Point> path;
-    private int currentTargetIndex = 0;
     private final Key key;
-    private static final double INITIAL_HEALTH = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("keyBulletKinHealth"));
+    private static final double INITIAL_HEALTH = ShadowDungeon.getConfig().getKeyBulletKinHealth();
 //  private static double health = INITIAL_HEALTH;
-    private static final double KIN_DAMAGE_PER_FRAME = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("riverDamagePerFrame"));
-    private static final double KIN_SPEED = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("keyBulletKinSpeed"));
+    private static final double KIN_DAMAGE_PER_FRAME = ShadowDungeon.getConfig().getRiverDamagePerFrame();
+    private static final double KIN_SPEED = ShadowDungeon.getConfig().getKeyBulletKinSpeed();
     private static final double KIN_COIN = 0;
-    private static final int KIN_SHOOT_FREQ = 0;
     private boolean keyDropped = false;
 
-    private double health;
-
     /**
-     * Creates a KeyBulletKin that follows a given path.
+     * Creates a KeyBulletKin that follows a given path, adding it to the room's world.
      *
-     * @param path The list of points representing the patrol path.
+     * @param world The world of the enemy's room, which holds its state.
+     * @param path  The list of points representing the patrol path.
      */
-    public KeyBulletKin(ArrayList<Point> path) {
-        super(
-                "res/key_bullet_kin.png",
-                INITIAL_HEALTH,
-                path.get(0),
-                KIN_COIN,
-                KIN_DAMAGE_PER_FRAME,
-                KIN_SHOOT_FREQ
-        );
-
-        this.SPEED = KIN_SPEED;
-        this.path = path;
+    public KeyBulletKin(EntityWorld world, List<Point> path) {
+        super(world, "res/key_bullet_kin.png", INITIAL_HEALTH, path.get(0), KIN_COIN, CollisionMask.KEY_ENEMY, 0);
+        world.addPathFollower(getEntity(), path, KIN_SPEED, KIN_DAMAGE_PER_FRAME);
         this.key = new Key();
         this.key.setActive(false);
-
-        double initialHealth = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("keyBulletKinHealth"));
-        this.health = initialHealth;
     }
 
     /**
-     * Updates the enemy's movement and handles collisions with the character.
+     * Moves along the path, or dies once out of health, without dealing damage.
      *
-     * @param currCharacter The character in the game.
+     * @param characterBounds The character's bounds at the start of the frame.
+     * @return The plan as a combination of the PLAN_ flags.
      */
     @Override
-    public void update(Character currCharacter) {
-        if (!isActive()) return;
+    public int plan(AABB characterBounds) {
+        if (!isActive()) return 0;
 
-        if (health > 0) {
-            followPath();
+        if (getHealth() > 0) {
+            getWorld().followPath(getEntity());
         } else {
             setActive(false);
             setDead(true);
-            return;
+            return PLAN_UPDATED;
         }
-        if (hasCollidedWith(currCharacter)) {
+        return getWorld().intersects(getEntity(), characterBounds) ? PLAN_UPDATED | PLAN_COLLIDED : PLAN_UPDATED;
+    }
+
+    /**
+     * Deals collision damage for a plan made by {@link #plan(AABB)}. The KeyBulletKin never shoots.
+     *
+     * @param plan            The plan returned by {@link #plan(AABB)}.
+     * @param currCharacter   The character currently in the game.
+     * @param fireballs       Unused.
+     * @param plannedBounds   The character bounds the plan was made against.
+     */
+    @Override
+    public void applyPlan(int plan, Character currCharacter, ProjectilePool fireballs, AABB plannedBounds) {
+        // an enemy that died while planning stops before the collision check, as in the enemy system
+        if ((plan & PLAN_UPDATED) == 0 || !isActive()) return;
+        if (collided(plan, currCharacter, plannedBounds)) {
             currCharacter.takeDamage(KIN_DAMAGE_PER_FRAME);
         }
     }
@@ -73,37 +73,22 @@ public class KeyBulletKin extends Enemy {
     @Override
     public void takeDamage(double dmg) {
         if (isDead()) return;
-        health -= dmg;
+        double health = getHealth() - dmg;
+        getWorld().setHealth(getEntity(), health);
         if (health <= 0) {
             setActive(false);
             setDead(true);
+            getEventBus().publish(EventBus.ENEMY_DIED, this, KIN_COIN);
             deactivateAndDropKey();
         }
     }
     /**
-     * Returns the current health of the KeyBulletKin.
-     *
-     * @return Current health value.
+     * Releases the sprites of the enemy and its key.
      */
     @Override
-    public double getHealth() {
-        return this.health;
-    }
-
-    private void followPath() {
-        if (path == null || path.isEmpty()) return;
-        Point target = path.get(currentTargetIndex);
-        double dx = target.x - getPosition().x;
-        double dy = target.y - getPosition().y;
-        double distance = Math.sqrt(dx * dx + dy * dy);
-
-        if (distance < SPEED) {
-            currentTargetIndex = (currentTargetIndex + 1) % path.size();
-            return;
-        }
-        dx /= distance;
-        dy /= distance;
-        setPosition(new Point(getPosition().x + dx * SPEED, getPosition().y + dy * SPEED));
+    public void dispose() {
+        super.dispose();
+        key.dispose();
     }
 
     private void deactivateAndDropKey() {
@@ -112,33 +97,30 @@ public class KeyBulletKin extends Enemy {
             key.setPosition(getPosition());
             key.setActive(true);
             keyDropped = true;
+            getEventBus().publish(EventBus.KEY_DROPPED, this, 0);
         }
     }
 
     /**
-     * Gets the current position of the enemy.
+     * Returns the key dropped by this enemy.
      *
-     * @return The position as a Point.
+     * @return The Key object.
      */
+    public Key getKey() { return key; }
+
     @Override
-    public Point getPosition() {
-        return super.getPosition();
+    void writeState(ByteBuffer out) {
+        super.writeState(out);
+        out.putInt(getWorld().getPathIndex(getEntity()));
+        GameSnapshot.putBoolean(out, keyDropped);
+        key.writeState(out);
     }
 
-    /**
-     * Sets the current position of the enemy.
-     *
-     * @param position New position as a Point.
-     */
     @Override
-    public void setPosition(Point position) {
-        super.setPosition(position);
+    void readState(ByteBuffer in) {
+        super.readState(in);
+        getWorld().setPathIndex(getEntity(), in.getInt());
+        keyDropped = GameSnapshot.getBoolean(in);
+        key.readState(in);
     }
-
-    /**
-     * Returns the key dropped by this enemy.
-     *
-     * @return The Key object.
-     */
-    public Key getKey() { return key; }
-}
\ No newline at end of file
+}
@@ -1,35 +1,34 @@
-import bagel.*;
+import bagel.Keys;
+import bagel.MouseButtons;
 import bagel.util.Point;
-import bagel.util.Rectangle;
-import java.util.ArrayList;
+
+import java.nio.ByteBuffer;
 
 
 /**
  * Represents the Marine character in the game.
  */
 public class Marine extends Character {
-    private static final Image SPRITE = new Image("res/marine_sprite.png");
-    private static final Image RIGHT_IMAGE = new Image("res/marine_right.png");
-    private static final Image LEFT_IMAGE = new Image("res/marine_left.png");
+    private static final Sprite SPRITE = SpriteRegistry.acquire("res/marine_sprite.png");
+    private static final Sprite RIGHT_IMAGE = SpriteRegistry.acquire("res/marine_right.png");
+    private static final Sprite LEFT_IMAGE = SpriteRegistry.acquire("res/marine_left.png");
 
     private final Point previewPosition;
     private boolean faceLeft = false;
     private boolean choosen = false;
     private boolean dead = false;
 
-    private ArrayList<Bullet> bullets = new ArrayList<Bullet>();
+    private final ProjectilePool bullets = new ProjectilePool(new Bullet(bulletSpeed, weaponDamage));
     private int shootCooldown = 0;
 
     /**
      * Creates a new Marine.
      *
+     * @param session  The game session the Marine belongs to.
      * @param position The starting position of the Marine.
      */
-    public Marine(Point position) {
-        super(position,
-                RIGHT_IMAGE,
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("initialHealth")),
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("movingSpeed")));
+    public Marine(GameSession session, Point position) {
+        super(session, position, RIGHT_IMAGE);
         this.previewPosition = position;
     }
 
@@ -39,28 +38,25 @@ public class Marine extends Character {
      * @param input The current input.
      */
     @Override
-    public void update(Input input) {
+    public void update(GameInput input) {
         double currX = getPosition().x;
         double currY = getPosition().y;
-        double speed = getSpeed();
+        double speed = getStats().getSpeed();
         if (input.isDown(Keys.A)) currX -= speed;
         if (input.isDown(Keys.D)) currX += speed;
         if (input.isDown(Keys.W)) currY -= speed;
         if (input.isDown(Keys.S)) currY += speed;
         faceLeft = input.getMouseX() < currX;
         setCurrImage(faceLeft ? LEFT_IMAGE : RIGHT_IMAGE);
-        Rectangle rect = getCurrImage().getBoundingBoxAt(new Point(currX, currY));
-        Point topLeft = rect.topLeft();
-        Point bottomRight = rect.bottomRight();
-        if (topLeft.x >= 0 && bottomRight.x <= Window.getWidth()
-                && topLeft.y >= 0 && bottomRight.y <= Window.getHeight()) {
+        double halfWidth = getCurrImage().getWidth() / 2;
+        double halfHeight = getCurrImage().getHeight() / 2;
+        if (currX - halfWidth >= 0 && currX + halfWidth <= ShadowDungeon.screenWidth
+                && currY - halfHeight >= 0 && currY + halfHeight <= ShadowDungeon.screenHeight) {
             move(currX, currY);
         }
         handleShooting(input);
-        for (Bullet b : bullets) {
-            b.update();
-            b.draw();
-        }
+        bullets.moveAll();
+        bullets.draw();
     }
 
     /**
@@ -68,15 +64,15 @@ public class Marine extends Character {
      *
      * @param input The current input.
      */
-    private void handleShooting(Input input) {
+    private void handleShooting(GameInput input) {
         if (shootCooldown > 0) {
             shootCooldown--;
         }
         if (input.isDown(MouseButtons.LEFT) && shootCooldown <= 0) {
             Point bulletStart = getBoundingBox().centre();
             Point target = new Point(input.getMouseX(), input.getMouseY());
-            bullets.add(new Bullet(bulletStart, this.weaponDamage, this.bulletSpeed, target.x, target.y));
-            shootCooldown = Integer.parseInt(ShadowDungeon.getGameProps().getProperty("bulletFreq"));
+            bullets.spawn(bulletStart, target, this.bulletSpeed, this.weaponDamage);
+            shootCooldown = ShadowDungeon.getConfig().getBulletFreq();
         }
     }
 
@@ -86,10 +82,10 @@ public class Marine extends Character {
      */
     @Override
     public void draw() {
-        UserInterface.drawStats(Character.getHealth(), Character.getCoins(),
-                (int)Character.getWeapon(), Character.getKey());
+        PlayerStats stats = getStats();
+        UserInterface.drawStats(stats.getHealth(), stats.getCoins(), (int) stats.getWeapon(), stats.getKey());
         if (choosen) {
-            getCurrImage().draw(getPosition().x, getPosition().y);
+            getCurrImage().draw(getPosition().x, getPosition().y, RenderQueue.CHARACTERS);
         }
     }
 
@@ -104,12 +100,12 @@ public class Marine extends Character {
     }
 
     /**
-     * Returns the list of bullets fired by the Marine.
+     * Returns the bullets fired by the Marine.
      *
-     * @return The list of bullets.
+     * @return The pool of bullets.
      */
     @Override
-    public ArrayList<Bullet> getBullets() {
+    public ProjectilePool getBullets() {
         return bullets;
     }
 
@@ -117,7 +113,7 @@ public class Marine extends Character {
      * Draws the Marine statue (preview).
      */
     public void drawStatue() {
-        SPRITE.draw(previewPosition.x, previewPosition.y);
+        SPRITE.draw(previewPosition.x, previewPosition.y, RenderQueue.CHARACTERS);
     }
 
     /**
@@ -147,4 +143,26 @@ public class Marine extends Character {
      * @return True if dead, false otherwise.
      */
     public boolean isDead() { return dead; }
+
+    @Override
+    void writeState(ByteBuffer out) {
+        super.writeState(out);
+        GameSnapshot.putBoolean(out, getCurrImage() == LEFT_IMAGE);
+        GameSnapshot.putBoolean(out, faceLeft);
+        GameSnapshot.putBoolean(out, choosen);
+        GameSnapshot.putBoolean(out, dead);
+        out.putInt(shootCooldown);
+        bullets.writeState(out);
+    }
+
+    @Override
+    void readState(ByteBuffer in) {
+        super.readState(in);
+        setCurrImage(GameSnapshot.getBoolean(in) ? LEFT_IMAGE : RIGHT_IMAGE);
+        faceLeft = GameSnapshot.getBoolean(in);
+        choosen = GameSnapshot.getBoolean(in);
+        dead = GameSnapshot.getBoolean(in);
+        shootCooldown = in.getInt();
+        bullets.readState(in);
+    }
 }
@@ -1,7 +1,7 @@
-import bagel.*;
+import bagel.Keys;
 import bagel.util.Point;
-import bagel.util.Rectangle;
-import java.util.ArrayList;
+
+import java.nio.ByteBuffer;
 
 /**
  * Represents the Default character in the game.
@@ -10,17 +10,18 @@ public class Player extends Character {
     private boolean faceLeft = false;
     private boolean choosen = false;
     private boolean dead = false;
-    private static final Image RIGHT_IMAGE = new Image("res/player_right.png");
-    private static final Image LEFT_IMAGE = new Image("res/player_left.png");
+    private static final Sprite RIGHT_IMAGE = SpriteRegistry.acquire("res/player_right.png");
+    private static final Sprite LEFT_IMAGE = SpriteRegistry.acquire("res/player_left.png");
 
     /**
      * Creates a new Player.
      *
+     * @param session  The game session the player belongs to.
      * @param position The starting position of the player.
      */
-    public Player(Point position) {
-        super(position, RIGHT_IMAGE, Double.parseDouble(ShadowDungeon.getGameProps().getProperty("initialHealth")), Double.parseDouble(ShadowDungeon.getGameProps().getProperty("movingSpeed")));
-        Character.earnCoins(0);
+    public Player(GameSession session, Point position) {
+        super(session, position, RIGHT_IMAGE);
+        getStats().earnCoins(0);
     }
 
     /**
@@ -29,22 +30,22 @@ public class Player extends Character {
      * @param input The current input.
      */
     @Override
-    public void update(Input input) {
+    public void update(GameInput input) {
         double currX = getPosition().x;
         double currY = getPosition().y;
+        double speed = getStats().getSpeed();
 
-        if (input.isDown(Keys.A)) currX -= getSpeed();
-        if (input.isDown(Keys.D)) currX += getSpeed();
-        if (input.isDown(Keys.W)) currY -= getSpeed();
-        if (input.isDown(Keys.S)) currY += getSpeed();
+        if (input.isDown(Keys.A)) currX -= speed;
+        if (input.isDown(Keys.D)) currX += speed;
+        if (input.isDown(Keys.W)) currY -= speed;
+        if (input.isDown(Keys.S)) currY += speed;
 
         faceLeft = input.getMouseX() < currX;
 
-        Rectangle rect = getCurrImage().getBoundingBoxAt(new Point(currX, currY));
-        Point topLeft = rect.topLeft();
-        Point bottomRight = rect.bottomRight();
-        if (topLeft.x >= 0 && bottomRight.x <= Window.getWidth()
-                && topLeft.y >= 0 && bottomRight.y <= Window.getHeight()) {
+        double halfWidth = getCurrImage().getWidth() / 2;
+        double halfHeight = getCurrImage().getHeight() / 2;
+        if (currX - halfWidth >= 0 && currX + halfWidth <= ShadowDungeon.screenWidth
+                && currY - halfHeight >= 0 && currY + halfHeight <= ShadowDungeon.screenHeight) {
             move(currX, currY);
         }
     }
@@ -66,9 +67,10 @@ public class Player extends Character {
      */
     @Override
     public void draw() {
-        UserInterface.drawStats(getHealth(), Character.getCoins(), (int)Character.getWeapon(), Character.getKey());
+        PlayerStats stats = getStats();
+        UserInterface.drawStats(stats.getHealth(), stats.getCoins(), (int) stats.getWeapon(), stats.getKey());
         setCurrImage(faceLeft ? LEFT_IMAGE : RIGHT_IMAGE);
-        getCurrImage().draw(getPosition().x, getPosition().y);
+        getCurrImage().draw(getPosition().x, getPosition().y, RenderQueue.CHARACTERS);
     }
 
     /**
@@ -77,7 +79,7 @@ public class Player extends Character {
      * @return {@code null}, as the player does not shoot.
      */
     @Override
-    public ArrayList<Bullet> getBullets() {
+    public ProjectilePool getBullets() {
         return null;
     }
 
@@ -123,4 +125,22 @@ public class Player extends Character {
      * @param dead True to mark as dead.
      */
     public void setDead(boolean dead) {this.dead = dead;}
+
+    @Override
+    void writeState(ByteBuffer out) {
+        super.writeState(out);
+        GameSnapshot.putBoolean(out, getCurrImage() == LEFT_IMAGE);
+        GameSnapshot.putBoolean(out, faceLeft);
+        GameSnapshot.putBoolean(out, choosen);
+        GameSnapshot.putBoolean(out, dead);
+    }
+
+    @Override
+    void readState(ByteBuffer in) {
+        super.readState(in);
+        setCurrImage(GameSnapshot.getBoolean(in) ? LEFT_IMAGE : RIGHT_IMAGE);
+        faceLeft = GameSnapshot.getBoolean(in);
+        choosen = GameSnapshot.getBoolean(in);
+        dead = GameSnapshot.getBoolean(in);
+    }
 }
@@ -0,0 +1,137 @@
+import java.nio.ByteBuffer;
+
+/**
+ * The stats shared by every character of one game session: health, coins, movement speed,
+ * weapon level and keys. Switching character in the prep room keeps them, and restarting the
+ * game resets them. Each {@link GameSession} has its own, so sessions never see each other's stats.
+ */
+public class PlayerStats {
+    private final EventBus events;
+    private double coins = 0;
+    private double health;
+    private double speed;
+    private double weapon = 0;
+    private int key = 0;
+
+    /**
+     * Creates the stats of a session.
+     *
+     * @param events The session's event bus, which {@link EventBus#COINS_EARNED} is published on.
+     */
+    public PlayerStats(EventBus events) {
+        this.events = events;
+    }
+
+    /**
+     * Resets the coins, keys and weapon, and sets the starting health and speed.
+     *
+     * @param startingHealth The health value to reset to.
+     * @param startingSpeed  The movement speed to reset to.
+     */
+    public void reset(double startingHealth, double startingSpeed) {
+        coins = 0;
+        key = 0;
+        weapon = 0;
+        health = startingHealth;
+        speed = startingSpeed;
+    }
+
+    /**
+     * Gets the health
+     * @return the current health
+     */
+    public double getHealth() { return health; }
+
+    /**
+     * Sets health
+     * @param h the new health value
+     */
+    public void setHealth(double h) { health = h; }
+
+    /**
+     * Gets the speed
+     * @return the movement speed
+     */
+    public double getSpeed() { return speed; }
+
+    /**
+     * Sets speed
+     * @param s the new movement speed
+     */
+    public void setSpeed(double s) { speed = s; }
+
+    /**
+     * Gets coins
+     * @return the total coins collected
+     */
+    public double getCoins() { return coins; }
+
+    /**
+     * Adds coins and publishes {@link EventBus#COINS_EARNED}
+     * @param amount the amount of coins to add, negative when coins are spent
+     */
+    public void earnCoins(double amount) {
+        coins += amount;
+        events.publish(EventBus.COINS_EARNED, null, amount);
+    }
+
+    /**
+     * Gets weapon
+     * @return the weapon level
+     */
+    public double getWeapon() { return weapon; }
+
+    /**
+     * Sets weapon
+     * @param weapon the new weapon level
+     */
+    public void setWeapon(int weapon) { this.weapon = weapon; }
+
+    /**
+     * Gets Key
+     * @return the total number of keys collected
+     */
+    public int getKey() { return key; }
+
+    /** @param k the new number of keys */
+    public void setKey(int k) { key = k; }
+
+    /**
+     * Mixes the stats into a hash.
+     *
+     * @param hash The hash so far.
+     * @return The new hash.
+     */
+    public long hashState(long hash) {
+        hash = StateHash.mix(hash, health);
+        hash = StateHash.mix(hash, coins);
+        hash = StateHash.mix(hash, weapon);
+        return StateHash.mix(hash, (long) key);
+    }
+
+    /**
+     * Writes the stats to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        out.putDouble(coins);
+        out.putDouble(health);
+        out.putDouble(speed);
+        out.putDouble(weapon);
+        out.putInt(key);
+    }
+
+    /**
+     * Reads the stats written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in) {
+        coins = in.getDouble();
+        health = in.getDouble();
+        speed = in.getDouble();
+        weapon = in.getDouble();
+        key = in.getInt();
+    }
+}
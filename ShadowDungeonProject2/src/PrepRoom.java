@@ -1,14 +1,11 @@
-import bagel.Input;
 import bagel.Keys;
 
-import java.util.Map;
-import java.util.Properties;
-import bagel.Image;
+import java.nio.ByteBuffer;
 
 /**
  * Room where the game starts
  */
-public class PrepRoom {
+public class PrepRoom extends Room {
     private Player player;
     private Robot robot;
     private Marine marine;
@@ -18,29 +15,30 @@ public class PrepRoom {
     private boolean stopCurrentUpdateCall = false;
     private boolean begin = false;
 
+    /**
+     * Creates the room.
+     *
+     * @param session The game session the room belongs to.
+     * @param name    The name of the room.
+     */
+    public PrepRoom(GameSession session, String name) {
+        super(session, name);
+    }
 
     /**
-     * Sets up the room entities from the game properties.
+     * Sets up the room entities from the room's template.
+     *
+     * @param template The room's layout, parsed once from the game properties.
      */
-    public void initEntities(Properties gameProperties) {
-        // find the configuration of game objects for this room
-        for (Map.Entry<Object, Object> entry: gameProperties.entrySet()) {
-            String roomSuffix = String.format(".%s", ShadowDungeon.PREP_ROOM_NAME);
-            if (entry.getKey().toString().contains(roomSuffix)) {
-                String objectType = entry.getKey().toString().substring(0, entry.getKey().toString().length() - roomSuffix.length());
-                String propertyValue = entry.getValue().toString();
-
-                switch (objectType) {
-                    case "door":
-                        String[] coordinates = propertyValue.split(",");
-                        door = new Door(IOUtils.parseCoords(propertyValue), coordinates[2]);
-                        break;
-                    case "restartarea":
-                        restartArea = new RestartArea(IOUtils.parseCoords(propertyValue));
-                        break;
-                    default:
-                }
-            }
+    @Override
+    public void initEntities(RoomTemplate template) {
+        RoomTemplate.Placement doorPlacement = template.getSingle("door");
+        if (doorPlacement != null) {
+            door = new Door(getSession(), doorPlacement.getPosition(), doorPlacement.getExtra());
+        }
+        RoomTemplate.Placement restartPlacement = template.getSingle("restartarea");
+        if (restartPlacement != null) {
+            restartArea = new RestartArea(getSession(), restartPlacement.getPosition());
         }
     }
 
@@ -48,14 +46,15 @@ public class PrepRoom {
      * Updates the room each frame.
      * Handles character switching, movement, and drawing.
      */
-    public void update(Input input) {
+    @Override
+    public void update(GameInput input) {
         UserInterface.drawStartMessages();
 
         if (currCharacter == null) {
-            currCharacter = ShadowDungeon.getCurrCharacter();
+            currCharacter = getSession().getCurrCharacter();
             if (currCharacter == null) {
                 currCharacter = player; // fallback first time
-                ShadowDungeon.setCurrCharacter(player);
+                getSession().setCurrCharacter(player);
             }
         }
 
@@ -98,7 +97,7 @@ public class PrepRoom {
         if (input.wasPressed(Keys.M) && marine != null) {
             marine.move(currCharacter.getPosition().x, currCharacter.getPosition().y);
             currCharacter = marine;
-            ShadowDungeon.setCurrCharacter(marine);
+            getSession().setCurrCharacter(marine);
             marine.setChoosen(true);
             if (robot != null) robot.setChoosen(false);
             if (player != null) player.setChoosen(false);
@@ -108,7 +107,7 @@ public class PrepRoom {
         if (input.wasPressed(Keys.R) && robot != null) {
             robot.move(currCharacter.getPosition().x, currCharacter.getPosition().y);
             currCharacter = robot;
-            ShadowDungeon.setCurrCharacter(robot);
+            getSession().setCurrCharacter(robot);
             robot.setChoosen(true);
             if (marine != null) marine.setChoosen(false);
             if (player != null) player.setChoosen(false);
@@ -124,6 +123,15 @@ public class PrepRoom {
         }
     }
 
+    /**
+     * Releases the sprites used by the room.
+     */
+    @Override
+    public void dispose() {
+        if (door != null) door.dispose();
+        if (restartArea != null) restartArea.dispose();
+    }
+
     private boolean stopUpdatingEarlyIfNeeded() {
         if (stopCurrentUpdateCall) {
             player = null;
@@ -132,6 +140,38 @@ public class PrepRoom {
         }
         return false;
     }
+    /**
+     * Writes the state of the room to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    @Override
+    void writeState(ByteBuffer out) {
+        out.put((byte) getSession().getCharacterId(player));
+        out.put((byte) getSession().getCharacterId(robot));
+        out.put((byte) getSession().getCharacterId(marine));
+        out.put((byte) getSession().getCharacterId(currCharacter));
+        GameSnapshot.putBoolean(out, stopCurrentUpdateCall);
+        GameSnapshot.putBoolean(out, begin);
+        if (door != null) door.writeState(out);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param in The buffer to read from.
+     */
+    @Override
+    void readState(ByteBuffer in) {
+        player = (Player) getSession().getCharacterById(in.get());
+        robot = (Robot) getSession().getCharacterById(in.get());
+        marine = (Marine) getSession().getCharacterById(in.get());
+        currCharacter = getSession().getCharacterById(in.get());
+        stopCurrentUpdateCall = GameSnapshot.getBoolean(in);
+        begin = GameSnapshot.getBoolean(in);
+        if (door != null) door.readState(in);
+    }
+
     /**
      * Sets the player.
      */
@@ -155,6 +195,7 @@ public class PrepRoom {
     /**
      *  Flags the update to stop next call.
      */
+    @Override
     public void stopCurrentUpdateCall() { stopCurrentUpdateCall = true; }
 
     /**
@@ -166,4 +207,19 @@ public class PrepRoom {
      *  Returns the door.
      */
     public Door findDoorByDestination() { return door; }
+
+    /**
+     * Moves a character into the room through its only door.
+     *
+     * @param fromRoomName The room the character is leaving.
+     * @param character    The character entering.
+     */
+    @Override
+    public void enter(String fromRoomName, Character character) {
+        Door nextDoor = findDoorByDestination();
+        // move the player to the center of the next room's door
+        nextDoor.unlock(true);
+        character.move(nextDoor.getPosition().x, nextDoor.getPosition().y);
+        setCurrCharacter(character);
+    }
 }
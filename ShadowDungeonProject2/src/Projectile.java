@@ -1,149 +1,158 @@
-import bagel.Image;
-import bagel.util.Point;
-import bagel.util.Rectangle;
-
+import java.util.ArrayList;
 import java.util.List;
 
-
 /**
- * Base class for all projectiles in the game.
- * Handles movement, collision, and drawing.
+ * Base class for all types of projectile in the game.
+ * Holds the sprite shared by every projectile of the type and handles movement,
+ * collision, and drawing for projectiles stored in a {@link ProjectilePool}.
+ *
+ * What a projectile does when it hits something is looked up in a table of {@link CollisionResponse}
+ * bits indexed by the {@link CollisionMask} layer of the object it hit, which each type fills in
+ * with {@link #setResponse(int, int)}. Layers without a response are ignored.
  */
 public abstract class Projectile {
-    protected Image image;
-    protected Point position;
-    protected double dx, dy;
-    protected final double speed;
-    protected double damage;
-    protected boolean active = true;
+    private final Sprite sprite;
+    private final double speed;
+    private final double damage;
+    private final int[] responses = new int[CollisionMask.LAYER_COUNT];
+    private int collisionMask = CollisionMask.NONE;
+    private final List<GameObject> nearby = new ArrayList<>();
+    private final AABB box = new AABB();
 
     /**
-     * Creates a projectile that moves toward a target position.
+     * Creates a projectile type.
      *
-     * @param startPos  Starting position of the projectile.
-     * @param damage    Damage the projectile deals.
-     * @param speed     Speed of the projectile.
-     * @param targetX   X coordinate of the target.
-     * @param targetY   Y coordinate of the target.
-     * @param imagePath Path to the projectile image.
+     * @param sprite Sprite shared by all projectiles of this type.
+     * @param speed  Default speed of the projectiles.
+     * @param damage Default damage the projectiles deal.
      */
-    public Projectile(Point startPos, double damage, double speed, double targetX, double targetY, String imagePath) {
-        this.position = new Point(startPos.x, startPos.y);
-        this.damage = damage;
+    protected Projectile(Sprite sprite, double speed, double damage) {
+        this.sprite = sprite;
         this.speed = speed;
-        this.image = new Image(imagePath);
-        double vx = targetX - startPos.x;
-        double vy = targetY - startPos.y;
-        double length = Math.sqrt(vx * vx + vy * vy);
-
-        if (length != 0) {
-            dx = (vx / length) * speed;
-            dy = (vy / length) * speed;
-        } else {
-            dx = 0;
-            dy = 0;
-        }
-    }
-
-    /**
-     *  Moves the projectile each frame.
-     */
-    public void update() {
-        if (!active) return;
-        position = new Point(position.x + dx, position.y + dy);
-    }
-
-    /**
-     * Draws the projectile if it’s active.
-     */
-    public void draw() {
-        if (active) image.draw(position.x, position.y);
+        this.damage = damage;
     }
 
     /**
-     * Returns the bounding box of the projectile based on its current position.
+     * Sets how projectiles of this type respond to hitting objects in the given layer.
      *
-     * @return a Rectangle representing the projectile's current bounding box
+     * @param layer    A single {@link CollisionMask} layer bit.
+     * @param response A combination of {@link CollisionResponse} bits, or 0 to ignore the layer.
      */
-    public Rectangle getBoundingBox() {
-        return image.getBoundingBoxAt(position);
-    }
-
-    /**
-     * Checks if the projectile has moved off-screen.
-     * @param screenWidth the width of the game screen in pixels
-     * @param screenHeight the height of the game screen in pixels
-     * @return true if the projectile is out of bounds
-     *         false otherwise
-     */
-    public boolean isOutOfBounds(int screenWidth, int screenHeight) {
-        return position.x < 0 || position.x > screenWidth || position.y < 0 || position.y > screenHeight;
+    protected void setResponse(int layer, int response) {
+        responses[CollisionMask.indexOf(layer)] = response;
+        if (response != 0) {
+            collisionMask |= layer;
+        } else {
+            collisionMask &= ~layer;
+        }
     }
 
     /**
-     * Updates the projectile and checks for collisions with enemies or environment
-     * @param player the player character associated with the projectile
+     * Updates a projectile and checks for collisions with the environment, enemies and the player.
+     * Only the first environment object hit is handled, and enemies and the player are only checked
+     * if the projectile is still active afterwards.
+     * @param pool the pool holding the projectile
+     * @param index the slot of the projectile in the pool
+     * @param player the player character
      * @param enemies the list of enemies in the game world
-     * @param environment the list of environmental objects that can block or be hit by the projectile
+     * @param layers the collision layers of the room
      * @param screenWidth the width of the game screen in pixels
      * @param screenHeight the height of the game screen in pixels
      */
     public void updateAndCheckCollisions(
+            ProjectilePool pool,
+            int index,
             Character player,
             List<Enemy> enemies,
-            List<GameObject> environment,
+            CollisionLayers layers,
             double screenWidth,
             double screenHeight
     )
     {
-        if (!active) return;
-        update();
-        draw();
-        for (GameObject obj : environment) {
-            if (!obj.isDestroyed() && getBoundingBox().intersects(obj.getBoundingBox())) {
-                handleEnvironmentCollision(obj);
-                return;
+        if (!pool.isActive(index)) return;
+        pool.move(index);
+        pool.draw(index);
+        if (!checkEnvironment(pool, index, player, layers)
+                && pool.isOutOfBounds(index, (int)screenWidth, (int)screenHeight)) {
+            pool.deactivate(index);
+        }
+
+        if (pool.isActive(index) && (collisionMask & (CollisionMask.ENEMY | CollisionMask.KEY_ENEMY)) != 0) {
+            for (int i = 0; i < enemies.size(); i++) {
+                Enemy enemy = enemies.get(i);
+                if ((enemy.getCollisionLayer() & collisionMask) != 0 && enemy.isActive() && !enemy.isDead()
+                        && pool.intersects(index, enemy.getBounds())) {
+                    respond(pool, index, player, enemy);
+                    break;
+                }
             }
         }
 
-        // If out of bounds
-        if (isOutOfBounds((int)screenWidth, (int)screenHeight)) {
-            deactivate();
-            return;
+        if (pool.isActive(index) && (collisionMask & CollisionMask.PLAYER) != 0
+                && pool.intersects(index, player.getBounds())) {
+            int response = responses[CollisionMask.indexOf(CollisionMask.PLAYER)];
+            player.getSession().getEvents().publish(EventBus.PROJECTILE_HIT, player, pool.getDamage(index));
+            if ((response & CollisionResponse.DAMAGE) != 0) player.takeDamage(pool.getDamage(index));
+            if ((response & CollisionResponse.BLOCK) != 0) pool.deactivate(index);
         }
+    }
 
+    private boolean checkEnvironment(ProjectilePool pool, int index, Character player, CollisionLayers layers) {
+        pool.getBounds(index, box);
+        nearby.clear();
+        layers.getSolids().query(box, nearby);
+        for (int i = 0; i < nearby.size(); i++) {
+            GameObject obj = nearby.get(i);
+            if ((obj.getCollisionLayer() & collisionMask) != 0 && box.intersects(obj.getBounds())) {
+                respond(pool, index, player, obj);
+                return true;
+            }
+        }
+        List<GameObject> lockedDoors = layers.getLockedDoors();
+        for (int i = 0; i < lockedDoors.size(); i++) {
+            GameObject obj = lockedDoors.get(i);
+            if ((obj.getCollisionLayer() & collisionMask) != 0 && box.intersects(obj.getBounds())) {
+                respond(pool, index, player, obj);
+                return true;
+            }
+        }
+        return false;
     }
 
-    private void handleEnvironmentCollision(GameObject obj) {
-        deactivate();
+    private void respond(ProjectilePool pool, int index, Character player, GameObject obj) {
+        // objects in a layer answered with REWARD must be Earnable
+        int response = responses[CollisionMask.indexOf(obj.getCollisionLayer())];
+        player.getSession().getEvents().publish(EventBus.PROJECTILE_HIT, obj, pool.getDamage(index));
+        if ((response & CollisionResponse.DESTROY) != 0) obj.destroy();
+        if ((response & CollisionResponse.REWARD) != 0) player.getStats().earnCoins(((Earnable) obj).getCoins());
+        if ((response & CollisionResponse.BLOCK) != 0) pool.deactivate(index);
+    }
+
+    private void respond(ProjectilePool pool, int index, Character player, Enemy enemy) {
+        int response = responses[CollisionMask.indexOf(enemy.getCollisionLayer())];
+        player.getSession().getEvents().publish(EventBus.PROJECTILE_HIT, enemy, pool.getDamage(index));
+        if ((response & CollisionResponse.DAMAGE) != 0) enemy.takeDamage(pool.getDamage(index));
+        if ((response & CollisionResponse.BLOCK) != 0) pool.deactivate(index);
+        if ((response & CollisionResponse.REWARD) != 0 && enemy.isDead()) {
+            player.getStats().earnCoins(enemy.getCoin() + player.getBonusCoins());
+        }
     }
 
     /**
-     * Checks if the projectile is still active.
-     * @return true if the projectile is active, false if it has been deactivated.
+     * Gets the sprite
+     * @return the sprite shared by projectiles of this type.
      */
-    public boolean isActive() { return active; }
+    public Sprite getSprite() { return sprite; }
 
     /**
-     * Deactivates the projectile.
+     * Gets the speed
+     * @return the default speed of projectiles of this type.
      */
-    public void deactivate() { active = false; }
+    public double getSpeed() { return speed; }
 
     /**
      * Gets the damage
-     * @return the projectile’s damage value.
+     * @return the default damage of projectiles of this type.
      */
     public double getDamage() { return damage; }
-
-    /**
-     * Gets position
-     * @return the projectile’s position.
-     */
-    public Point getPosition() { return position; }
-
-    /**
-     * Sets the projectile’s damage value.
-     * @param damage the damage caused by projectile
-     */
-    public void setDamage(double damage) { this.damage = damage; }
 }
@@ -0,0 +1,375 @@
+import bagel.util.Point;
+import bagel.util.Rectangle;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores every live projectile of one type in parallel arrays.
+ * Slots of deactivated projectiles are reused by later shots, so once the pool has grown to the
+ * number of projectiles alive at the same time, firing and moving projectiles allocates nothing.
+ */
+public class ProjectilePool {
+    private static final int INITIAL_CAPACITY = 16;
+    private final Projectile type;
+    private double[] x;
+    private double[] y;
+    private double[] dx;
+    private double[] dy;
+    private double[] damage;
+    private boolean[] active;
+    private int[] freeSlots;
+    private int freeCount = 0;
+    private int size = 0;
+    private int activeCount = 0;
+
+    /**
+     * Creates an empty pool for projectiles of the given type.
+     *
+     * @param type The type of projectile stored in this pool.
+     */
+    public ProjectilePool(Projectile type) {
+        this.type = type;
+        x = new double[INITIAL_CAPACITY];
+        y = new double[INITIAL_CAPACITY];
+        dx = new double[INITIAL_CAPACITY];
+        dy = new double[INITIAL_CAPACITY];
+        damage = new double[INITIAL_CAPACITY];
+        active = new boolean[INITIAL_CAPACITY];
+        freeSlots = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Fires a projectile using the default speed and damage of the pool's type.
+     *
+     * @param start  Starting position of the projectile.
+     * @param target Position the projectile is aimed at.
+     * @return The slot of the new projectile.
+     */
+    public int spawn(Point start, Point target) {
+        return spawn(start, target, type.getSpeed(), type.getDamage());
+    }
+
+    /**
+     * Fires a projectile from a position given as coordinates, using the default speed and damage of
+     * the pool's type, so callers that keep positions in arrays need not allocate a point.
+     *
+     * @param startX The x coordinate the projectile starts at.
+     * @param startY The y coordinate the projectile starts at.
+     * @param target Position the projectile is aimed at.
+     * @return The slot of the new projectile.
+     */
+    public int spawn(double startX, double startY, Point target) {
+        return spawn(startX, startY, target, type.getSpeed(), type.getDamage());
+    }
+
+    /**
+     * Fires a projectile that moves from the start position towards the target.
+     *
+     * @param start  Starting position of the projectile.
+     * @param target Position the projectile is aimed at.
+     * @param speed  Distance the projectile moves each frame.
+     * @param dmg    Damage the projectile deals.
+     * @return The slot of the new projectile.
+     */
+    public int spawn(Point start, Point target, double speed, double dmg) {
+        return spawn(start.x, start.y, target, speed, dmg);
+    }
+
+    private int spawn(double startX, double startY, Point target, double speed, double dmg) {
+        int index;
+        if (freeCount > 0) {
+            index = freeSlots[--freeCount];
+        } else {
+            if (size == active.length) {
+                grow();
+            }
+            index = size++;
+        }
+        double vx = target.x - startX;
+        double vy = target.y - startY;
+        double length = Math.sqrt(vx * vx + vy * vy);
+
+        x[index] = startX;
+        y[index] = startY;
+        if (length != 0) {
+            dx[index] = (vx / length) * speed;
+            dy[index] = (vy / length) * speed;
+        } else {
+            dx[index] = 0;
+            dy[index] = 0;
+        }
+        damage[index] = dmg;
+        active[index] = true;
+        activeCount++;
+        return index;
+    }
+
+    private void grow() {
+        int capacity = active.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        dx = Arrays.copyOf(dx, capacity);
+        dy = Arrays.copyOf(dy, capacity);
+        damage = Arrays.copyOf(damage, capacity);
+        active = Arrays.copyOf(active, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+    /**
+     * Updates every active projectile and checks it for collisions.
+     *
+     * @param player       The player character.
+     * @param enemies      The enemies in the room.
+     * @param layers       The collision layers of the room.
+     * @param screenWidth  The width of the game screen.
+     * @param screenHeight The height of the game screen.
+     */
+    public void updateAndCheckCollisions(Character player, List<Enemy> enemies, CollisionLayers layers,
+                                         double screenWidth, double screenHeight) {
+        for (int i = 0; i < size; i++) {
+            if (active[i]) {
+                type.updateAndCheckCollisions(this, i, player, enemies, layers, screenWidth, screenHeight);
+            }
+        }
+    }
+
+    /**
+     * Moves the projectile in the given slot by one frame.
+     *
+     * @param index The slot of the projectile.
+     */
+    public void move(int index) {
+        if (!active[index]) return;
+        x[index] += dx[index];
+        y[index] += dy[index];
+    }
+
+    /**
+     * Moves every active projectile by one frame.
+     */
+    public void moveAll() {
+        for (int i = 0; i < size; i++) {
+            move(i);
+        }
+    }
+
+    /**
+     * Draws the projectile in the given slot if it is active.
+     *
+     * @param index The slot of the projectile.
+     */
+    public void draw(int index) {
+        if (active[index]) type.getSprite().draw(x[index], y[index], RenderQueue.PROJECTILES);
+    }
+
+    /**
+     * Draws every active projectile.
+     */
+    public void draw() {
+        for (int i = 0; i < size; i++) {
+            draw(i);
+        }
+    }
+
+    /**
+     * Returns the bounding box of the projectile in the given slot.
+     *
+     * @param index The slot of the projectile.
+     * @return The bounding box.
+     */
+    public Rectangle getBoundingBox(int index) {
+        return type.getSprite().getBoundingBoxAt(x[index], y[index]);
+    }
+
+    /**
+     * Moves the given box onto the projectile in the given slot, without allocating.
+     *
+     * @param index The slot of the projectile.
+     * @param box   The box to update.
+     */
+    public void getBounds(int index, AABB box) {
+        box.setCentred(x[index], y[index], type.getSprite());
+    }
+
+    /**
+     * Checks whether the projectile in the given slot overlaps a box.
+     *
+     * @param index The slot of the projectile.
+     * @param box   The box to test against.
+     * @return True if they overlap.
+     */
+    public boolean intersects(int index, AABB box) {
+        Sprite sprite = type.getSprite();
+        double halfWidth = sprite.getWidth() / 2;
+        double halfHeight = sprite.getHeight() / 2;
+        return AABB.intersects(x[index] - halfWidth, y[index] - halfHeight, x[index] + halfWidth, y[index] + halfHeight,
+                box.getMinX(), box.getMinY(), box.getMaxX(), box.getMaxY());
+    }
+
+    /**
+     * Checks if the projectile in the given slot has moved off-screen.
+     *
+     * @param index        The slot of the projectile.
+     * @param screenWidth  The width of the game screen in pixels.
+     * @param screenHeight The height of the game screen in pixels.
+     * @return True if the projectile is out of bounds.
+     */
+    public boolean isOutOfBounds(int index, int screenWidth, int screenHeight) {
+        return x[index] < 0 || x[index] > screenWidth || y[index] < 0 || y[index] > screenHeight;
+    }
+
+    /**
+     * Deactivates every projectile that has moved off-screen.
+     *
+     * @param screenWidth  The width of the game screen in pixels.
+     * @param screenHeight The height of the game screen in pixels.
+     */
+    public void deactivateOutOfBounds(int screenWidth, int screenHeight) {
+        for (int i = 0; i < size; i++) {
+            if (active[i] && isOutOfBounds(i, screenWidth, screenHeight)) {
+                deactivate(i);
+            }
+        }
+    }
+
+    /**
+     * Deactivates the projectile in the given slot so the slot can be reused.
+     *
+     * @param index The slot of the projectile.
+     */
+    public void deactivate(int index) {
+        if (!active[index]) return;
+        active[index] = false;
+        freeSlots[freeCount++] = index;
+        activeCount--;
+    }
+
+    /**
+     * Deactivates every projectile in the pool.
+     */
+    public void clear() {
+        Arrays.fill(active, 0, size, false);
+        size = 0;
+        freeCount = 0;
+        activeCount = 0;
+    }
+
+    /**
+     * Checks if the projectile in the given slot is active.
+     *
+     * @param index The slot of the projectile.
+     * @return True if active.
+     */
+    public boolean isActive(int index) { return active[index]; }
+
+    /**
+     * Gets the x-coordinate of the projectile in the given slot.
+     *
+     * @param index The slot of the projectile.
+     * @return The x-coordinate.
+     */
+    public double getX(int index) { return x[index]; }
+
+    /**
+     * Gets the y-coordinate of the projectile in the given slot.
+     *
+     * @param index The slot of the projectile.
+     * @return The y-coordinate.
+     */
+    public double getY(int index) { return y[index]; }
+
+    /**
+     * Gets the damage of the projectile in the given slot.
+     *
+     * @param index The slot of the projectile.
+     * @return The damage value.
+     */
+    public double getDamage(int index) { return damage[index]; }
+
+    /**
+     * Sets the damage of every projectile in the pool, e.g. after a weapon upgrade.
+     *
+     * @param dmg The new damage value.
+     */
+    public void setAllDamage(double dmg) { Arrays.fill(damage, 0, size, dmg); }
+
+    /**
+     * Gets the number of slots in use, including inactive ones waiting to be reused.
+     * Valid slots are numbered from 0 up to this value.
+     *
+     * @return The number of slots in use.
+     */
+    public int size() { return size; }
+
+    /**
+     * Gets the number of active projectiles.
+     *
+     * @return The active projectile count.
+     */
+    public int getActiveCount() { return activeCount; }
+
+    /**
+     * Checks whether the pool holds no active projectiles.
+     *
+     * @return True if there are no active projectiles.
+     */
+    public boolean isEmpty() { return activeCount == 0; }
+
+    /**
+     * Gets the type of projectile stored in the pool.
+     *
+     * @return The projectile type.
+     */
+    public Projectile getType() { return type; }
+
+    /**
+     * Writes every slot of the pool to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        out.putInt(size);
+        out.putInt(freeCount);
+        out.putInt(activeCount);
+        for (int i = 0; i < size; i++) {
+            out.putDouble(x[i]);
+            out.putDouble(y[i]);
+            out.putDouble(dx[i]);
+            out.putDouble(dy[i]);
+            out.putDouble(damage[i]);
+            GameSnapshot.putBoolean(out, active[i]);
+        }
+        for (int i = 0; i < freeCount; i++) {
+            out.putInt(freeSlots[i]);
+        }
+    }
+
+    /**
+     * Reads the slots written by {@link #writeState(ByteBuffer)}, growing the pool if needed.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in) {
+        clear();
+        int restoredSize = in.getInt();
+        while (active.length < restoredSize) {
+            grow();
+        }
+        size = restoredSize;
+        freeCount = in.getInt();
+        activeCount = in.getInt();
+        for (int i = 0; i < size; i++) {
+            x[i] = in.getDouble();
+            y[i] = in.getDouble();
+            dx[i] = in.getDouble();
+            dy[i] = in.getDouble();
+            damage[i] = in.getDouble();
+            active[i] = GameSnapshot.getBoolean(in);
+        }
+        for (int i = 0; i < freeCount; i++) {
+            freeSlots[i] = in.getInt();
+        }
+    }
+}
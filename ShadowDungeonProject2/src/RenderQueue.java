@@ -0,0 +1,240 @@
+import bagel.Font;
+
+import java.util.Arrays;
+
+/**
+ * Collects everything drawn during a frame and draws it in one go at the end of the frame.
+ * Game logic submits sprite and text commands in any order while it updates; {@link #flush()}
+ * then draws them sorted by layer. Within a layer, commands using the same texture (sprite or font)
+ * are drawn back to back as one batch, with textures in the order they were first submitted
+ * that frame, so e.g. all river tiles are drawn together instead of switching textures per tile.
+ * Nothing is queued when the game is running headless.
+ */
+public class RenderQueue {
+    public static final int BACKGROUND = 0;
+    public static final int ENVIRONMENT = 1;
+    public static final int ITEMS = 2;
+    public static final int ENEMIES = 3;
+    public static final int PROJECTILES = 4;
+    public static final int CHARACTERS = 5;
+    public static final int UI = 6;
+    public static final int OVERLAY = 7;
+    private static final int LAYER_COUNT = 8;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static Sprite[] sprites = new Sprite[INITIAL_CAPACITY];
+    private static Font[] fonts = new Font[INITIAL_CAPACITY];
+    private static String[] texts = new String[INITIAL_CAPACITY];
+    private static double[] xs = new double[INITIAL_CAPACITY];
+    private static double[] ys = new double[INITIAL_CAPACITY];
+    private static int[] layers = new int[INITIAL_CAPACITY];
+    private static int[] textureRanks = new int[INITIAL_CAPACITY];
+    private static int[] byTexture = new int[INITIAL_CAPACITY];
+    private static int[] rankStart = new int[INITIAL_CAPACITY + 1];
+    private static int[] order = new int[INITIAL_CAPACITY];
+    private static final int[] layerStart = new int[LAYER_COUNT + 1];
+    private static Font[] frameFonts = new Font[4];
+    private static int[] frameFontRanks = new int[4];
+    private static int frameFontCount = 0;
+    private static int count = 0;
+    private static int frame = 0;
+    private static int lastDrawCount = 0;
+    private static int lastBatchCount = 0;
+    private static long totalDrawCount = 0;
+    private static long totalBatchCount = 0;
+
+    /**
+     * Queues a sprite to be drawn centred at the given position.
+     *
+     * @param sprite The sprite to draw.
+     * @param x      The x-coordinate of the centre.
+     * @param y      The y-coordinate of the centre.
+     * @param layer  The layer to draw the sprite on.
+     */
+    public static void submit(Sprite sprite, double x, double y, int layer) {
+        int index = add(x, y, layer);
+        sprites[index] = sprite;
+    }
+
+    /**
+     * Queues a string to be drawn with its bottom-left corner at the given position.
+     *
+     * @param font  The font to draw the text with.
+     * @param text  The text to draw.
+     * @param x     The x-coordinate of the text.
+     * @param y     The y-coordinate of the text's baseline.
+     * @param layer The layer to draw the text on.
+     */
+    public static void submitText(Font font, String text, double x, double y, int layer) {
+        int index = add(x, y, layer);
+        fonts[index] = font;
+        texts[index] = text;
+    }
+
+    private static int add(double x, double y, int layer) {
+        if (count == layers.length) {
+            grow();
+        }
+        xs[count] = x;
+        ys[count] = y;
+        layers[count] = layer;
+        return count++;
+    }
+
+    private static void grow() {
+        int capacity = layers.length * 2;
+        sprites = Arrays.copyOf(sprites, capacity);
+        fonts = Arrays.copyOf(fonts, capacity);
+        texts = Arrays.copyOf(texts, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        layers = Arrays.copyOf(layers, capacity);
+        textureRanks = new int[capacity];
+        byTexture = new int[capacity];
+        rankStart = new int[capacity + 1];
+        order = new int[capacity];
+    }
+
+    // numbers each texture in the order it is first seen this frame
+    private static int rankTextures() {
+        frame++;
+        frameFontCount = 0;
+        int rankCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (texts[i] == null) {
+                Sprite sprite = sprites[i];
+                if (sprite.queueFrame != frame) {
+                    sprite.queueFrame = frame;
+                    sprite.queueRank = rankCount++;
+                }
+                textureRanks[i] = sprite.queueRank;
+            } else {
+                textureRanks[i] = fontRank(fonts[i], rankCount);
+                if (textureRanks[i] == rankCount) rankCount++;
+            }
+        }
+        return rankCount;
+    }
+
+    private static int fontRank(Font font, int nextRank) {
+        for (int i = 0; i < frameFontCount; i++) {
+            if (frameFonts[i] == font) return frameFontRanks[i];
+        }
+        if (frameFontCount == frameFonts.length) {
+            frameFonts = Arrays.copyOf(frameFonts, frameFontCount * 2);
+            frameFontRanks = Arrays.copyOf(frameFontRanks, frameFontCount * 2);
+        }
+        frameFonts[frameFontCount] = font;
+        frameFontRanks[frameFontCount++] = nextRank;
+        return nextRank;
+    }
+
+    /**
+     * Draws every queued command from the lowest layer to the highest and empties the queue.
+     * Must be called once per frame, after the game has been updated.
+     */
+    public static void flush() {
+        // two stable counting sorts, by texture then by layer, so nothing is allocated
+        int rankCount = rankTextures();
+        Arrays.fill(rankStart, 0, rankCount + 1, 0);
+        for (int i = 0; i < count; i++) {
+            rankStart[textureRanks[i] + 1]++;
+        }
+        for (int rank = 0; rank < rankCount; rank++) {
+            rankStart[rank + 1] += rankStart[rank];
+        }
+        for (int i = 0; i < count; i++) {
+            byTexture[rankStart[textureRanks[i]]++] = i;
+        }
+
+        Arrays.fill(layerStart, 0);
+        for (int i = 0; i < count; i++) {
+            layerStart[layers[i] + 1]++;
+        }
+        for (int layer = 0; layer < LAYER_COUNT; layer++) {
+            layerStart[layer + 1] += layerStart[layer];
+        }
+        for (int i = 0; i < count; i++) {
+            int command = byTexture[i];
+            order[layerStart[layers[command]]++] = command;
+        }
+
+        int batches = 0;
+        int previousRank = -1;
+        for (int i = 0; i < count; i++) {
+            int command = order[i];
+            if (textureRanks[command] != previousRank) {
+                previousRank = textureRanks[command];
+                batches++;
+            }
+            if (texts[command] != null) {
+                fonts[command].drawString(texts[command], xs[command], ys[command]);
+            } else {
+                sprites[command].render(xs[command], ys[command]);
+            }
+        }
+        lastDrawCount = count;
+        lastBatchCount = batches;
+        totalDrawCount += count;
+        totalBatchCount += batches;
+        clear();
+    }
+
+    /**
+     * Discards every queued command without drawing it.
+     */
+    public static void clear() {
+        Arrays.fill(sprites, 0, count, null);
+        Arrays.fill(fonts, 0, count, null);
+        Arrays.fill(texts, 0, count, null);
+        Arrays.fill(frameFonts, 0, frameFontCount, null);
+        frameFontCount = 0;
+        count = 0;
+    }
+
+    /**
+     * Gets the number of sprites and strings drawn by the last flush.
+     *
+     * @return The draw count of the last frame.
+     */
+    public static int getLastDrawCount() {
+        return lastDrawCount;
+    }
+
+    /**
+     * Gets the number of texture batches drawn by the last flush, i.e. how many times the texture
+     * changed between consecutive draws.
+     *
+     * @return The batch count of the last frame.
+     */
+    public static int getLastBatchCount() {
+        return lastBatchCount;
+    }
+
+    /**
+     * Gets the number of sprites and strings drawn since the game started.
+     *
+     * @return The total draw count.
+     */
+    public static long getTotalDrawCount() {
+        return totalDrawCount;
+    }
+
+    /**
+     * Gets the number of texture batches drawn since the game started.
+     *
+     * @return The total batch count.
+     */
+    public static long getTotalBatchCount() {
+        return totalBatchCount;
+    }
+
+    /**
+     * Gets the number of commands waiting to be drawn.
+     *
+     * @return The queued command count.
+     */
+    public static int size() {
+        return count;
+    }
+}
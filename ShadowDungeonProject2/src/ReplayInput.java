@@ -0,0 +1,167 @@
+import bagel.Keys;
+import bagel.MouseButtons;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Game input that plays back a recording made by {@link InputRecorder}, one frame per step,
+ * and checks after every frame that the game state matches the checksum stored with it.
+ * Once the recording runs out, no keys or buttons are held.
+ */
+public class ReplayInput implements GameInput {
+    private static final int KEY_WORDS = InputRecorder.KEY_WORDS;
+    private DataInputStream in;
+    private final String recordingFile;
+    private final GameSession session;
+    private final long[] keysDown = new long[KEY_WORDS];
+    private final long[] keysPressed = new long[KEY_WORDS];
+    private int buttonsDown;
+    private int buttonsPressed;
+    private double mouseX;
+    private double mouseY;
+    private int expectedChecksum;
+    private int nextFlags;
+    private boolean frameLoaded = false;
+    private long framesPlayed = 0;
+    private long firstDivergentFrame = -1;
+
+    /**
+     * Opens a recording for playback.
+     *
+     * @param recordingFile The path of the recording.
+     * @param session       The session the recording is played to, whose state is checked against it each frame.
+     */
+    public ReplayInput(String recordingFile, GameSession session) {
+        this.recordingFile = recordingFile;
+        this.session = session;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(recordingFile)));
+            if (in.readInt() != InputRecorder.MAGIC) {
+                throw new IOException(recordingFile + " is not an input recording");
+            }
+            int version = in.readUnsignedShort();
+            if (version != InputRecorder.VERSION) {
+                throw new IOException(recordingFile + " has unsupported version " + version);
+            }
+            if (in.readUnsignedShort() != InputRecorder.KEYS.length
+                    || in.readUnsignedByte() != InputRecorder.BUTTONS.length) {
+                throw new IOException(recordingFile + " was recorded with a different set of keys");
+            }
+            readNextFlags();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Reads the next frame of the recording.
+     */
+    @Override
+    public void advance() {
+        frameLoaded = false;
+        if (in == null) {
+            releaseAll();
+            return;
+        }
+        try {
+            if ((nextFlags & InputRecorder.INPUT_CHANGED) != 0) {
+                for (int i = 0; i < KEY_WORDS; i++) keysDown[i] = in.readLong();
+                for (int i = 0; i < KEY_WORDS; i++) keysPressed[i] = in.readLong();
+                buttonsDown = in.readUnsignedByte();
+                buttonsPressed = in.readUnsignedByte();
+                mouseX = in.readDouble();
+                mouseY = in.readDouble();
+            }
+            expectedChecksum = in.readInt();
+            frameLoaded = true;
+            readNextFlags();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Compares the game state after the frame with the checksum in the recording,
+     * reporting the first frame where they differ.
+     */
+    @Override
+    public void endFrame() {
+        if (!frameLoaded) return;
+        framesPlayed++;
+        if (firstDivergentFrame < 0 && StateHash.fold(session.hashState()) != expectedChecksum) {
+            firstDivergentFrame = framesPlayed;
+            System.err.printf("Replay of %s diverged from the recording at frame %d%n",
+                    recordingFile, firstDivergentFrame);
+        }
+    }
+
+    /**
+     * Checks whether every frame of the recording has been played.
+     *
+     * @return True if the recording has finished.
+     */
+    public boolean isFinished() { return in == null; }
+
+    /**
+     * Gets the number of recorded frames played so far.
+     *
+     * @return The frame count.
+     */
+    public long getFramesPlayed() { return framesPlayed; }
+
+    /**
+     * Gets the first frame whose game state did not match the recording, counting from 1.
+     *
+     * @return The frame number, or -1 if every frame so far has matched.
+     */
+    public long getFirstDivergentFrame() { return firstDivergentFrame; }
+
+    private void releaseAll() {
+        Arrays.fill(keysDown, 0);
+        Arrays.fill(keysPressed, 0);
+        buttonsDown = 0;
+        buttonsPressed = 0;
+    }
+
+    /**
+     * Reads ahead to the flags of the next frame, so the end of the recording is known
+     * as soon as its last frame has been read.
+     */
+    private void readNextFlags() throws IOException {
+        nextFlags = in.read();
+        if (nextFlags < 0) close();
+    }
+
+    private void close() {
+        try {
+            in.close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        in = null;
+    }
+
+    @Override
+    public boolean isDown(Keys key) { return InputRecorder.getBit(keysDown, key.ordinal()); }
+
+    @Override
+    public boolean wasPressed(Keys key) { return InputRecorder.getBit(keysPressed, key.ordinal()); }
+
+    @Override
+    public boolean isDown(MouseButtons button) { return (buttonsDown & (1 << button.ordinal())) != 0; }
+
+    @Override
+    public boolean wasPressed(MouseButtons button) { return (buttonsPressed & (1 << button.ordinal())) != 0; }
+
+    @Override
+    public double getMouseX() { return mouseX; }
+
+    @Override
+    public double getMouseY() { return mouseY; }
+}
@@ -1,5 +1,3 @@
-import bagel.Image;
-import bagel.Input;
 import bagel.Keys;
 import bagel.util.Point;
 
@@ -7,16 +5,21 @@ import bagel.util.Point;
  * Area in Prep or End Room where the player can trigger a game reset
  */
 public class RestartArea {
+    private final GameSession session;
     private final Point position;
-    private final Image image;
+    private final Sprite image;
+    private final AABB bounds = new AABB();
 
     /**
      * Creates a restart area at the given position.
+     * @param session the game session it restarts
      * @param position the position where it is to sit
      */
-    public RestartArea(Point position) {
+    public RestartArea(GameSession session, Point position) {
+        this.session = session;
         this.position = position;
-        this.image = new Image("res/restart_area.png");
+        this.image = SpriteRegistry.acquire("res/restart_area.png");
+        bounds.setCentred(position.x, position.y, image);
     }
 
     /**
@@ -24,17 +27,24 @@ public class RestartArea {
      * @param input the input executed by user
      * @param currCharacter the player
      */
-    public void update(Input input, Character currCharacter) {
+    public void update(GameInput input, Character currCharacter) {
         if (hasCollidedWith(currCharacter) && input.wasPressed(Keys.ENTER)) {
-            ShadowDungeon.resetGameState(ShadowDungeon.getGameProps());
+            session.requestRestart();
         }
     }
 
+    /**
+     * Releases the restart area's sprite once it is no longer part of the game.
+     */
+    public void dispose() {
+        SpriteRegistry.release(image);
+    }
+
     /**
      * Draws the restart area on screen.
      */
     public void draw() {
-        image.draw(position.x, position.y);
+        image.draw(position.x, position.y, RenderQueue.ENVIRONMENT);
     }
 
     /**
@@ -44,8 +54,7 @@ public class RestartArea {
      * @return true if the character is colliding with the area, false otherwise.
      */
     public boolean hasCollidedWith(Character currCharacter) {
-        return image.getBoundingBoxAt(position).intersects(
-                currCharacter.getCurrImage().getBoundingBoxAt(currCharacter.getPosition()));
+        return bounds.intersects(currCharacter.getBounds());
     }
 
 }
@@ -1,30 +1,32 @@
-import bagel.*;
+import bagel.Keys;
+import bagel.MouseButtons;
 import bagel.util.Point;
-import bagel.util.Rectangle;
-import java.util.ArrayList;
+
+import java.nio.ByteBuffer;
 
 /**
  * The Robot character that the player can control.
  * Can move, shoot bullets, and take damage.
  */
 public class Robot extends Character {
-    private static final Image SPRITE = new Image("res/robot_sprite.png");
-    private static final Image RIGHT_IMAGE = new Image("res/robot_right.png");
-    private static final Image LEFT_IMAGE = new Image("res/robot_left.png");
-    private final double EXTRACOINS =  Double.parseDouble(ShadowDungeon.getGameProps().getProperty("robotExtraCoin"));
+    private static final Sprite SPRITE = SpriteRegistry.acquire("res/robot_sprite.png");
+    private static final Sprite RIGHT_IMAGE = SpriteRegistry.acquire("res/robot_right.png");
+    private static final Sprite LEFT_IMAGE = SpriteRegistry.acquire("res/robot_left.png");
+    private final double EXTRACOINS =  ShadowDungeon.getConfig().getRobotExtraCoin();
     private final Point previewPosition;
     private boolean faceLeft = false;
     private boolean choosen = false;
     private boolean dead = false;
-    private ArrayList<Bullet> bullets = new ArrayList<Bullet>();
+    private final ProjectilePool bullets = new ProjectilePool(new Bullet(bulletSpeed, weaponDamage));
     private int shootCooldown = 0;
 
     /**
      * Creates a Robot at the given position.
+     * @param session The game session the robot belongs to.
      * @param position The starting position of the robot.
      */
-    public Robot(Point position) {
-        super(position, RIGHT_IMAGE, Double.parseDouble(ShadowDungeon.getGameProps().getProperty("initialHealth")), Double.parseDouble(ShadowDungeon.getGameProps().getProperty("movingSpeed")));
+    public Robot(GameSession session, Point position) {
+        super(session, position, RIGHT_IMAGE);
         this.previewPosition = position;
     }
 
@@ -36,10 +38,10 @@ public class Robot extends Character {
      * @param input The current player input.
      */
     @Override
-    public void update(Input input) {
+    public void update(GameInput input) {
         double currX = getPosition().x;
         double currY = getPosition().y;
-        double speed = getSpeed();
+        double speed = getStats().getSpeed();
 
         if (input.isDown(Keys.A)) currX -= speed;
         if (input.isDown(Keys.D)) currX += speed;
@@ -49,20 +51,17 @@ public class Robot extends Character {
         faceLeft = input.getMouseX() < currX;
         setCurrImage(faceLeft ? LEFT_IMAGE : RIGHT_IMAGE);
 
-        Rectangle rect = getCurrImage().getBoundingBoxAt(new Point(currX, currY));
-        Point topLeft = rect.topLeft();
-        Point bottomRight = rect.bottomRight();
-        if (topLeft.x >= 0 && bottomRight.x <= Window.getWidth()
-                && topLeft.y >= 0 && bottomRight.y <= Window.getHeight()) {
+        double halfWidth = getCurrImage().getWidth() / 2;
+        double halfHeight = getCurrImage().getHeight() / 2;
+        if (currX - halfWidth >= 0 && currX + halfWidth <= ShadowDungeon.screenWidth
+                && currY - halfHeight >= 0 && currY + halfHeight <= ShadowDungeon.screenHeight) {
             move(currX, currY);
         }
 
         handleShooting(input);
 
-        for (Bullet b : bullets) {
-            b.update();
-            b.draw();
-        }
+        bullets.moveAll();
+        bullets.draw();
     }
 
     /**
@@ -78,7 +77,7 @@ public class Robot extends Character {
      * Handles shooting bullets when the mouse is pressed.
      * @param input the input executed by user
      */
-    private void handleShooting(Input input) {
+    private void handleShooting(GameInput input) {
         // Decrease cooldown each frame
         if (shootCooldown > 0) {
             shootCooldown--;
@@ -93,11 +92,11 @@ public class Robot extends Character {
             // Target is the mouse position
             Point target = new Point(input.getMouseX(), input.getMouseY());
 
-            // Create new bullet and add to player's bullet list
-            bullets.add(new Bullet(bulletStart, this.weaponDamage, this.bulletSpeed, target.x, target.y));
+            // Fire a new bullet from the player's bullet pool
+            bullets.spawn(bulletStart, target, this.bulletSpeed, this.weaponDamage);
 
             // Reset cooldown
-            shootCooldown = Integer.parseInt(ShadowDungeon.getGameProps().getProperty("bulletFreq"));
+            shootCooldown = ShadowDungeon.getConfig().getBulletFreq();
         }
     }
 
@@ -107,10 +106,10 @@ public class Robot extends Character {
      */
     @Override
     public void draw() {
-        UserInterface.drawStats(Character.getHealth(), Character.getCoins(),
-                (int)Character.getWeapon(), Character.getKey());
+        PlayerStats stats = getStats();
+        UserInterface.drawStats(stats.getHealth(), stats.getCoins(), (int) stats.getWeapon(), stats.getKey());
         if (choosen) {
-            getCurrImage().draw(getPosition().x, getPosition().y);
+            getCurrImage().draw(getPosition().x, getPosition().y, RenderQueue.CHARACTERS);
         }
     }
 
@@ -120,30 +119,52 @@ public class Robot extends Character {
      */
     @Override
     public void receiveDamage(double damage) {
-        setHealth(getHealth() - damage);
-        if (getHealth() <= 0) {
+        PlayerStats stats = getStats();
+        stats.setHealth(stats.getHealth() - damage);
+        if (stats.getHealth() <= 0) {
             dead = true;
-            ShadowDungeon.changeToGameOverRoom();
+            getSession().changeToGameOverRoom();
         }
     }
 
     /**
      * Get Bullets
-     * @return the list of bullets fired by the robot
+     * @return the pool of bullets fired by the robot
      */
     @Override
-    public ArrayList<Bullet> getBullets() {
+    public ProjectilePool getBullets() {
         return bullets;
     }
 
     /**
      * Draws the robot statue in the prep room.
      */
-    public void drawStatue() {SPRITE.draw(previewPosition.x, previewPosition.y);}
+    public void drawStatue() {SPRITE.draw(previewPosition.x, previewPosition.y, RenderQueue.CHARACTERS);}
 
     /**
      * Sets whether the robot is chosen.
      */
     public void setChoosen(boolean chosen) { this.choosen = chosen; }
 
+    @Override
+    void writeState(ByteBuffer out) {
+        super.writeState(out);
+        GameSnapshot.putBoolean(out, getCurrImage() == LEFT_IMAGE);
+        GameSnapshot.putBoolean(out, faceLeft);
+        GameSnapshot.putBoolean(out, choosen);
+        GameSnapshot.putBoolean(out, dead);
+        out.putInt(shootCooldown);
+        bullets.writeState(out);
+    }
+
+    @Override
+    void readState(ByteBuffer in) {
+        super.readState(in);
+        setCurrImage(GameSnapshot.getBoolean(in) ? LEFT_IMAGE : RIGHT_IMAGE);
+        faceLeft = GameSnapshot.getBoolean(in);
+        choosen = GameSnapshot.getBoolean(in);
+        dead = GameSnapshot.getBoolean(in);
+        shootCooldown = in.getInt();
+        bullets.readState(in);
+    }
 }
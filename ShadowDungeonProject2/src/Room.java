@@ -0,0 +1,104 @@
+import java.nio.ByteBuffer;
+
+/**
+ * A room the player can be in. The game keeps its rooms in a {@link RoomRegistry} and only ever
+ * talks to the current room through this class, so it does not need to know how many rooms there are.
+ */
+public abstract class Room {
+    private final GameSession session;
+    private final String name;
+
+    /**
+     * Creates a room.
+     *
+     * @param session The game session the room belongs to.
+     * @param name    The name of the room, as used in the game properties and by doors leading to it.
+     */
+    public Room(GameSession session, String name) {
+        this.session = session;
+        this.name = name;
+    }
+
+    /**
+     * Gets the game session the room belongs to.
+     *
+     * @return The session.
+     */
+    public GameSession getSession() {
+        return session;
+    }
+
+    /**
+     * Gets the name of the room.
+     *
+     * @return The room name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Builds the room's entities from its template.
+     *
+     * @param template The room's layout, parsed once from the game properties.
+     */
+    public abstract void initEntities(RoomTemplate template);
+
+    /**
+     * Updates and draws the room for one frame.
+     *
+     * @param input The input for this frame.
+     */
+    public abstract void update(GameInput input);
+
+    /**
+     * Moves a character into the room through the door leading back to the room it came from.
+     *
+     * @param fromRoomName The room the character is leaving.
+     * @param character    The character entering.
+     */
+    public abstract void enter(String fromRoomName, Character character);
+
+    /**
+     * Flags the room's current update to stop, because the character has left the room.
+     */
+    public abstract void stopCurrentUpdateCall();
+
+    /**
+     * Checks whether the room draws its own background as part of its baked static layer.
+     *
+     * @return True if the room draws the background itself.
+     */
+    public boolean hasBakedBackground() {
+        return false;
+    }
+
+    /**
+     * Mixes the state of the room into a hash. Rooms without entities leave the hash unchanged.
+     *
+     * @param hash The hash so far.
+     * @return The new hash.
+     */
+    public long hashState(long hash) {
+        return hash;
+    }
+
+    /**
+     * Writes the state of the room to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    abstract void writeState(ByteBuffer out);
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param in The buffer to read from.
+     */
+    abstract void readState(ByteBuffer in);
+
+    /**
+     * Releases the sprites used by the room.
+     */
+    public abstract void dispose();
+}
@@ -0,0 +1,391 @@
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every room of the dungeon and the doors between them, found by following the door definitions
+ * in the game properties ({@code door}, {@code primarydoor} and {@code secondarydoor} name their
+ * destination) outwards from the start room. Rooms are looked up by name in constant time.
+ *
+ * The start room is a {@link PrepRoom}, rooms with a primary or secondary door are
+ * {@link BattleRoom}s, and every other room is an {@link EndRoom}.
+ *
+ * With lazy loading on, a room is only built once the player is in a room with a door leading to
+ * it. When the built rooms hold more entities than the budget allows, the rooms furthest from the
+ * player are unloaded to the bytes of their snapshot state, which keeps whether they were completed
+ * and what happened to their keys, and are built again from their template and those bytes when
+ * the player comes back.
+ *
+ * The registry parsed from the game properties only holds the templates. Each {@link GameSession}
+ * builds its rooms in its own registry, which shares those templates, as they never change.
+ */
+public class RoomRegistry {
+    private static final String[] DOOR_TYPES = {"door", "primarydoor", "secondarydoor"};
+    private static final int INITIAL_STATE_CAPACITY = 4 * 1024;
+    private final String startRoomName;
+    private final LinkedHashMap<String, RoomTemplate> templates;
+    private final HashMap<String, List<String>> exits;
+    private final GameSession session;
+    private final HashMap<String, Room> rooms = new HashMap<>();
+    private final HashMap<String, byte[]> unloadedStates = new HashMap<>();
+    private final ArrayList<Room> roomOrder = new ArrayList<>();
+    private boolean lazyLoading = false;
+    private int entityBudget = Integer.MAX_VALUE;
+    private int loadedEntities = 0;
+    private ByteBuffer stateBuffer = ByteBuffer.allocate(INITIAL_STATE_CAPACITY);
+
+    /**
+     * Finds every room reachable from the start room and parses its template.
+     *
+     * @param roomProperties The game properties grouped by room, from {@link IOUtils#indexRoomProperties}.
+     * @param startRoomName  The room the game starts in.
+     * @throws IllegalArgumentException if a door leads to a room with no properties.
+     */
+    public RoomRegistry(Map<String, ? extends Map<String, String>> roomProperties, String startRoomName) {
+        this.startRoomName = startRoomName;
+        this.templates = new LinkedHashMap<>();
+        this.exits = new HashMap<>();
+        this.session = null;
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        queue.add(startRoomName);
+        while (!queue.isEmpty()) {
+            String roomName = queue.poll();
+            if (templates.containsKey(roomName)) continue;
+            Map<String, String> objectProperties = roomProperties.get(roomName);
+            if (objectProperties == null) {
+                throw new IllegalArgumentException("No properties for room " + roomName);
+            }
+            RoomTemplate template = RoomTemplate.parse(roomName, objectProperties);
+            templates.put(roomName, template);
+
+            ArrayList<String> roomExits = new ArrayList<>();
+            for (String doorType : DOOR_TYPES) {
+                RoomTemplate.Placement door = template.getSingle(doorType);
+                if (door == null) continue;
+                roomExits.add(door.getExtra());
+                queue.add(door.getExtra());
+            }
+            exits.put(roomName, Collections.unmodifiableList(roomExits));
+        }
+    }
+
+    /**
+     * Creates an empty registry for a game session, sharing the templates of a registry parsed
+     * from the game properties and loading rooms the same way.
+     *
+     * @param layout  The registry holding the templates.
+     * @param session The session the rooms are built for.
+     */
+    public RoomRegistry(RoomRegistry layout, GameSession session) {
+        this.startRoomName = layout.startRoomName;
+        this.templates = layout.templates;
+        this.exits = layout.exits;
+        this.session = session;
+        this.lazyLoading = layout.lazyLoading;
+        this.entityBudget = layout.entityBudget;
+    }
+
+    /**
+     * Chooses whether rooms are built all at once or only when the player gets near them.
+     * Takes effect the next time the rooms are built.
+     *
+     * @param lazyLoading  True to build rooms as they are needed and unload far-away rooms.
+     * @param entityBudget The number of entities the built rooms may hold before rooms are unloaded.
+     */
+    public void setLazyLoading(boolean lazyLoading, int entityBudget) {
+        this.lazyLoading = lazyLoading;
+        this.entityBudget = entityBudget;
+    }
+
+    /**
+     * Disposes any rooms built earlier and builds the rooms again from their templates:
+     * every room, or with lazy loading just the start room and the rooms its doors lead to.
+     */
+    public void buildRooms() {
+        disposeRooms();
+        if (lazyLoading) {
+            visit(startRoomName);
+            return;
+        }
+        for (String roomName : templates.keySet()) {
+            get(roomName);
+        }
+    }
+
+    /**
+     * Releases the sprites of every room and forgets the rooms, including any unloaded state.
+     */
+    public void disposeRooms() {
+        for (Room room : rooms.values()) {
+            room.dispose();
+        }
+        rooms.clear();
+        roomOrder.clear();
+        unloadedStates.clear();
+        loadedEntities = 0;
+    }
+
+    /**
+     * Gets a room by name, building it first if it is not built.
+     * An unloaded room is rebuilt with the state it had when it was unloaded.
+     *
+     * @param roomName The room name.
+     * @return The room, or null if there is no such room.
+     */
+    public Room get(String roomName) {
+        Room room = rooms.get(roomName);
+        if (room != null) return room;
+        RoomTemplate template = templates.get(roomName);
+        if (template == null) return null;
+
+        room = createRoom(template);
+        room.initEntities(template);
+        byte[] state = unloadedStates.remove(roomName);
+        if (state != null) room.readState(ByteBuffer.wrap(state));
+        rooms.put(roomName, room);
+        loadedEntities += template.getEntityCount();
+        updateRoomOrder();
+        return room;
+    }
+
+    /**
+     * Gets the room the player is moving into. With lazy loading, the rooms its doors lead to are
+     * built as well, and rooms further away are unloaded if the built rooms are over budget.
+     *
+     * @param roomName The room name.
+     * @return The room, or null if there is no such room.
+     */
+    public Room visit(String roomName) {
+        Room room = get(roomName);
+        if (!lazyLoading || room == null) return room;
+        for (String exit : getExits(roomName)) {
+            get(exit);
+        }
+        unloadFarRooms(roomName);
+        return room;
+    }
+
+    private Room createRoom(RoomTemplate template) {
+        if (session == null) {
+            throw new IllegalStateException("Rooms are only built by a game session's registry");
+        }
+        String roomName = template.getRoomName();
+        if (roomName.equals(startRoomName)) return new PrepRoom(session, roomName);
+        if (template.getSingle("primarydoor") != null || template.getSingle("secondarydoor") != null) {
+            return new BattleRoom(session, roomName);
+        }
+        return new EndRoom(session, roomName);
+    }
+
+    /**
+     * Unloads built rooms, furthest from the given room first, until the built rooms fit the budget.
+     * The room and the rooms next to it always stay built.
+     */
+    private void unloadFarRooms(String roomName) {
+        if (loadedEntities <= entityBudget) return;
+        HashMap<String, Integer> distances = distancesFrom(roomName);
+        ArrayList<String> candidates = new ArrayList<>();
+        for (String loadedRoom : rooms.keySet()) {
+            if (distances.getOrDefault(loadedRoom, Integer.MAX_VALUE) > 1) candidates.add(loadedRoom);
+        }
+        candidates.sort((a, b) -> Integer.compare(distances.getOrDefault(b, Integer.MAX_VALUE),
+                distances.getOrDefault(a, Integer.MAX_VALUE)));
+        for (String candidate : candidates) {
+            if (loadedEntities <= entityBudget) break;
+            unload(candidate);
+        }
+    }
+
+    private HashMap<String, Integer> distancesFrom(String roomName) {
+        HashMap<String, Integer> distances = new HashMap<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        distances.put(roomName, 0);
+        queue.add(roomName);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            int distance = distances.get(current);
+            for (String exit : getExits(current)) {
+                if (distances.containsKey(exit)) continue;
+                distances.put(exit, distance + 1);
+                queue.add(exit);
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Saves a built room's state as bytes and releases the room.
+     *
+     * @param roomName The room name.
+     */
+    public void unload(String roomName) {
+        Room room = rooms.remove(roomName);
+        if (room == null) return;
+        unloadedStates.put(roomName, serialize(room));
+        room.dispose();
+        loadedEntities -= templates.get(roomName).getEntityCount();
+        updateRoomOrder();
+    }
+
+    private byte[] serialize(Room room) {
+        while (true) {
+            try {
+                stateBuffer.clear();
+                room.writeState(stateBuffer);
+                return Arrays.copyOf(stateBuffer.array(), stateBuffer.position());
+            } catch (BufferOverflowException ex) {
+                // a room's fireballs can grow without limit, so make room and write everything again
+                stateBuffer = ByteBuffer.allocate(stateBuffer.capacity() * 2);
+            }
+        }
+    }
+
+    private void updateRoomOrder() {
+        roomOrder.clear();
+        for (String roomName : templates.keySet()) {
+            Room room = rooms.get(roomName);
+            if (room != null) roomOrder.add(room);
+        }
+    }
+
+    /**
+     * Checks whether a room is built.
+     *
+     * @param roomName The room name.
+     * @return True if the room is built, false if it is unloaded or was never needed.
+     */
+    public boolean isLoaded(String roomName) {
+        return rooms.containsKey(roomName);
+    }
+
+    /**
+     * Gets the number of entities in the built rooms, as counted by their templates.
+     *
+     * @return The entity count.
+     */
+    public int getLoadedEntities() {
+        return loadedEntities;
+    }
+
+    /**
+     * Gets the rooms the doors of a room lead to.
+     *
+     * @param roomName The room name.
+     * @return The destination room names, empty if the room is unknown.
+     */
+    public List<String> getExits(String roomName) {
+        return exits.getOrDefault(roomName, Collections.emptyList());
+    }
+
+    /**
+     * Gets the template a room is built from.
+     *
+     * @param roomName The room name.
+     * @return The template, or null if there is no such room.
+     */
+    public RoomTemplate getTemplate(String roomName) {
+        return templates.get(roomName);
+    }
+
+    /**
+     * Gets the number of rooms in the dungeon.
+     *
+     * @return The room count.
+     */
+    public int size() {
+        return templates.size();
+    }
+
+    /**
+     * Mixes the state of every built room into a hash, in the order the rooms were found,
+     * and the saved bytes of every unloaded room.
+     *
+     * @param hash The hash so far.
+     * @return The new hash.
+     */
+    public long hashState(long hash) {
+        for (Room room : roomOrder) {
+            hash = room.hashState(hash);
+        }
+        for (String roomName : templates.keySet()) {
+            byte[] state = unloadedStates.get(roomName);
+            if (state != null) hash = StateHash.mix(hash, (long) Arrays.hashCode(state));
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes the layout of every room into a hash.
+     *
+     * @param hash The hash so far.
+     * @return The new hash.
+     */
+    public long hashLayout(long hash) {
+        for (RoomTemplate template : templates.values()) {
+            hash = template.hashLayout(hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Writes the state of every room to a snapshot: for each room in the order they were found,
+     * whether it has any state, and if so the length and bytes of its state.
+     * Rooms that were never built write nothing more.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        for (String roomName : templates.keySet()) {
+            Room room = rooms.get(roomName);
+            byte[] state = unloadedStates.get(roomName);
+            GameSnapshot.putBoolean(out, room != null || state != null);
+            if (room != null) {
+                int lengthPosition = out.position();
+                out.putInt(0);
+                room.writeState(out);
+                out.putInt(lengthPosition, out.position() - lengthPosition - 4);
+            } else if (state != null) {
+                out.putInt(state.length);
+                out.put(state);
+            }
+        }
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)}. Built rooms read their state
+     * straight away, other rooms keep it until they are built, and rooms without state are released.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in) {
+        for (String roomName : templates.keySet()) {
+            if (!GameSnapshot.getBoolean(in)) {
+                Room room = rooms.remove(roomName);
+                if (room != null) {
+                    room.dispose();
+                    loadedEntities -= templates.get(roomName).getEntityCount();
+                }
+                unloadedStates.remove(roomName);
+                continue;
+            }
+            int length = in.getInt();
+            Room room = rooms.get(roomName);
+            if (room != null) {
+                room.readState(in.slice(in.position(), length));
+            } else {
+                byte[] state = new byte[length];
+                in.get(in.position(), state);
+                unloadedStates.put(roomName, state);
+            }
+            in.position(in.position() + length);
+        }
+        updateRoomOrder();
+    }
+}
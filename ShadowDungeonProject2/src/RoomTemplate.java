@@ -0,0 +1,160 @@
+import bagel.util.Point;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The layout of one room as read from the game properties: where each type of object is placed,
+ * the key bullet kin's path, the coins in each treasure box and where each door leads.
+ *
+ * A template is parsed once and never changes, so a room can be built from it again without
+ * reading the properties a second time.
+ */
+public final class RoomTemplate {
+    private final String roomName;
+    private final Map<String, List<Placement>> placements;
+    private final int entityCount;
+
+    private RoomTemplate(String roomName, Map<String, List<Placement>> placements) {
+        this.roomName = roomName;
+        this.placements = placements;
+        int count = 0;
+        for (List<Placement> typePlacements : placements.values()) count += typePlacements.size();
+        this.entityCount = count;
+    }
+
+    /**
+     * Reads the layout of a room from its properties, as grouped by
+     * {@link IOUtils#indexRoomProperties(Properties)}. Each object type holds {@code x,y} or
+     * {@code x,y,extra} entries separated by semicolons; a value of {@code 0} means there are none.
+     *
+     * @param roomName         The name of the room.
+     * @param objectProperties The value of each object type in the room, or null if it has none.
+     * @return The room's template.
+     */
+    public static RoomTemplate parse(String roomName, Map<String, String> objectProperties) {
+        HashMap<String, List<Placement>> placements = new HashMap<>();
+        if (objectProperties != null) {
+            for (Map.Entry<String, String> entry : objectProperties.entrySet()) {
+                String objectType = entry.getKey();
+                String propertyValue = entry.getValue();
+                if (propertyValue.equals("0")) continue;
+
+                boolean treasure = objectType.equals("treasurebox");
+                ArrayList<Placement> typePlacements = new ArrayList<>();
+                CoordinateReader reader = new CoordinateReader(propertyValue);
+                while (reader.next()) {
+                    String extra = reader.getExtra();
+                    typePlacements.add(new Placement(reader.getPoint(), extra, treasure ? Integer.parseInt(extra) : 0));
+                }
+                placements.put(objectType, Collections.unmodifiableList(typePlacements));
+            }
+        }
+        return new RoomTemplate(roomName, Collections.unmodifiableMap(placements));
+    }
+
+    /**
+     * Reads the layout of a single room straight from the game properties.
+     *
+     * @param gameProperties The game properties.
+     * @param roomName       The name of the room.
+     * @return The room's template.
+     */
+    public static RoomTemplate parse(Properties gameProperties, String roomName) {
+        return parse(roomName, IOUtils.indexRoomProperties(gameProperties).get(roomName));
+    }
+
+    /**
+     * Gets the name of the room.
+     *
+     * @return The room name.
+     */
+    public String getRoomName() { return roomName; }
+
+    /**
+     * Gets every placement of one type of object, in the order they were listed.
+     *
+     * @param objectType The object type, e.g. {@code wall} or {@code treasurebox}.
+     * @return The placements, empty if the room has none.
+     */
+    public List<Placement> get(String objectType) {
+        return placements.getOrDefault(objectType, Collections.emptyList());
+    }
+
+    /**
+     * Gets the only placement of a type of object that appears once per room, such as a door.
+     *
+     * @param objectType The object type.
+     * @return The placement, or null if the room has none.
+     */
+    public Placement getSingle(String objectType) {
+        List<Placement> typePlacements = get(objectType);
+        return typePlacements.isEmpty() ? null : typePlacements.get(0);
+    }
+
+    /**
+     * Gets the number of placements in the room, a rough measure of how much memory it takes when built.
+     *
+     * @return The placement count.
+     */
+    public int getEntityCount() { return entityCount; }
+
+    /**
+     * Mixes the room name and the number of objects of each type into a hash,
+     * so a snapshot is only restored into rooms with the same layout.
+     *
+     * @param hash The hash so far.
+     * @return The new hash.
+     */
+    public long hashLayout(long hash) {
+        hash = StateHash.mix(hash, (long) roomName.hashCode());
+        ArrayList<String> objectTypes = new ArrayList<>(placements.keySet());
+        Collections.sort(objectTypes);
+        for (String objectType : objectTypes) {
+            hash = StateHash.mix(hash, (long) objectType.hashCode());
+            hash = StateHash.mix(hash, (long) placements.get(objectType).size());
+        }
+        return hash;
+    }
+
+    /**
+     * One position listed for an object type, with the optional third field after the coordinates
+     * (the destination room of a door, or the coins in a treasure box).
+     */
+    public static final class Placement {
+        private final Point position;
+        private final String extra;
+        private final int coins;
+
+        private Placement(Point position, String extra, int coins) {
+            this.position = position;
+            this.extra = extra;
+            this.coins = coins;
+        }
+
+        /**
+         * Gets the position of the object.
+         *
+         * @return The centre of the object.
+         */
+        public Point getPosition() { return position; }
+
+        /**
+         * Gets the field after the coordinates.
+         *
+         * @return The extra field, or null if there is none.
+         */
+        public String getExtra() { return extra; }
+
+        /**
+         * Gets the coins held by a treasure box, parsed once with the template.
+         *
+         * @return The coin value, or 0 for other objects.
+         */
+        public int getCoins() { return coins; }
+    }
+}
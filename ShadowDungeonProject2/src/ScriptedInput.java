@@ -0,0 +1,149 @@
+import bagel.Keys;
+import bagel.MouseButtons;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+
+/**
+ * Game input that replays a fixed script instead of reading a window.
+ *
+ * Each line of a script file holds one step:
+ * {@code <frames> <keys> <mouseX>,<mouseY> <buttons>}, where keys and buttons are
+ * comma separated names (or {@code -} for none), e.g. {@code 60 W,D 600,300 LEFT}.
+ * Blank lines and lines starting with {@code #} are ignored.
+ * Once the script runs out, no keys or buttons are held.
+ */
+public class ScriptedInput implements GameInput {
+    private final ArrayList<Step> steps = new ArrayList<>();
+    private final EnumSet<Keys> keysDown = EnumSet.noneOf(Keys.class);
+    private final EnumSet<Keys> keysPressed = EnumSet.noneOf(Keys.class);
+    private final EnumSet<MouseButtons> buttonsDown = EnumSet.noneOf(MouseButtons.class);
+    private final EnumSet<MouseButtons> buttonsPressed = EnumSet.noneOf(MouseButtons.class);
+    private int stepIndex = -1;
+    private int framesLeftInStep = 0;
+    private double mouseX;
+    private double mouseY;
+
+    private static class Step {
+        final int frames;
+        final EnumSet<Keys> keys;
+        final EnumSet<MouseButtons> buttons;
+        final double mouseX;
+        final double mouseY;
+
+        Step(int frames, EnumSet<Keys> keys, EnumSet<MouseButtons> buttons, double mouseX, double mouseY) {
+            this.frames = frames;
+            this.keys = keys;
+            this.buttons = buttons;
+            this.mouseX = mouseX;
+            this.mouseY = mouseY;
+        }
+    }
+
+    /**
+     * Reads a script file.
+     *
+     * @param scriptFile the path to the script
+     * @return the scripted input
+     */
+    public static ScriptedInput fromFile(String scriptFile) {
+        ScriptedInput input = new ScriptedInput();
+        try (BufferedReader reader = new BufferedReader(new FileReader(scriptFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\\s+");
+                EnumSet<Keys> keys = EnumSet.noneOf(Keys.class);
+                if (!parts[1].equals("-")) {
+                    for (String key : parts[1].split(",")) keys.add(Keys.valueOf(key));
+                }
+                EnumSet<MouseButtons> buttons = EnumSet.noneOf(MouseButtons.class);
+                if (parts.length > 3 && !parts[3].equals("-")) {
+                    for (String button : parts[3].split(",")) buttons.add(MouseButtons.valueOf(button));
+                }
+                String[] mouse = parts[2].split(",");
+                input.addStep(Integer.parseInt(parts[0]), keys, buttons,
+                        Double.parseDouble(mouse[0]), Double.parseDouble(mouse[1]));
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+        return input;
+    }
+
+    /**
+     * Appends a step to the script.
+     *
+     * @param frames  the number of frames the step lasts
+     * @param keys    the keys held during the step
+     * @param buttons the mouse buttons held during the step
+     * @param mouseX  the mouse x-coordinate during the step
+     * @param mouseY  the mouse y-coordinate during the step
+     */
+    public void addStep(int frames, EnumSet<Keys> keys, EnumSet<MouseButtons> buttons, double mouseX, double mouseY) {
+        steps.add(new Step(frames, keys, buttons, mouseX, mouseY));
+    }
+
+    /**
+     * Moves the script on by one frame. Must be called once before each game step.
+     */
+    @Override
+    public void advance() {
+        while (framesLeftInStep <= 0 && stepIndex < steps.size()) {
+            stepIndex++;
+            framesLeftInStep = stepIndex < steps.size() ? steps.get(stepIndex).frames : 0;
+        }
+        framesLeftInStep--;
+
+        keysPressed.clear();
+        buttonsPressed.clear();
+        if (stepIndex >= steps.size()) {
+            keysDown.clear();
+            buttonsDown.clear();
+            return;
+        }
+        Step step = steps.get(stepIndex);
+        for (Keys key : step.keys) {
+            if (!keysDown.contains(key)) keysPressed.add(key);
+        }
+        for (MouseButtons button : step.buttons) {
+            if (!buttonsDown.contains(button)) buttonsPressed.add(button);
+        }
+        keysDown.clear();
+        keysDown.addAll(step.keys);
+        buttonsDown.clear();
+        buttonsDown.addAll(step.buttons);
+        mouseX = step.mouseX;
+        mouseY = step.mouseY;
+    }
+
+    /**
+     * Checks whether every step of the script has been played.
+     *
+     * @return true if the script has finished
+     */
+    public boolean isFinished() { return stepIndex >= steps.size(); }
+
+    @Override
+    public boolean isDown(Keys key) { return keysDown.contains(key); }
+
+    @Override
+    public boolean wasPressed(Keys key) { return keysPressed.contains(key); }
+
+    @Override
+    public boolean isDown(MouseButtons button) { return buttonsDown.contains(button); }
+
+    @Override
+    public boolean wasPressed(MouseButtons button) { return buttonsPressed.contains(button); }
+
+    @Override
+    public double getMouseX() { return mouseX; }
+
+    @Override
+    public double getMouseY() { return mouseY; }
+}
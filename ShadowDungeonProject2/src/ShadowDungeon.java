@@ -1,29 +1,31 @@
 import bagel.*;
-import bagel.util.Point;
+
+import java.io.File;
 import java.util.Properties;
 
 /**
- * Main game class that manages initialising the rooms and moving the player between rooms
+ * Main game class that loads the configuration shared by every game session and runs one
+ * {@link GameSession} in a window
  */
 public class ShadowDungeon extends AbstractGame {
     public static Properties gameProps;
     public static Properties messageProps;
+    private static GameConfig config;
     public static double screenWidth;
     public static double screenHeight;
-    private static String currRoomName;
-    private static PrepRoom prepRoom;
-    private static BattleRoom battleRoomA;
-    private static BattleRoom battleRoomB;
-    private static EndRoom endRoom;
-    private static Player player;
-    private static Robot robot;
-    private static Marine marine;
-    private static Character currCharacter;
-    private final Image background;
+    private static RoomRegistry layout;
+    private static boolean headless = false;
+    private final GameSession session;
+    private final Sprite background;
+    private final BagelInput bagelInput = new BagelInput();
+    private GameInput frameInput = bagelInput;
+    private InputRecorder recorder;
+    /** The room the game starts in; every other room is found through its doors. */
     public static final String PREP_ROOM_NAME = "prep";
-    public static final String BATTLE_ROOM_A_NAME = "A";
-    public static final String BATTLE_ROOM_B_NAME = "B";
+    /** The room the player is sent to on dying. */
     public static final String END_ROOM_NAME = "end";
+    /** The file the quick save key writes to and the quick load key reads from. */
+    public static final String SAVE_FILE = "savegame.sdsv";
 
 
     /**
@@ -36,65 +38,52 @@ public class ShadowDungeon extends AbstractGame {
         super(Integer.parseInt(gameProps.getProperty("window.width")),
                 Integer.parseInt(gameProps.getProperty("window.height")),
                 "Shadow Dungeon");
-        ShadowDungeon.gameProps = gameProps;
-        ShadowDungeon.messageProps = messageProps;
-        screenWidth = Integer.parseInt(gameProps.getProperty("window.width"));
-        screenHeight = Integer.parseInt(gameProps.getProperty("window.height"));
-        this.background = new Image("res/background.png");
-        resetGameState(gameProps);
+        initGame(gameProps, messageProps);
+        this.background = SpriteRegistry.acquire("res/background.png");
+        session = new GameSession(layout);
+        FrameProfiler.setScheduler(session.getScheduler());
     }
 
     /**
-     * Resets all rooms, characters, and shared stats to initial values.
+     * Stores the game configuration shared by all sessions, rooms and entities, and parses the
+     * room templates every session builds its rooms from.
      *
      * @param gameProps Game configuration properties.
+     * @param messageProps Text messages and labels properties.
      */
-    public static void resetGameState(Properties gameProps) {
-        prepRoom = new PrepRoom();
-        battleRoomA = new BattleRoom(BATTLE_ROOM_A_NAME);
-        battleRoomB = new BattleRoom(BATTLE_ROOM_B_NAME);
-        endRoom = new EndRoom();
-
-        prepRoom.initEntities(gameProps);
-        battleRoomA.initEntities(gameProps);
-        battleRoomB.initEntities(gameProps);
-        endRoom.initEntities(gameProps);
-
-        currRoomName = PREP_ROOM_NAME;
-
-        ShadowDungeon.player = new Player(IOUtils.parseCoords(gameProps.getProperty("player.start")));
-        ShadowDungeon.robot = new Robot(IOUtils.parseCoords(gameProps.getProperty("Robot")));
-        ShadowDungeon.marine = new Marine(IOUtils.parseCoords(gameProps.getProperty("Marine")));
-        double startingHealth = Double.parseDouble(gameProps.getProperty("initialHealth"));
-        Character.resetSharedStats(startingHealth);
-
-        currCharacter = player;
-
-        battleRoomA.setPlayer(player);
-        battleRoomB.setPlayer(player);
-
-        prepRoom.setPlayer(player);
-        prepRoom.setRobot(robot);
-        prepRoom.setMarine(marine);
+    public static void initGame(Properties gameProps, Properties messageProps) {
+        ShadowDungeon.gameProps = gameProps;
+        ShadowDungeon.messageProps = messageProps;
+        config = IOUtils.readGameConfig(gameProps);
+        screenWidth = config.getWindowWidth();
+        screenHeight = config.getWindowHeight();
+        SpriteRegistry.preload("res");
+        UserInterface.loadLayout(config, messageProps);
+        layout = IOUtils.readRoomRegistry(gameProps, PREP_ROOM_NAME);
+        layout.setLazyLoading(config.isLazyRoomLoading(), config.getRoomEntityBudget());
+        FrameProfiler.setEnabled(config.isProfilerEnabled());
+        FrameMetrics.register();
     }
 
     /**
-     * sets currently controlled character.
+     * Gets the room templates parsed by {@link #initGame(Properties, Properties)}, which every
+     * {@link GameSession} builds its own rooms from.
      *
-     * @param character the character which is going to be active
+     * @return The registry holding the templates.
      */
-    public static void setCurrCharacter(Character character) {
-        currCharacter = character;
+    public static RoomRegistry getLayout() {
+        return layout;
     }
 
     /**
-     * @return the currently controlled character.
+     * Gets the session played in the window.
+     *
+     * @return The game session.
      */
-    public static Character getCurrCharacter() {
-        return currCharacter;
+    public GameSession getSession() {
+        return session;
     }
 
-
     /**
      * Render the relevant screen based on the keyboard input given by the user and the status of the gameplay.
      *
@@ -103,116 +92,76 @@ public class ShadowDungeon extends AbstractGame {
     @Override
     protected void update(Input input) {
         if (input.wasPressed(Keys.ESCAPE)) {
+            if (recorder != null) recorder.close();
             Window.close();
         }
-        background.draw((double) Window.getWidth() / 2, (double) Window.getHeight() / 2);
-        switch (currRoomName) {
-            case PREP_ROOM_NAME:
-                prepRoom.update(input);
-                return;
-            case BATTLE_ROOM_A_NAME:
-                battleRoomA.update(input);
-                return;
-            case BATTLE_ROOM_B_NAME:
-                battleRoomB.update(input);
-                return;
-            default:
-                endRoom.update(input);
+        if (input.wasPressed(Keys.F3)) {
+            FrameProfiler.setEnabled(!FrameProfiler.isEnabled());
+        }
+        FrameScheduler scheduler = session.getScheduler();
+        scheduler.beginFrame();
+        FrameProfiler.beginFrame();
+        // a load depends on the save file rather than the recorded input, so a recording or replay could
+        // not reproduce it; quick save and load only work while playing live
+        if (frameInput == bagelInput) {
+            if (input.wasPressed(Keys.F5)) {
+                GameSnapshot.capture(session).writeTo(SAVE_FILE);
+            } else if (input.wasPressed(Keys.F9) && new File(SAVE_FILE).exists()) {
+                GameSnapshot.readFrom(SAVE_FILE).restore(session);
+            }
         }
+        if (!session.currRoomHasBakedBackground()) {
+            background.draw((double) Window.getWidth() / 2, (double) Window.getHeight() / 2, RenderQueue.BACKGROUND);
+        }
+        bagelInput.setInput(input);
+        frameInput.advance();
+        session.step(frameInput);
+        frameInput.endFrame();
+        FrameProfiler.drawOverlay();
+        FrameProfiler.begin(FrameProfiler.RENDER);
+        RenderQueue.flush();
+        FrameProfiler.end(FrameProfiler.RENDER);
+        scheduler.runDeferred();
+        FrameProfiler.endFrame();
     }
+
     /**
-     * Changes the active room and moves the player to the appropriate door position.
+     * Records the player's input and a checksum of the game state each frame to a file,
+     * which can be played back later with {@link #replay(String)}.
      *
-     * @param roomName The room to switch to.
+     * @param recordingFile The path of the recording.
      */
-    public static void changeRoom(String roomName) {
-        Door nextDoor;
-        switch (roomName) {
-            case PREP_ROOM_NAME:
-                nextDoor = prepRoom.findDoorByDestination();
-                // assume that prep room can only be entered through Battle Room A
-                if (currRoomName.equals(BATTLE_ROOM_A_NAME)) {
-                    battleRoomA.stopCurrentUpdateCall();
-                }
-                currRoomName = PREP_ROOM_NAME;
-                // move the player to the center of the next room's door
-                nextDoor.unlock(true);
-                currCharacter.move(nextDoor.getPosition().x, nextDoor.getPosition().y);
-                prepRoom.setCurrCharacter(currCharacter);
-                return;
-
-            case BATTLE_ROOM_A_NAME:
-                nextDoor = battleRoomA.findDoorByDestination(currRoomName);
-                // assume that Battle Room A can only be entered through Prep Room or Battle Room B
-                if (currRoomName.equals(BATTLE_ROOM_B_NAME)) {
-                    battleRoomB.stopCurrentUpdateCall();
-                } else if (currRoomName.equals(PREP_ROOM_NAME)) {
-                    prepRoom.stopCurrentUpdateCall();
-                }
-                currRoomName = BATTLE_ROOM_A_NAME;
-                // prepare the door to be able to activate the Battle Room
-                if (!battleRoomA.isComplete()) {
-                    nextDoor.setShouldLockAgain();
-                }
-                // move the player to the center of the next room's door
-                nextDoor.unlock(true);
-                currCharacter.move(nextDoor.getPosition().x, nextDoor.getPosition().y);
-                battleRoomA.setCurrCharacter(currCharacter);
-                return;
-
-            case BATTLE_ROOM_B_NAME:
-                nextDoor = battleRoomB.findDoorByDestination(currRoomName);
-                // assume that Battle Room B can only be entered through Battle Room A or End Room
-                if (currRoomName.equals(BATTLE_ROOM_A_NAME)) {
-                    battleRoomA.stopCurrentUpdateCall();
-                } else if (currRoomName.equals(END_ROOM_NAME)) {
-                    endRoom.stopCurrentUpdateCall();
-                }
-                currRoomName = BATTLE_ROOM_B_NAME;
-                // prepare the door to be able to activate the Battle Room
-                if (!battleRoomB.isComplete()) {
-                    nextDoor.setShouldLockAgain();
-                }
-                // move the player to the center of the next room's door
-                nextDoor.unlock(true);
-                currCharacter.move(nextDoor.getPosition().x, nextDoor.getPosition().y);
-                battleRoomB.setCurrCharacter(currCharacter);
-                return;
-
-            default:
-                nextDoor = endRoom.findDoorByDestination();
-                // assume that end room can only be entered through Battle Room B
-                if (currRoomName.equals(BATTLE_ROOM_B_NAME)) {
-                    battleRoomB.stopCurrentUpdateCall();
-                }
-                currRoomName = END_ROOM_NAME;
-                // move the player to the center of the next room's door
-                nextDoor.unlock(true);
-                currCharacter.move(nextDoor.getPosition().x, nextDoor.getPosition().y);
-                endRoom.setCurrCharacter(currCharacter);
-        }
+    public void record(String recordingFile) {
+        recorder = new InputRecorder(bagelInput, recordingFile, session);
+        frameInput = recorder;
+        // closing the window without escape still writes out the recording
+        Runtime.getRuntime().addShutdownHook(new Thread(recorder::close));
     }
 
     /**
-     * Switches the game to the Game Over room when the player dies.
+     * Plays a recording back instead of reading the keyboard and mouse, reporting the first
+     * frame where the game state no longer matches the recording.
+     *
+     * @param recordingFile The path of the recording.
      */
-    public static void changeToGameOverRoom() {
-        switch (currRoomName) {
-            case PREP_ROOM_NAME:
-                prepRoom.stopCurrentUpdateCall();
-            case BATTLE_ROOM_A_NAME:
-                battleRoomA.stopCurrentUpdateCall();
-            case BATTLE_ROOM_B_NAME:
-                battleRoomB.stopCurrentUpdateCall();
-            default:
-        }
-        endRoom.isGameOver();
-        currRoomName = END_ROOM_NAME;
-        Point startPos = IOUtils.parseCoords(ShadowDungeon.getGameProps().getProperty("player.start"));
-        Point startPosRobot = IOUtils.parseCoords(ShadowDungeon.getGameProps().getProperty("Robot"));
-        Point startPosMarine = IOUtils.parseCoords(ShadowDungeon.getGameProps().getProperty("Marine"));
-        currCharacter.move(startPos.x, startPos.y);
-        endRoom.setCurrCharacter(currCharacter);
+    public void replay(String recordingFile) {
+        frameInput = new ReplayInput(recordingFile, session);
+    }
+
+    /**
+     * Checks whether the game runs without a window, in which case nothing is drawn.
+     * @return true if running headless
+     */
+    public static boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Sets whether the game runs without a window.
+     * @param headless true to skip all drawing
+     */
+    public static void setHeadless(boolean headless) {
+        ShadowDungeon.headless = headless;
     }
 
     /**
@@ -223,6 +172,14 @@ public class ShadowDungeon extends AbstractGame {
         return gameProps;
     }
 
+    /**
+     * Gets the typed game configuration
+     * @return config
+     */
+    public static GameConfig getConfig() {
+        return config;
+    }
+
     /**
      * Gets the Game messages
      * @return messageProps
@@ -233,12 +190,18 @@ public class ShadowDungeon extends AbstractGame {
 
     /**
      * Main entry point for the game.
+     * Usage: {@code ShadowDungeon [--record file | --replay file]}.
      * @param args command-line arguments
      */
     public static void main(String[] args) {
         Properties gameProps = IOUtils.readPropertiesFile("res/app.properties");
         Properties messageProps = IOUtils.readPropertiesFile("res/message.properties");
         ShadowDungeon game = new ShadowDungeon(gameProps, messageProps);
+        if (args.length == 2 && args[0].equals("--record")) {
+            game.record(args[1]);
+        } else if (args.length == 2 && args[0].equals("--replay")) {
+            game.replay(args[1]);
+        }
         game.run();
     }
 }
@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A uniform grid that buckets static game objects by the cells their bounding boxes overlap,
+ * so that collision checks only need to look at objects near the area being tested.
+ */
+public class SpatialGrid {
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final ArrayList<ArrayList<GameObject>> cells;
+    private int queryStamp = 0;
+
+    /**
+     * Creates an empty grid covering the given area.
+     *
+     * @param width    The width of the area covered by the grid.
+     * @param height   The height of the area covered by the grid.
+     * @param cellSize The width and height of a single cell.
+     */
+    public SpatialGrid(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cells = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            cells.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Adds an object to every cell its bounding box overlaps.
+     *
+     * @param obj The object to add.
+     */
+    public void insert(GameObject obj) {
+        AABB box = obj.getBounds();
+        int minCol = toColumn(box.getMinX());
+        int maxCol = toColumn(box.getMaxX());
+        int minRow = toRow(box.getMinY());
+        int maxRow = toRow(box.getMaxY());
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                cells.get(row * columns + col).add(obj);
+            }
+        }
+    }
+
+    /**
+     * Removes an object from every cell its bounding box overlaps.
+     *
+     * @param obj The object to remove.
+     */
+    public void remove(GameObject obj) {
+        AABB box = obj.getBounds();
+        int minCol = toColumn(box.getMinX());
+        int maxCol = toColumn(box.getMaxX());
+        int minRow = toRow(box.getMinY());
+        int maxRow = toRow(box.getMaxY());
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                cells.get(row * columns + col).remove(obj);
+            }
+        }
+    }
+
+    /**
+     * Adds all objects in the list to the grid.
+     *
+     * @param objects The objects to add.
+     */
+    public void insertAll(List<? extends GameObject> objects) {
+        for (GameObject obj : objects) {
+            insert(obj);
+        }
+    }
+
+    /**
+     * Collects the objects stored in the cells overlapped by the given area.
+     * Each object is added to the result at most once.
+     *
+     * @param area   The area to look up.
+     * @param result The list the nearby objects are added to.
+     */
+    public void query(AABB area, List<GameObject> result) {
+        int minCol = toColumn(area.getMinX());
+        int maxCol = toColumn(area.getMaxX());
+        int minRow = toRow(area.getMinY());
+        int maxRow = toRow(area.getMaxY());
+        queryStamp++;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                for (GameObject obj : cells.get(row * columns + col)) {
+                    // objects spanning several cells are only added the first time this query meets them
+                    if (obj.gridQueryStamp != queryStamp) {
+                        obj.gridQueryStamp = queryStamp;
+                        result.add(obj);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every object from the grid.
+     */
+    public void clear() {
+        for (ArrayList<GameObject> cell : cells) {
+            cell.clear();
+        }
+    }
+
+    private int toColumn(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) Math.floor(x / cellSize)));
+    }
+
+    private int toRow(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor(y / cellSize)));
+    }
+}
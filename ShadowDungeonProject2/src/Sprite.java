@@ -0,0 +1,107 @@
+import bagel.Image;
+import bagel.util.Point;
+import bagel.util.Rectangle;
+
+/**
+ * An image used by game entities.
+ * The size of the image is read from the file so that bounding boxes work without a window,
+ * and the bagel image is only loaded when needed. Sprites are shared through {@link SpriteRegistry}.
+ */
+public class Sprite {
+    private final String imagePath;
+    private final double width;
+    private final double height;
+    private Image image;
+    /** Frame and texture rank assigned by {@link RenderQueue} when batching draws. */
+    int queueFrame = 0;
+    int queueRank = 0;
+
+    /**
+     * Creates a sprite for the image at the given path.
+     *
+     * @param imagePath The file path of the image.
+     */
+    public Sprite(String imagePath) {
+        this.imagePath = imagePath;
+        int[] size = IOUtils.readImageSize(imagePath);
+        this.width = size[0];
+        this.height = size[1];
+    }
+
+    /**
+     * Queues the sprite to be drawn centred at the given position at the end of the frame.
+     * Does nothing when the game is running headless.
+     *
+     * @param x     The x-coordinate of the centre.
+     * @param y     The y-coordinate of the centre.
+     * @param layer The {@link RenderQueue} layer to draw the sprite on.
+     */
+    public void draw(double x, double y, int layer) {
+        if (ShadowDungeon.isHeadless()) return;
+        RenderQueue.submit(this, x, y, layer);
+    }
+
+    /**
+     * Draws the sprite centred at the given position straight away.
+     * Only {@link RenderQueue#flush()} should call this.
+     *
+     * @param x The x-coordinate of the centre.
+     * @param y The y-coordinate of the centre.
+     */
+    void render(double x, double y) {
+        load();
+        image.draw(x, y);
+    }
+
+    /**
+     * Loads the bagel image if it has not been loaded yet.
+     * Does nothing when the game is running headless.
+     */
+    public void load() {
+        if (image == null && !ShadowDungeon.isHeadless()) {
+            image = new Image(imagePath);
+        }
+    }
+
+    /**
+     * Returns the bounding box of the sprite centred at the given position.
+     *
+     * @param position The centre of the sprite.
+     * @return The bounding box.
+     */
+    public Rectangle getBoundingBoxAt(Point position) {
+        return getBoundingBoxAt(position.x, position.y);
+    }
+
+    /**
+     * Returns the bounding box of the sprite centred at the given coordinates.
+     *
+     * @param x The x-coordinate of the centre.
+     * @param y The y-coordinate of the centre.
+     * @return The bounding box.
+     */
+    public Rectangle getBoundingBoxAt(double x, double y) {
+        return new Rectangle(x - width / 2, y - height / 2, width, height);
+    }
+
+    /**
+     * Gets the width of the sprite.
+     *
+     * @return The width in pixels.
+     */
+    public double getWidth() { return width; }
+
+    /**
+     * Gets the height of the sprite.
+     *
+     * @return The height in pixels.
+     */
+    public double getHeight() { return height; }
+
+    /**
+     * Gets the path of the image file.
+     *
+     * @return The image path.
+     */
+    public String getImagePath() { return imagePath; }
+}
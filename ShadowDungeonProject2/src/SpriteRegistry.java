@@ -0,0 +1,96 @@
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Central store of sprites keyed by image path, so every entity using the same image shares one copy.
+ * Entities acquire a sprite when created and release it when disposed. Sprites preloaded at startup stay
+ * in the registry for the whole game, so resetting rooms or firing projectiles never reloads an image.
+ * Every game session in the process shares the registry, so its methods are synchronized.
+ */
+public class SpriteRegistry {
+    private static final HashMap<String, Entry> sprites = new HashMap<>();
+
+    private static class Entry {
+        final Sprite sprite;
+        int refCount = 0;
+        boolean pinned = false;
+
+        Entry(Sprite sprite) {
+            this.sprite = sprite;
+        }
+    }
+
+    /**
+     * Loads every PNG image in the given directory and keeps it for the rest of the game.
+     *
+     * @param directory The directory holding the game's images.
+     */
+    public static synchronized void preload(String directory) {
+        File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(".png"));
+        if (files == null) return;
+        Arrays.sort(files);
+        for (File file : files) {
+            Entry entry = getOrCreate(directory + "/" + file.getName());
+            entry.pinned = true;
+            entry.sprite.load();
+        }
+    }
+
+    /**
+     * Returns the shared sprite for the given image, loading it if it is not in the registry yet.
+     * Each call must be matched by a call to {@link #release(Sprite)} once the sprite is no longer used.
+     *
+     * @param imagePath The file path of the image.
+     * @return The shared sprite.
+     */
+    public static synchronized Sprite acquire(String imagePath) {
+        Entry entry = getOrCreate(imagePath);
+        entry.refCount++;
+        return entry.sprite;
+    }
+
+    /**
+     * Gives back a sprite obtained from {@link #acquire(String)}.
+     * Sprites that are no longer used and were not preloaded are dropped from the registry.
+     *
+     * @param sprite The sprite to release.
+     */
+    public static synchronized void release(Sprite sprite) {
+        Entry entry = sprites.get(sprite.getImagePath());
+        if (entry == null || entry.refCount == 0) return;
+        entry.refCount--;
+        if (entry.refCount == 0 && !entry.pinned) {
+            sprites.remove(sprite.getImagePath());
+        }
+    }
+
+    /**
+     * Gets the number of users of the sprite for the given image.
+     *
+     * @param imagePath The file path of the image.
+     * @return The reference count, or 0 if the image is not in the registry.
+     */
+    public static synchronized int getRefCount(String imagePath) {
+        Entry entry = sprites.get(imagePath);
+        return entry == null ? 0 : entry.refCount;
+    }
+
+    /**
+     * Gets the number of sprites held by the registry.
+     *
+     * @return The sprite count.
+     */
+    public static synchronized int size() {
+        return sprites.size();
+    }
+
+    private static Entry getOrCreate(String imagePath) {
+        Entry entry = sprites.get(imagePath);
+        if (entry == null) {
+            entry = new Entry(new Sprite(imagePath));
+            sprites.put(imagePath, entry);
+        }
+        return entry;
+    }
+}
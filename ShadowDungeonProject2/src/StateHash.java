@@ -0,0 +1,71 @@
+/**
+ * Helpers for building a 64-bit checksum of the game state, one value at a time.
+ * Two runs that mix in the same values in the same order end with the same hash, so comparing
+ * hashes frame by frame shows the first frame where a replay stops matching its recording.
+ */
+public class StateHash {
+    /** The hash to start from before any value is mixed in. */
+    public static final long SEED = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    /**
+     * Mixes a whole number into the hash.
+     *
+     * @param hash  The hash so far.
+     * @param value The value to add.
+     * @return The new hash.
+     */
+    public static long mix(long hash, long value) {
+        hash = (hash ^ value) * PRIME;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Mixes a number into the hash using its exact bits.
+     *
+     * @param hash  The hash so far.
+     * @param value The value to add.
+     * @return The new hash.
+     */
+    public static long mix(long hash, double value) {
+        return mix(hash, Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Mixes a flag into the hash.
+     *
+     * @param hash  The hash so far.
+     * @param value The flag to add.
+     * @return The new hash.
+     */
+    public static long mix(long hash, boolean value) {
+        return mix(hash, value ? 1L : 0L);
+    }
+
+    /**
+     * Mixes every slot of a projectile pool into the hash.
+     *
+     * @param hash The hash so far.
+     * @param pool The pool to add.
+     * @return The new hash.
+     */
+    public static long mix(long hash, ProjectilePool pool) {
+        hash = mix(hash, (long) pool.getActiveCount());
+        for (int i = 0; i < pool.size(); i++) {
+            if (!pool.isActive(i)) continue;
+            hash = mix(hash, pool.getX(i));
+            hash = mix(hash, pool.getY(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Folds a hash into the 32-bit checksum stored with each recorded frame.
+     *
+     * @param hash The full hash.
+     * @return The checksum.
+     */
+    public static int fold(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,130 @@
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The parts of a room that never move (the background, walls and rivers), baked into one image so
+ * each frame draws a single sprite for them instead of one per tile.
+ *
+ * Bagel cannot draw into an offscreen image, so the layer is composed with Java2D from the files in
+ * res/, written to a temporary PNG and loaded back as a sprite. If baking fails the room simply
+ * keeps drawing its tiles one by one.
+ */
+public class StaticLayer {
+    private static final String BACKGROUND_PATH = "res/background.png";
+    private final String roomName;
+    private final List<GameObject> tiles = new ArrayList<>();
+    private Sprite baked;
+    private File bakedFile;
+    private boolean dirty = true;
+
+    /**
+     * Creates an empty static layer.
+     *
+     * @param roomName The name of the room, used to name the baked image.
+     */
+    public StaticLayer(String roomName) {
+        this.roomName = roomName;
+    }
+
+    /**
+     * Adds tiles to the layer. The layer is baked again the next time it is drawn.
+     *
+     * @param objects The tiles to add.
+     */
+    public void addAll(List<? extends GameObject> objects) {
+        tiles.addAll(objects);
+        dirty = true;
+    }
+
+    /**
+     * Marks the layer as out of date, e.g. after the room layout changed.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Queues the baked layer to be drawn, baking it first if it is out of date.
+     * Does nothing when the game is running headless.
+     *
+     * @return True if the layer was drawn, false if the tiles must be drawn one by one.
+     */
+    public boolean draw() {
+        if (ShadowDungeon.isHeadless()) return false;
+        if (dirty) bake();
+        if (baked == null) return false;
+        baked.draw(ShadowDungeon.screenWidth / 2, ShadowDungeon.screenHeight / 2, RenderQueue.BACKGROUND);
+        return true;
+    }
+
+    /**
+     * Checks whether the layer has been baked and covers the background as well as the tiles.
+     *
+     * @return True if a baked image is available.
+     */
+    public boolean isBaked() {
+        return !dirty && baked != null;
+    }
+
+    /**
+     * Composes the background and tiles into one image now.
+     * Does nothing when the game is running headless.
+     */
+    public void bake() {
+        if (ShadowDungeon.isHeadless()) return;
+        deleteBaked();
+        dirty = false;
+        try {
+            int width = (int) ShadowDungeon.screenWidth;
+            int height = (int) ShadowDungeon.screenHeight;
+            BufferedImage layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = layer.createGraphics();
+            HashMap<String, BufferedImage> images = new HashMap<>();
+            drawCentred(graphics, images, BACKGROUND_PATH, width / 2.0, height / 2.0);
+            for (GameObject tile : tiles) {
+                drawCentred(graphics, images, tile.getImage().getImagePath(), tile.getPosition().x, tile.getPosition().y);
+            }
+            graphics.dispose();
+
+            bakedFile = File.createTempFile("shadow-dungeon-" + roomName + "-", ".png");
+            bakedFile.deleteOnExit();
+            ImageIO.write(layer, "png", bakedFile);
+            baked = new Sprite(bakedFile.getPath());
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            deleteBaked();
+        }
+    }
+
+    private static void drawCentred(Graphics2D graphics, HashMap<String, BufferedImage> images,
+                                    String imagePath, double x, double y) throws IOException {
+        BufferedImage image = images.get(imagePath);
+        if (image == null) {
+            image = ImageIO.read(new File(imagePath));
+            if (image == null) throw new IOException("Unsupported image: " + imagePath);
+            images.put(imagePath, image);
+        }
+        graphics.drawImage(image, (int) Math.round(x - image.getWidth() / 2.0),
+                (int) Math.round(y - image.getHeight() / 2.0), null);
+    }
+
+    /**
+     * Deletes the baked image. The layer is baked again if it is drawn later.
+     */
+    public void dispose() {
+        deleteBaked();
+        dirty = true;
+    }
+
+    private void deleteBaked() {
+        if (bakedFile != null) bakedFile.delete();
+        bakedFile = null;
+        baked = null;
+    }
+}
@@ -1,24 +1,26 @@
-import bagel.Image;
-import bagel.Input;
 import bagel.Keys;
 import bagel.util.Point;
 
+import java.nio.ByteBuffer;
+
 /**
  * Store where the player can buy upgrades.
  * Allows purchasing weapon and health upgrades.
  */
 public class Store {
-    private final Image image = new Image("res/store.png");
+    private final Sprite image = SpriteRegistry.acquire("res/store.png");
+    private final GameSession session;
     private final Point position;
     private boolean active = false;
     Character character;
-    Bullet bullet;
 
     /**
-     * Creates a store at the position specified in the game properties.
+     * Creates a store at the position specified in the game configuration.
+     * @param session the game session whose stats the store spends and upgrades
      */
-    public Store(){
-        position= IOUtils.parseCoords(ShadowDungeon.getGameProps().getProperty("store"));
+    public Store(GameSession session){
+        this.session = session;
+        position= ShadowDungeon.getConfig().getStorePosition();
     }
 
     /**
@@ -27,73 +29,63 @@ public class Store {
      *
      * @param input The player input.
      */
-    public void update(Input input) {
-        if (!active || character == null){
+    public void update(GameInput input) {
+        if (!active || character == null || character.getBullets() == null){
             return;
         }
-        if (bullet == null) {
-            if (!character.getBullets().isEmpty()) {
-                bullet= character.getBullets().get(0); // first bullet is the current weapon
-            } else {
-                return;
-            }
-        }
         if (input.wasPressed(Keys.L)) {
-            double weaponCost = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("weaponPurchase"));
-            double weaponStandardDamage = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("weaponStandardDamage"));
-            double weaponAdvancedDamage = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("weaponAdvanceDamage"));
-            double weaponEliteDamage = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("weaponEliteDamage"));
+            GameConfig config = ShadowDungeon.getConfig();
+            PlayerStats stats = session.getStats();
+            double weaponCost = config.getWeaponPurchase();
+            double weaponAdvancedDamage = config.getWeaponAdvanceDamage();
+            double weaponEliteDamage = config.getWeaponEliteDamage();
 
-            if (Character.getCoins() >= weaponCost) {
+            if (stats.getCoins() >= weaponCost) {
                 double newDamage;
-                int currentLevel = (int) Character.getWeapon();
+                int currentLevel = (int) stats.getWeapon();
 
                 if (currentLevel == 0) {
                     newDamage = weaponAdvancedDamage;
-                    Character.setWeapon(1);
+                    stats.setWeapon(1);
                 } else if (currentLevel == 1) {
                     newDamage = weaponEliteDamage;
-                    Character.setWeapon(2);
+                    stats.setWeapon(2);
                 } else {
                     return;
                 }
-                Character.earnCoins(-weaponCost);
+                stats.earnCoins(-weaponCost);
                 character.setWeaponDamage(newDamage);
-                for (Bullet bullet : character.getBullets()) {
-                    bullet.setDamage(newDamage);
-                }
+                character.getBullets().setAllDamage(newDamage);
             }
         }
         if (input.wasPressed(Keys.E)) {
-            double healthCost = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("healthPurchase"));
-            double healthBonus = Double.parseDouble(ShadowDungeon.getGameProps().getProperty("healthBonus"));
+            double healthCost = ShadowDungeon.getConfig().getHealthPurchase();
+            double healthBonus = ShadowDungeon.getConfig().getHealthBonus();
+            PlayerStats stats = session.getStats();
 
-            if (Character.getCoins() >= healthCost) {
-                Character.earnCoins(-healthCost);
-                Character.setHealth(Character.getHealth() + healthBonus);
+            if (stats.getCoins() >= healthCost) {
+                stats.earnCoins(-healthCost);
+                stats.setHealth(stats.getHealth() + healthBonus);
             }
         }
         if (input.wasPressed(Keys.P)) {
-            ShadowDungeon.resetGameState(ShadowDungeon.getGameProps());
-            character = ShadowDungeon.getCurrCharacter();
-            bullet = null;
+            session.requestRestart();
         }
     }
     /**
-     * Draws the store if it is active.
+     * Releases the store's sprite once it is no longer part of the game.
      */
-    public void draw(){
-        if (active) {
-            image.draw(position.x, position.y);
-        }
+    public void dispose() {
+        SpriteRegistry.release(image);
     }
 
     /**
-     * Sets the bullet reference for weapon upgrades.
-     * @param bullet the bullets occuring
+     * Draws the store if it is active.
      */
-    public void setBullet(Bullet bullet) {
-        this.bullet = bullet;
+    public void draw(){
+        if (active) {
+            image.draw(position.x, position.y, RenderQueue.OVERLAY);
+        }
     }
 
     /**
@@ -111,4 +103,24 @@ public class Store {
     public boolean getActive(){
         return active;
     }
+
+    /**
+     * Writes whether the store is open and who it serves to a snapshot.
+     *
+     * @param out The buffer to write to.
+     */
+    void writeState(ByteBuffer out) {
+        GameSnapshot.putBoolean(out, active);
+        out.put((byte) session.getCharacterId(character));
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param in The buffer to read from.
+     */
+    void readState(ByteBuffer in) {
+        active = GameSnapshot.getBoolean(in);
+        character = session.getCharacterById(in.get());
+    }
 }
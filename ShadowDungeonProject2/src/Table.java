@@ -7,9 +7,10 @@ public class Table extends GameObject {
 
     /**
      * Creates a table at the given position.
+     * @param world The world of the room the table is in.
      * @param point The position of the table.
      */
-    public Table(Point point) {
-        super(point, "res/table.png");
+    public Table(EntityWorld world, Point point) {
+        super(world, point, "res/table.png", CollisionMask.TABLE, 0);
     }
 }
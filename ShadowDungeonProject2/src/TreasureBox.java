@@ -1,4 +1,3 @@
-import bagel.Input;
 import bagel.Keys;
 import bagel.util.Point;
 
@@ -11,11 +10,12 @@ public class TreasureBox extends GameObject implements Earnable {
     /**
      * Creates a treasure box at the given position.
      *
+     * @param world The world of the room the treasure box is in.
      * @param point The position of the treasure box.
      * @param coinValue The number of coins the box gives when opened.
      */
-    public TreasureBox(Point point, int coinValue) {
-        super(point, "res/treasure_box.png");
+    public TreasureBox(EntityWorld world, Point point, int coinValue) {
+        super(world, point, "res/treasure_box.png", CollisionMask.TREASURE_BOX, 0);
         this.coinValue = coinValue;
     }
 
@@ -33,8 +33,9 @@ public class TreasureBox extends GameObject implements Earnable {
      */
     @Override
     public void onEarn(Character character) {
-        Character.earnCoins(coinValue);
-        Character.setKey(Character.getKey() - 1);
+        PlayerStats stats = character.getStats();
+        stats.earnCoins(coinValue);
+        stats.setKey(stats.getKey() - 1);
         this.destroy();
     }
 
@@ -44,9 +45,9 @@ public class TreasureBox extends GameObject implements Earnable {
      * @param input The game input.
      * @param currCharacter The current character.
      */
-    public void update(Input input, Character currCharacter) {
+    public void update(GameInput input, Character currCharacter) {
         if (isDestroyed()) return;
-        if (hasCollidedWith(currCharacter) && input.wasPressed(Keys.K) && Character.getKey() >= 1) {
+        if (hasCollidedWith(currCharacter) && input.wasPressed(Keys.K) && currCharacter.getStats().getKey() >= 1) {
             onEarn(currCharacter);
         }
     }
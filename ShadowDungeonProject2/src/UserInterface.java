@@ -1,11 +1,43 @@
 import bagel.Font;
-import bagel.Window;
 import bagel.util.Point;
 
+import java.util.HashMap;
+import java.util.Properties;
+
 /**
  * Helper methods to display information for the player
  */
 public class UserInterface {
+    private static final String FONT_PATH = "res/wheaton.otf";
+    private static final HashMap<Integer, Font> fonts = new HashMap<>();
+    private static Hud hud;
+    private static int titleFontSize;
+    private static int promptFontSize;
+    private static int statsFontSize;
+    private static double titleY;
+    private static double moveMessageY;
+    private static double selectMessageY;
+    private static Point robotMessagePos;
+    private static Point marineMessagePos;
+
+    /**
+     * Reads the positions and sizes of all on-screen text from the game configuration.
+     * Must be called before anything is drawn.
+     *
+     * @param config The game configuration.
+     * @param messageProps Text messages and labels properties.
+     */
+    public static void loadLayout(GameConfig config, Properties messageProps) {
+        hud = new Hud(config, messageProps);
+        titleFontSize = config.getTitleFontSize();
+        promptFontSize = config.getPromptFontSize();
+        statsFontSize = config.getStatsFontSize();
+        titleY = config.getTitleY();
+        moveMessageY = config.getMoveMessageY();
+        selectMessageY = config.getSelectMessageY();
+        robotMessagePos = config.getRobotMessagePosition();
+        marineMessagePos = config.getMarineMessagePosition();
+    }
 
     /**
      * Draws the player stats on screen.
@@ -16,37 +48,24 @@ public class UserInterface {
      * @param key Player's number of keys.
      */
     public static void drawStats(double health, double coins, int weapon, int key) {
-        int fontSize = Integer.parseInt(ShadowDungeon.getGameProps().getProperty("playerStats.fontSize"));
-        drawData(String.format("%s %.1f", ShadowDungeon.getMessageProps().getProperty("healthDisplay"), health), fontSize,
-                IOUtils.parseCoords(ShadowDungeon.getGameProps().getProperty("healthStat")));
-        drawData(String.format("%s %.0f", ShadowDungeon.getMessageProps().getProperty("coinDisplay"), coins), fontSize,
-                IOUtils.parseCoords(ShadowDungeon.getGameProps().getProperty("coinStat")));
-        drawData(String.format("%s %d", ShadowDungeon.getMessageProps().getProperty("weaponDisplay"), weapon), fontSize,
-                IOUtils.parseCoords(ShadowDungeon.getGameProps().getProperty("weaponStat")));
-        drawData(String.format("%s %d", ShadowDungeon.getMessageProps().getProperty("keyDisplay"), key), fontSize,
-                IOUtils.parseCoords(ShadowDungeon.getGameProps().getProperty("keyStat")));
+        if (ShadowDungeon.isHeadless()) return;
+        hud.draw(health, coins, weapon, key);
     }
 
     /**
      * Draws the start screen messages for character selection and movement instructions.
      */
     public static void drawStartMessages() {
-        drawTextCentered("title", Integer.parseInt(ShadowDungeon.getGameProps().getProperty("title.fontSize")),
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("title.y")));
-        drawTextCentered("moveMessage", Integer.parseInt(ShadowDungeon.getGameProps().getProperty("prompt.fontSize")),
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("moveMessage.y")));
-        drawTextCentered("selectMessage", Integer.parseInt(ShadowDungeon.getGameProps().getProperty("prompt.fontSize")),
-                Double.parseDouble(ShadowDungeon.getGameProps().getProperty("selectMessage.y")));
-        Point robotPos = IOUtils.parseCoords(ShadowDungeon.getGameProps().getProperty("robotMessage"));
-        Point marinePos = IOUtils.parseCoords(ShadowDungeon.getGameProps().getProperty("marineMessage"));
+        if (ShadowDungeon.isHeadless()) return;
+        drawTextCentered("title", titleFontSize, titleY);
+        drawTextCentered("moveMessage", promptFontSize, moveMessageY);
+        drawTextCentered("selectMessage", promptFontSize, selectMessageY);
 
         UserInterface.drawData(ShadowDungeon.getMessageProps().getProperty("robotDescription"),
-                Integer.parseInt(ShadowDungeon.getGameProps().getProperty("playerStats.fontSize")),
-                robotPos);
+                statsFontSize, robotMessagePos);
 
         UserInterface.drawData(ShadowDungeon.getMessageProps().getProperty("marineDescription"),
-                Integer.parseInt(ShadowDungeon.getGameProps().getProperty("playerStats.fontSize")),
-                marinePos);
+                statsFontSize, marineMessagePos);
     }
 
     /**
@@ -55,8 +74,8 @@ public class UserInterface {
      * @param win True if the player won, false if lost.
      */
     public static void drawEndMessage(boolean win) {
-        drawTextCentered(win ? "gameEnd.won" : "gameEnd.lost", Integer.parseInt(ShadowDungeon.getGameProps()
-                .getProperty("title.fontSize")), Double.parseDouble(ShadowDungeon.getGameProps().getProperty("title.y")));
+        if (ShadowDungeon.isHeadless()) return;
+        drawTextCentered(win ? "gameEnd.won" : "gameEnd.lost", titleFontSize, titleY);
     }
 
     /**
@@ -67,10 +86,11 @@ public class UserInterface {
      * @param posY Vertical position to draw the text.
      */
     public static void drawTextCentered(String textPath, int fontSize, double posY) {
-        Font font = new Font("res/wheaton.otf", fontSize);
+        if (ShadowDungeon.isHeadless()) return;
+        Font font = getFont(fontSize);
         String text = ShadowDungeon.getMessageProps().getProperty(textPath);
-        double posX = (Window.getWidth() - font.getWidth(text)) / 2;
-        font.drawString(text, posX, posY);
+        double posX = (ShadowDungeon.screenWidth - font.getWidth(text)) / 2;
+        RenderQueue.submitText(font, text, posX, posY, RenderQueue.UI);
     }
 
     /**
@@ -81,7 +101,22 @@ public class UserInterface {
      * @param location The screen position to draw the string.
      */
     public static void drawData(String data, int fontSize, Point location) {
-        Font font = new Font("res/wheaton.otf", fontSize);
-        font.drawString(data, location.x, location.y);
+        if (ShadowDungeon.isHeadless()) return;
+        RenderQueue.submitText(getFont(fontSize), data, location.x, location.y, RenderQueue.UI);
+    }
+
+    /**
+     * Returns the game font at the given size, loading it the first time the size is used.
+     *
+     * @param fontSize Size of the font.
+     * @return The font.
+     */
+    public static Font getFont(int fontSize) {
+        Font font = fonts.get(fontSize);
+        if (font == null) {
+            font = new Font(FONT_PATH, fontSize);
+            fonts.put(fontSize, font);
+        }
+        return font;
     }
 }
@@ -1,4 +1,3 @@
-import bagel.Image;
 import bagel.util.Point;
 
 /**
@@ -9,9 +8,10 @@ public class Wall extends GameObject {
 
     /**
      * Creates a wall at the given position.
+     * @param world The world of the room the wall is in.
      * @param point The position of the wall.
      */
-    public Wall(Point point) {
-        super(point, "res/wall.png");
+    public Wall(EntityWorld world, Point point) {
+        super(world, point, "res/wall.png", CollisionMask.WALL, EntityWorld.TILE);
     }
 }
\ No newline at end of file
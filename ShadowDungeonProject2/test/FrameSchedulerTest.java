@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the frame budget of {@link FrameScheduler} on a clock the test moves forward itself,
+ * so every frame can be checked exactly however busy the machine running the test is.
+ */
+public class FrameSchedulerTest {
+    private static final long BUDGET_NANOS = 4_000_000;
+    private static final int TASKS = 10_000;
+    private static final long SEED = 42;
+
+    private long now = 0;
+
+    /**
+     * Queues far more work than fits in a frame, with tasks and game updates of random length,
+     * and checks that every frame stops running deferred work within the budget plus one task.
+     */
+    @Test
+    public void everyFrameStopsWithinBudgetPlusOneTask() {
+        FrameScheduler scheduler = new FrameScheduler(() -> now);
+        scheduler.setBudget(BUDGET_NANOS / 1e6);
+        Random random = new Random(SEED);
+        long[] lastTaskLength = new long[1];
+        for (int i = 0; i < TASKS; i++) {
+            long length = 10_000 + random.nextInt(2_000_000);
+            scheduler.defer(() -> {
+                now += length;
+                lastTaskLength[0] = length;
+            });
+        }
+
+        int frames = 0;
+        while (scheduler.getPendingCount() > 0) {
+            assertTrue(frames < TASKS, "the queue was never emptied");
+            long start = now;
+            scheduler.beginFrame();
+            // the room update itself sometimes takes the whole budget
+            long update = random.nextInt((int) (BUDGET_NANOS * 5 / 4));
+            now += update;
+            lastTaskLength[0] = 0;
+            int run = scheduler.runDeferred();
+            long frameTime = now - start;
+            if (update >= BUDGET_NANOS) {
+                assertEquals(0, run, "frame " + frames + " ran deferred work after its budget was used");
+            } else {
+                assertTrue(frameTime < BUDGET_NANOS + lastTaskLength[0],
+                        "frame " + frames + " took " + frameTime + " ns, more than the budget and one task");
+            }
+            frames++;
+        }
+        assertEquals(TASKS, scheduler.getTasksRun());
+    }
+
+    /**
+     * Checks that deferred work runs oldest first and that work deferred while it runs waits for the next frame.
+     */
+    @Test
+    public void workDeferredWhileRunningWaitsForNextFrame() {
+        FrameScheduler scheduler = new FrameScheduler(() -> now);
+        List<Integer> order = new ArrayList<>();
+        scheduler.defer(() -> {
+            order.add(1);
+            scheduler.defer(() -> order.add(3));
+        });
+        scheduler.defer(() -> order.add(2));
+
+        scheduler.beginFrame();
+        assertEquals(2, scheduler.runDeferred());
+        assertEquals(List.of(1, 2), order);
+        assertEquals(1, scheduler.getPendingCount());
+
+        scheduler.beginFrame();
+        assertEquals(1, scheduler.runDeferred());
+        assertEquals(List.of(1, 2, 3), order);
+    }
+
+    /**
+     * Checks that a frame whose update used the whole budget runs no deferred work and is counted as over budget.
+     */
+    @Test
+    public void frameOverBudgetRunsNothing() {
+        FrameScheduler scheduler = new FrameScheduler(() -> now);
+        scheduler.setBudget(BUDGET_NANOS / 1e6);
+        scheduler.defer(() -> { });
+        scheduler.beginFrame();
+        now += BUDGET_NANOS;
+        assertEquals(0, scheduler.runDeferred());
+        assertEquals(1, scheduler.getFramesOverBudget());
+        assertEquals(1, scheduler.getPendingCount());
+    }
+}
@@ -0,0 +1,153 @@
+import bagel.Keys;
+import bagel.MouseButtons;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that game sessions keep their own state, so several can be played at once in one process.
+ */
+public class GameSessionTest {
+    private static final int SESSIONS = 8;
+    private static final int SESSION_FRAMES = 3000;
+    private static final int SESSION_STEP_FRAMES = 40;
+
+    static {
+        HeadlessSimulation.loadSession(IOUtils.readPropertiesFile("res/app.properties"),
+                IOUtils.readPropertiesFile("res/message.properties"));
+    }
+
+    /**
+     * Plays {@value #SESSIONS} sessions, each driven by its own random input, one after another and then
+     * all at once on their own threads, and checks that every session goes through the same states both times.
+     */
+    @Test
+    public void sessionsSteppedInParallelMatchSerial() throws Exception {
+        FrameProfiler.setEnabled(false);
+        long[] serial = new long[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            serial[i] = runSession(i);
+        }
+
+        ExecutorService threads = Executors.newFixedThreadPool(SESSIONS);
+        try {
+            List<Future<Long>> parallel = new ArrayList<>();
+            for (int i = 0; i < SESSIONS; i++) {
+                long seed = i;
+                parallel.add(threads.submit(() -> runSession(seed)));
+            }
+            for (int i = 0; i < SESSIONS; i++) {
+                assertEquals(serial[i], (long) parallel.get(i).get(), "session " + i + " differed on its own thread");
+            }
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    /**
+     * Checks that changing one session's stats and room leaves another session as it was.
+     */
+    @Test
+    public void sessionsKeepTheirOwnStats() {
+        GameSession first = new GameSession(ShadowDungeon.getLayout());
+        GameSession second = new GameSession(ShadowDungeon.getLayout());
+        long secondHash = second.hashState();
+        long secondCoinEvents = second.getEvents().getCount(EventBus.COINS_EARNED);
+
+        first.getStats().setHealth(1);
+        first.getStats().earnCoins(50);
+        first.changeRoom("A");
+
+        assertEquals(secondHash, second.hashState());
+        assertEquals(ShadowDungeon.getConfig().getInitialHealth(), second.getStats().getHealth());
+        assertEquals(0.0, second.getStats().getCoins());
+        assertEquals(ShadowDungeon.PREP_ROOM_NAME, second.getCurrRoomName());
+        assertEquals(secondCoinEvents, second.getEvents().getCount(EventBus.COINS_EARNED));
+    }
+
+    /**
+     * Checks that a session cannot be stepped while another one is being stepped and the profiler,
+     * which times one game at a time, is on.
+     */
+    @Test
+    public void profiledSessionsCannotBeSteppedAtOnce() throws Exception {
+        GameSession blocked = new GameSession(ShadowDungeon.getLayout());
+        GameSession other = new GameSession(ShadowDungeon.getLayout());
+        CountDownLatch stepping = new CountDownLatch(1);
+        CountDownLatch checked = new CountDownLatch(1);
+        // holds the first session inside its step until the second has tried to step
+        ScriptedInput held = new ScriptedInput() {
+            @Override
+            public boolean wasPressed(Keys key) {
+                if (stepping.getCount() > 0) {
+                    stepping.countDown();
+                    try {
+                        checked.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.wasPressed(key);
+            }
+        };
+
+        FrameProfiler.setEnabled(true);
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> first = thread.submit(() -> blocked.step(held));
+            stepping.await();
+            assertThrows(IllegalStateException.class, () -> other.step(new ScriptedInput()));
+            checked.countDown();
+            first.get();
+
+            // one session at a time is still fine
+            other.step(new ScriptedInput());
+        } finally {
+            checked.countDown();
+            thread.shutdown();
+            FrameProfiler.setEnabled(false);
+        }
+    }
+
+    /**
+     * Plays a new session headless and mixes its state after every frame into one hash.
+     */
+    private static long runSession(long seed) {
+        GameSession session = new GameSession(ShadowDungeon.getLayout());
+        HeadlessSimulation simulation = new HeadlessSimulation(session, sessionInput(seed));
+        long hash = StateHash.SEED;
+        for (int frame = 0; frame < SESSION_FRAMES; frame++) {
+            simulation.step();
+            hash = StateHash.mix(hash, session.hashState());
+        }
+        return hash;
+    }
+
+    /**
+     * Picks the robot, walks it through the prep room door and then wanders around shooting,
+     * changing direction and aim every {@value #SESSION_STEP_FRAMES} frames.
+     */
+    private static ScriptedInput sessionInput(long seed) {
+        Random random = new Random(seed);
+        Keys[] moves = {Keys.W, Keys.A, Keys.S, Keys.D};
+        ScriptedInput input = new ScriptedInput();
+        input.addStep(5, EnumSet.of(Keys.R), EnumSet.noneOf(MouseButtons.class), 512, 100);
+        input.addStep(80, EnumSet.of(Keys.W), EnumSet.noneOf(MouseButtons.class), 512, 100);
+        for (int frames = 85; frames < SESSION_FRAMES; frames += SESSION_STEP_FRAMES) {
+            input.addStep(SESSION_STEP_FRAMES, EnumSet.of(moves[random.nextInt(moves.length)]),
+                    EnumSet.of(MouseButtons.LEFT), random.nextDouble() * ShadowDungeon.screenWidth,
+                    random.nextDouble() * ShadowDungeon.screenHeight);
+        }
+        return input;
+    }
+}